@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+#
+# Build and run the benchmarks, then compare the results against baseline.csv.
+# Extra arguments are passed to JMH, e.g. ./compare.sh BoardGeneration -p size=16x30
+#
+# THRESHOLD        tolerated regression in percent (default 10)
+# UPDATE_BASELINE  set to 1 to replace baseline.csv with the new results
+#
+set -euo pipefail
+cd "$(dirname "$0")"
+
+THRESHOLD=${THRESHOLD:-10}
+
+(cd .. && mvn -B -q install -DskipTests)
+mvn -B -q package
+java -jar target/benchmarks.jar -prof gc -rf csv -rff target/current.csv "$@"
+
+if [ "${UPDATE_BASELINE:-0}" = "1" ]; then
+    cp target/current.csv baseline.csv
+    echo "Baseline updated"
+    exit 0
+fi
+
+# Key each row by benchmark name and parameters. Throughput (ops/...) must not drop,
+# average time (.../op) and normalized allocation (B/op) must not grow.
+awk -F',' -v threshold="$THRESHOLD" '
+    function key(   k, i) { k = $1; for(i = 8; i <= NF; i++) k = k "," $i; gsub(/"/, "", k); return k }
+    FNR == 1 { next }
+    NR == FNR { baseline[key()] = $5; next }
+    {
+        k = key(); unit = $7; gsub(/"/, "", unit)
+        if(k ~ /gc\.(alloc\.rate|count|time)(,|$)/ || !(k in baseline) || baseline[k] == 0) next
+        change = ($5 - baseline[k]) / baseline[k] * 100
+        higherIsBetter = (unit ~ /^ops\//)
+        regression = higherIsBetter ? (change < -threshold) : (change > threshold)
+        printf "%-8s %+8.1f%%  %s (%s)\n", regression ? "REGRESS" : "ok", change, k, unit
+        if(regression) failed = 1
+    }
+    END { exit failed }
+' baseline.csv target/current.csv
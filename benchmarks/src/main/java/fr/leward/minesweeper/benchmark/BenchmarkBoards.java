@@ -0,0 +1,52 @@
+package fr.leward.minesweeper.benchmark;
+
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.components.RandomMineLayoutGenerator;
+import fr.leward.minesweeper.game.Game;
+
+/**
+ * Board configurations shared by the benchmarks.
+ * Sizes are given as {@code <rows>x<columns>} and densities as a ratio of mines per cell.
+ */
+final class BenchmarkBoards {
+
+    static final long SEED = 42L;
+
+    final int rows;
+    final int columns;
+    final int nbMines;
+
+    BenchmarkBoards(String size, double density) {
+        String[] dimensions = size.split("x");
+        this.rows = Integer.parseInt(dimensions[0]);
+        this.columns = Integer.parseInt(dimensions[1]);
+        int cells = rows * columns;
+        this.nbMines = (int) Math.min(cells - 1, Math.max(1, Math.round(cells * density)));
+    }
+
+    Board newBoard() {
+        return new Board(rows, columns, nbMines, new RandomMineLayoutGenerator(SEED));
+    }
+
+    Game newGame() {
+        return new Game(rows, columns, nbMines, SEED);
+    }
+
+    /**
+     * @return the index of the first cell with no mine and no adjacent mine, or of the first safe cell if there is none
+     */
+    static int firstEmptyCell(Board board) {
+        int firstSafe = -1;
+        for(int index = 0; index < board.getSize(); index++) {
+            if(!board.isMine(index)) {
+                if(board.countAdjacentMines(index) == 0) {
+                    return index;
+                }
+                if(firstSafe < 0) {
+                    firstSafe = index;
+                }
+            }
+        }
+        return firstSafe;
+    }
+}
@@ -0,0 +1,39 @@
+package fr.leward.minesweeper.benchmark;
+
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.components.RandomMineLayoutGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the construction of a board: mine placement and adjacency count computation
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardGenerationBenchmark {
+
+    @Param({"9x9", "16x16", "16x30", "1000x1000", "10000x10000"})
+    public String size;
+
+    @Param({"0.05", "0.2"})
+    public double density;
+
+    private BenchmarkBoards boards;
+    private RandomMineLayoutGenerator generator;
+
+    @Setup
+    public void setUp() {
+        boards = new BenchmarkBoards(size, density);
+        generator = new RandomMineLayoutGenerator(BenchmarkBoards.SEED);
+    }
+
+    @Benchmark
+    public Board generateBoard() {
+        return new Board(boards.rows, boards.columns, boards.nbMines, generator);
+    }
+}
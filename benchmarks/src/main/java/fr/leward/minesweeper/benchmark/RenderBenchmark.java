@@ -0,0 +1,44 @@
+package fr.leward.minesweeper.benchmark;
+
+import fr.leward.minesweeper.cli.renderer.BoardRenderer;
+import fr.leward.minesweeper.components.Board;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the rendering of a board with every other row revealed
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    @Param({"9x9", "16x16", "16x30", "1000x1000", "10000x10000"})
+    public String size;
+
+    @Param({"0.05", "0.2"})
+    public double density;
+
+    private Board board;
+    private BoardRenderer renderer;
+
+    @Setup
+    public void setUp() {
+        board = new BenchmarkBoards(size, density).newBoard();
+        for(int row = 0; row < board.getWidth(); row += 2) {
+            for(int column = 0; column < board.getHeight(); column++) {
+                board.reveal(row, column);
+            }
+        }
+        renderer = new BoardRenderer();
+    }
+
+    @Benchmark
+    public String renderBoardAsString() {
+        return renderer.renderBoardAsString(board);
+    }
+}
@@ -0,0 +1,48 @@
+package fr.leward.minesweeper.benchmark;
+
+import fr.leward.minesweeper.game.Game;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure a first click on an empty cell, which cascades through its whole empty region.
+ * A fresh game is built before each invocation, outside of the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RevealCascadeBenchmark {
+
+    @Param({"9x9", "16x16", "16x30", "1000x1000", "10000x10000"})
+    public String size;
+
+    @Param({"0.05", "0.2"})
+    public double density;
+
+    private BenchmarkBoards boards;
+    private Game game;
+    private int row;
+    private int column;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        boards = new BenchmarkBoards(size, density);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        game = boards.newGame();
+        int index = BenchmarkBoards.firstEmptyCell(game.getBoard());
+        row = index / boards.columns;
+        column = index % boards.columns;
+    }
+
+    @Benchmark
+    public int revealCell() {
+        return game.revealCell(row, column);
+    }
+}
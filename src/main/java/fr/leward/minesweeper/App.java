@@ -1,16 +1,130 @@
 package fr.leward.minesweeper;
 
+import fr.leward.minesweeper.cli.FrameWriter;
+import fr.leward.minesweeper.cli.InputReader;
 import fr.leward.minesweeper.cli.MinesweeperCli;
+import fr.leward.minesweeper.cli.StreamingCli;
+import fr.leward.minesweeper.game.Game;
+import fr.leward.minesweeper.metrics.Metrics;
+import fr.leward.minesweeper.metrics.MetricsMXBeanImpl;
+import fr.leward.minesweeper.metrics.MetricsReporter;
+import fr.leward.minesweeper.server.GameServer;
+import fr.leward.minesweeper.simulation.MovePolicy;
+import fr.leward.minesweeper.simulation.RandomMovePolicy;
+import fr.leward.minesweeper.simulation.Simulation;
+import fr.leward.minesweeper.simulation.SimulationStats;
+import fr.leward.minesweeper.simulation.SolverMovePolicy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Hello world!
  *
+ * Run without argument to play, or with
+ * {@code simulate <rows> <columns> <mines> <games> [threads] [random|solver] [seed]} to measure the win rate of a policy.
+ * {@code stream <rows> <columns> <mines> [viewportRows] [viewportColumns]} plays huge boards through a scrollable window,
+ * and {@code script <rows> <columns> <mines> <seed> [file]} plays the moves read from a file or from the standard input.
+ * {@code serve [port] [snapshotDirectory] [idleSeconds]} hosts games for clients of the {@link GameServer} protocol.
+ * With {@code -Dminesweeper.metrics=true} the metrics are exposed through JMX,
+ * and appended every 10 seconds to the CSV file named by {@code -Dminesweeper.metrics.csv}.
  */
 public class App 
 {
-    public static void main( String[] args )
+    public static void main( String[] args ) throws InterruptedException, IOException
     {
+        Metrics metrics = Metrics.global();
+        if(metrics.isEnabled()) {
+            MetricsMXBeanImpl.register(metrics);
+            String csv = System.getProperty("minesweeper.metrics.csv");
+            if(csv != null) {
+                MetricsReporter.csv(metrics, Paths.get(csv), 10, TimeUnit.SECONDS);
+            }
+        }
+        if(args.length > 0 && args[0].equals("simulate")) {
+            simulate(args);
+            return;
+        }
+        if(args.length > 0 && args[0].equals("serve")) {
+            serve(args);
+            return;
+        }
+        if(args.length > 0 && (args[0].equals("stream") || args[0].equals("script"))) {
+            stream(args);
+            return;
+        }
         MinesweeperCli minesweeper = new MinesweeperCli();
         minesweeper.run();
     }
+
+    private static void simulate(String[] args) throws InterruptedException {
+        if(args.length < 5) {
+            System.err.println("Usage: simulate <rows> <columns> <mines> <games> [threads] [random|solver] [seed]");
+            System.exit(1);
+        }
+        int rows = Integer.parseInt(args[1]);
+        int columns = Integer.parseInt(args[2]);
+        int nbMines = Integer.parseInt(args[3]);
+        long games = Long.parseLong(args[4]);
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+        Supplier<MovePolicy> policy = args.length > 6 && args[6].equals("random") ? RandomMovePolicy::new : SolverMovePolicy::new;
+        long seed = args.length > 7 ? Long.parseLong(args[7]) : System.nanoTime();
+
+        long start = System.nanoTime();
+        SimulationStats stats = new Simulation(rows, columns, nbMines, policy)
+                .run(games, threads, seed, System.out::println, 1000);
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.println(stats);
+        System.out.println(String.format("%d games in %d ms, %d games per minute",
+                stats.getGames(), elapsedMillis, stats.getGames() * 60_000 / elapsedMillis));
+    }
+
+    private static void serve(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 7777;
+        String snapshotDirectory = args.length > 2 ? args[2] : "snapshots";
+        long idleSeconds = args.length > 3 ? Long.parseLong(args[3]) : 60;
+
+        GameServer server = new GameServer(port, Paths.get(snapshotDirectory), idleSeconds, TimeUnit.SECONDS).start();
+        System.out.println("Listening on localhost:" + server.getPort()
+                + (GameServer.usesVirtualThreads() ? " with virtual threads" : " with platform threads"));
+        Thread.currentThread().join();
+    }
+
+    private static void stream(String[] args) throws IOException {
+        boolean scripted = args[0].equals("script");
+        if(args.length < 4 || (scripted && args.length < 5)) {
+            System.err.println(scripted
+                    ? "Usage: script <rows> <columns> <mines> <seed> [file]"
+                    : "Usage: stream <rows> <columns> <mines> [viewportRows] [viewportColumns]");
+            System.exit(1);
+        }
+        int rows = Integer.parseInt(args[1]);
+        int columns = Integer.parseInt(args[2]);
+        int nbMines = Integer.parseInt(args[3]);
+
+        Game game;
+        InputStream input = System.in;
+        int viewportRows = 24;
+        int viewportColumns = 80;
+        if(scripted) {
+            game = new Game(rows, columns, nbMines, Long.parseLong(args[4]));
+            if(args.length > 5) {
+                input = Files.newInputStream(Paths.get(args[5]));
+            }
+        }
+        else {
+            game = new Game(rows, columns, nbMines);
+            viewportRows = args.length > 4 ? Integer.parseInt(args[4]) : viewportRows;
+            viewportColumns = args.length > 5 ? Integer.parseInt(args[5]) : viewportColumns;
+        }
+
+        try(InputReader in = new InputReader(input)) {
+            FrameWriter out = FrameWriter.stdout();
+            new StreamingCli(game, in, out, viewportRows, viewportColumns, scripted).run();
+        }
+    }
 }
@@ -0,0 +1,119 @@
+package fr.leward.minesweeper.cli;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Output buffer reused from one frame to the next.
+ * Everything printed during a turn is appended to it, then written to the channel at once by {@link #flush()},
+ * so a frame costs a single write whatever the number of lines it holds.
+ * Only ASCII is expected, other characters are written as '?'.
+ */
+public class FrameWriter implements Closeable {
+
+    private final WritableByteChannel channel;
+    private byte[] buffer;
+    private ByteBuffer view;
+    private int size = 0;
+
+    public FrameWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = new byte[8192];
+        this.view = ByteBuffer.wrap(buffer);
+    }
+
+    public FrameWriter(OutputStream out) {
+        this(Channels.newChannel(out));
+    }
+
+    /**
+     * @return a writer to the standard output, bypassing {@link System#out}
+     */
+    public static FrameWriter stdout() {
+        return new FrameWriter(new FileOutputStream(FileDescriptor.out).getChannel());
+    }
+
+    public FrameWriter append(char c) {
+        ensureCapacity(1);
+        buffer[size++] = c < 128 ? (byte) c : (byte) '?';
+        return this;
+    }
+
+    public FrameWriter append(CharSequence s) {
+        int length = s.length();
+        ensureCapacity(length);
+        for(int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            buffer[size++] = c < 128 ? (byte) c : (byte) '?';
+        }
+        return this;
+    }
+
+    public FrameWriter append(int value) {
+        if(value < 0) {
+            if(value == Integer.MIN_VALUE) {
+                return append(Integer.toString(value));
+            }
+            append('-');
+            value = -value;
+        }
+        int digits = 1;
+        for(int rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for(int i = size + digits - 1; i >= size; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        size += digits;
+        return this;
+    }
+
+    public FrameWriter newLine() {
+        return append('\n');
+    }
+
+    /**
+     * @return the number of bytes waiting to be flushed
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Write the pending bytes to the channel and empty the buffer
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        if(size == 0) {
+            return;
+        }
+        view.clear();
+        view.limit(size);
+        while(view.hasRemaining()) {
+            channel.write(view);
+        }
+        size = 0;
+    }
+
+    private void ensureCapacity(int extra) {
+        if(size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            view = ByteBuffer.wrap(buffer);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
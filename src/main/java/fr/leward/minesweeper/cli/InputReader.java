@@ -0,0 +1,127 @@
+package fr.leward.minesweeper.cli;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Line reader over a byte buffer, replacing {@link java.util.Scanner} for the command loop.
+ * Besides the usual blocking {@link #readLine()}, {@link #pollLine()} only consumes the bytes already available,
+ * so commands piped or typed ahead can be drained without ever waiting for the next one.
+ */
+public class InputReader implements Closeable {
+
+    private final InputStream in;
+    private byte[] buffer;
+    private int start = 0;
+    private int end = 0;
+    private boolean endOfStream = false;
+
+    public InputReader(InputStream in) {
+        this(in, 8192);
+    }
+
+    /**
+     * @param in stream to read
+     * @param bufferSize initial size of the buffer, it grows to hold longer lines
+     */
+    public InputReader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Read the next line, waiting for it if needed
+     * @return the line without its terminator, null at the end of the stream
+     * @throws IOException
+     */
+    public String readLine() throws IOException {
+        while(true) {
+            String line = nextBufferedLine();
+            if(line != null || endOfStream) {
+                return line;
+            }
+            fill(buffer.length);
+        }
+    }
+
+    /**
+     * Read the next line if it is complete without waiting for more input
+     * @return the line without its terminator, null if no complete line is available yet or at the end of the stream
+     * @throws IOException
+     */
+    public String pollLine() throws IOException {
+        while(true) {
+            String line = nextBufferedLine();
+            if(line != null || endOfStream) {
+                return line;
+            }
+            int available = in.available();
+            if(available <= 0) {
+                return null;
+            }
+            fill(available);
+        }
+    }
+
+    /**
+     * @return true once the end of the stream has been reached and every line has been read
+     */
+    public boolean isFinished() {
+        return endOfStream && start == end;
+    }
+
+    /**
+     * Cut the next line out of the buffer. At the end of the stream, a last line without terminator is returned as well.
+     */
+    private String nextBufferedLine() {
+        for(int i = start; i < end; i++) {
+            if(buffer[i] == '\n') {
+                String line = decode(start, i);
+                start = i + 1;
+                return line;
+            }
+        }
+        if(endOfStream && start < end) {
+            String line = decode(start, end);
+            start = end;
+            return line;
+        }
+        return null;
+    }
+
+    private String decode(int from, int to) {
+        if(to > from && buffer[to - 1] == '\r') {
+            to--;
+        }
+        return new String(buffer, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read at most {@code maxBytes} more bytes, after moving the pending bytes to the start of the buffer
+     */
+    private void fill(int maxBytes) throws IOException {
+        if(start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            start = 0;
+        }
+        if(end == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read = in.read(buffer, end, Math.min(maxBytes, buffer.length - end));
+        if(read < 0) {
+            endOfStream = true;
+        }
+        else {
+            end += read;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
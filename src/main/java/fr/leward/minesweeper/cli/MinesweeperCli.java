@@ -1,6 +1,6 @@
 package fr.leward.minesweeper.cli;
 
-import fr.leward.minesweeper.cli.renderer.BoardRenderer;
+import fr.leward.minesweeper.cli.renderer.IncrementalBoardRenderer;
 import fr.leward.minesweeper.exception.CellAlreadyRevealedException;
 import fr.leward.minesweeper.exception.OutOfBoardException;
 import fr.leward.minesweeper.game.Game;
@@ -9,6 +9,9 @@ import java.util.Scanner;
 
 public class MinesweeperCli {
 
+    private static final String CLEAR_SCREEN = "\u001b[2J\u001b[H";
+    private static final String CLEAR_TO_END_OF_SCREEN = "\u001b[J";
+
     public void run() {
         // Init game
         Scanner sc = new Scanner(System.in);
@@ -44,11 +47,18 @@ public class MinesweeperCli {
         } while(nbMines == -1);
 
         Game game = new Game(rows, columns, nbMines);
-        BoardRenderer boardRenderer = new BoardRenderer();
+        IncrementalBoardRenderer boardRenderer = new IncrementalBoardRenderer(game);
+
+        // On a terminal the board is printed once, then only the revealed cells are updated
+        boolean ansi = System.console() != null;
+        if(ansi) {
+            System.out.print(CLEAR_SCREEN);
+            System.out.print(boardRenderer.renderBoardAsString());
+        }
 
         // Main game loop
         do {
-            System.out.println(boardRenderer.renderBoardAsString(game.getBoard()));
+            printBoard(boardRenderer, ansi);
 
             System.out.println("Choose cell to reveal. (indexes start at 0)");
             System.out.print("Which row?");
@@ -69,7 +79,7 @@ public class MinesweeperCli {
         while(!game.isGameFinished() && !game.isGameOver());
 
         // Main loop exited. Display the board one more time to show the result
-        System.out.println(boardRenderer.renderBoardAsString(game.getBoard()));
+        printBoard(boardRenderer, ansi);
 
         // Either the player won, or lost :)
         if(game.isGameOver()) {
@@ -79,4 +89,20 @@ public class MinesweeperCli {
             System.out.println("You won!!!");
         }
     }
+
+    /**
+     * Print the board, or only the cells that changed since the last print when the terminal supports it
+     */
+    private void printBoard(IncrementalBoardRenderer boardRenderer, boolean ansi) {
+        if(ansi) {
+            String diff = boardRenderer.renderAnsiDiff();
+            if(!diff.isEmpty()) {
+                System.out.print(diff);
+                System.out.print(CLEAR_TO_END_OF_SCREEN);
+            }
+        }
+        else {
+            System.out.println(boardRenderer.renderBoardAsString());
+        }
+    }
 }
@@ -0,0 +1,303 @@
+package fr.leward.minesweeper.cli;
+
+import fr.leward.minesweeper.cli.renderer.ViewportRenderer;
+import fr.leward.minesweeper.game.BatchResult;
+import fr.leward.minesweeper.game.Game;
+import fr.leward.minesweeper.game.GameStatus;
+import fr.leward.minesweeper.game.MoveBatch;
+import fr.leward.minesweeper.game.MoveStatus;
+import fr.leward.minesweeper.game.MoveType;
+
+import java.io.IOException;
+
+/**
+ * Command loop for big boards and slow terminals.
+ * The commands already available are drained without blocking and played as one batch, then a single frame
+ * holding only the visible window of the board is written at once, so a turn costs the same whatever the size of the board.
+ *
+ * One command per line, rows and columns start at 0:
+ * <ul>
+ *     <li>{@code r <row> <column>} or {@code <row> <column>} to reveal a cell</li>
+ *     <li>{@code f <row> <column>} to flag a cell, {@code u <row> <column>} to remove a flag</li>
+ *     <li>{@code c <row> <column>} to chord on a number</li>
+ *     <li>{@code w}, {@code a}, {@code s}, {@code d} followed by an optional number of cells to scroll up, left, down or right</li>
+ *     <li>{@code g <row> <column>} to center the window on a cell</li>
+ *     <li>{@code q} to quit</li>
+ * </ul>
+ * Blank lines and lines starting with '#' are ignored, so that scripts can be commented.
+ *
+ * In scripted mode nothing is drawn while playing: each move is answered by a line {@code <command> <row> <column> <status>},
+ * and the window and the result are written once at the end.
+ */
+public class StreamingCli {
+
+    private static final String CLEAR_SCREEN = "\u001b[2J\u001b[H";
+    private static final String CURSOR_HOME = "\u001b[H";
+    private static final String CLEAR_TO_END_OF_SCREEN = "\u001b[J";
+    private static final String HELP = "r|f|u|c <row> <column> to reveal, flag, unflag or chord, w|a|s|d [cells] to scroll, g <row> <column> to go to a cell, q to quit";
+    private static final char[] MOVE_COMMANDS = {'r', 'f', 'u', 'c'};
+
+    private final Game game;
+    private final InputReader in;
+    private final FrameWriter out;
+    private final ViewportRenderer viewport;
+    private final boolean scripted;
+
+    // Reused from one turn to the next
+    private final MoveBatch batch = new MoveBatch();
+    private final BatchResult result = new BatchResult();
+    private final StringBuilder messages = new StringBuilder();
+    private final int[] arguments = new int[2];
+
+    private boolean quit = false;
+
+    /**
+     * @param game game to play
+     * @param in commands
+     * @param out frames, or answers in scripted mode
+     * @param viewportRows maximum number of rows displayed
+     * @param viewportColumns maximum number of columns displayed
+     * @param scripted true to answer each move on its own line instead of drawing frames
+     */
+    public StreamingCli(Game game, InputReader in, FrameWriter out, int viewportRows, int viewportColumns, boolean scripted) {
+        this.game = game;
+        this.in = in;
+        this.out = out;
+        this.viewport = new ViewportRenderer(game.getBoard(), viewportRows, viewportColumns);
+        this.scripted = scripted;
+    }
+
+    /**
+     * Play until the game ends, the player quits or the input is exhausted
+     * @return the status of the game when the loop stopped
+     * @throws IOException
+     */
+    public GameStatus run() throws IOException {
+        if(!scripted) {
+            out.append(CLEAR_SCREEN);
+            renderFrame();
+        }
+
+        String line;
+        while(!quit && !isGameEnded() && (line = in.readLine()) != null) {
+            parse(line);
+            // Commands typed or piped ahead are played with this one, and share its frame
+            while(!quit && (line = in.pollLine()) != null) {
+                parse(line);
+            }
+            playBatch();
+            if(scripted) {
+                out.append(messages);
+                messages.setLength(0);
+                out.flush();
+            }
+            else {
+                renderFrame();
+            }
+        }
+
+        if(scripted) {
+            viewport.render(out);
+            appendResult();
+            out.flush();
+        }
+        return game.getStatus();
+    }
+
+    private boolean isGameEnded() {
+        return game.isGameOver() || game.isGameFinished();
+    }
+
+    private void parse(String line) {
+        int position = skipSpaces(line, 0);
+        if(position == line.length() || line.charAt(position) == '#') {
+            return;
+        }
+        char command = line.charAt(position);
+        if(Character.isLetter(command)) {
+            position++;
+        }
+        else {
+            command = 'r';
+        }
+        int nbArguments = parseArguments(line, position);
+
+        switch(command) {
+            case 'r':
+                addMove(MoveType.REVEAL, nbArguments, line);
+                break;
+            case 'f':
+                addMove(MoveType.FLAG, nbArguments, line);
+                break;
+            case 'u':
+                addMove(MoveType.UNFLAG, nbArguments, line);
+                break;
+            case 'c':
+                addMove(MoveType.CHORD, nbArguments, line);
+                break;
+            case 'w':
+                viewport.scroll(-scrollAmount(nbArguments, viewport.getRows()), 0);
+                break;
+            case 's':
+                viewport.scroll(scrollAmount(nbArguments, viewport.getRows()), 0);
+                break;
+            case 'a':
+                viewport.scroll(0, -scrollAmount(nbArguments, viewport.getColumns()));
+                break;
+            case 'd':
+                viewport.scroll(0, scrollAmount(nbArguments, viewport.getColumns()));
+                break;
+            case 'g':
+                if(nbArguments == 2) {
+                    viewport.centerOn(arguments[0], arguments[1]);
+                }
+                else {
+                    invalidCommand(line);
+                }
+                break;
+            case 'q':
+                quit = true;
+                break;
+            default:
+                invalidCommand(line);
+        }
+    }
+
+    private void addMove(MoveType type, int nbArguments, String line) {
+        if(nbArguments != 2) {
+            invalidCommand(line);
+            return;
+        }
+        batch.add(type, arguments[0], arguments[1]);
+    }
+
+    /**
+     * Scroll by the given number of cells, or by half the window by default
+     */
+    private int scrollAmount(int nbArguments, int windowSize) {
+        return nbArguments > 0 ? arguments[0] : Math.max(1, windowSize / 2);
+    }
+
+    private void invalidCommand(String line) {
+        // Answers keep the order of the commands
+        playBatch();
+        messages.append("Invalid command: ").append(line.trim()).append('\n');
+    }
+
+    private void playBatch() {
+        if(batch.size() == 0) {
+            return;
+        }
+        game.playMoves(batch, result);
+        int lastApplied = -1;
+        for(int move = 0; move < batch.size(); move++) {
+            MoveStatus status = result.getStatus(move);
+            if(status == MoveStatus.APPLIED) {
+                lastApplied = move;
+            }
+            if(scripted) {
+                messages.append(MOVE_COMMANDS[batch.getType(move).ordinal()]).append(' ')
+                        .append(batch.getRow(move)).append(' ')
+                        .append(batch.getColumn(move)).append(' ')
+                        .append(status).append('\n');
+            }
+            else if(status != MoveStatus.APPLIED) {
+                messages.append("Cell ").append(batch.getRow(move)).append(' ').append(batch.getColumn(move))
+                        .append(": ").append(describe(status)).append('\n');
+            }
+        }
+        // Follow the player on boards larger than the window
+        if(lastApplied >= 0) {
+            viewport.ensureVisible(batch.getRow(lastApplied), batch.getColumn(lastApplied));
+        }
+        batch.clear();
+    }
+
+    private static String describe(MoveStatus status) {
+        switch(status) {
+            case OUT_OF_BOARD:
+                return "cell is outside the board";
+            case ALREADY_REVEALED:
+                return "cell has already been revealed";
+            case FLAGGED:
+                return "cell is flagged";
+            case GAME_OVER:
+                return "the game is over";
+            default:
+                return "nothing to do";
+        }
+    }
+
+    /**
+     * Redraw the terminal over the previous frame and write it at once
+     */
+    private void renderFrame() throws IOException {
+        out.append(CURSOR_HOME);
+        viewport.render(out);
+        out.append("Rows ").append(viewport.getTop()).append('-').append(viewport.getTop() + viewport.getRows() - 1)
+                .append(" of ").append(game.getRows())
+                .append(", columns ").append(viewport.getLeft()).append('-').append(viewport.getLeft() + viewport.getColumns() - 1)
+                .append(" of ").append(game.getColumns())
+                .append(". Flags ").append(game.getBoard().getFlags()).append('/').append(game.getNbMines())
+                .append(", moves ").append(game.getHitCounter()).newLine();
+        out.append(CLEAR_TO_END_OF_SCREEN);
+        out.append(messages);
+        messages.setLength(0);
+        if(isGameEnded()) {
+            appendResult();
+        }
+        else if(!quit) {
+            out.append(HELP).newLine().append("> ");
+        }
+        out.flush();
+    }
+
+    private void appendResult() {
+        if(game.isGameOver()) {
+            out.append("The game is over").newLine();
+        }
+        else if(game.isGameFinished()) {
+            out.append("You won!!!").newLine();
+        }
+    }
+
+    private static int skipSpaces(String line, int position) {
+        while(position < line.length() && Character.isWhitespace(line.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Parse up to two integers separated by spaces
+     * @return the number of integers parsed, -1 if the line holds anything else
+     */
+    private int parseArguments(String line, int position) {
+        int nbArguments = 0;
+        position = skipSpaces(line, position);
+        while(position < line.length()) {
+            if(nbArguments == arguments.length) {
+                return -1;
+            }
+            boolean negative = line.charAt(position) == '-';
+            if(negative) {
+                position++;
+            }
+            int start = position;
+            long value = 0;
+            while(position < line.length() && Character.isDigit(line.charAt(position))) {
+                value = value * 10 + (line.charAt(position) - '0');
+                if(value > Integer.MAX_VALUE) {
+                    return -1;
+                }
+                position++;
+            }
+            if(position == start || (position < line.length() && !Character.isWhitespace(line.charAt(position)))) {
+                return -1;
+            }
+            arguments[nbArguments++] = (int) (negative ? -value : value);
+            position = skipSpaces(line, position);
+        }
+        return nbArguments;
+    }
+}
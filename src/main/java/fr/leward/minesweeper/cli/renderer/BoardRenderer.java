@@ -1,23 +1,54 @@
 package fr.leward.minesweeper.cli.renderer;
 
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
 import fr.leward.minesweeper.components.Board;
-import fr.leward.minesweeper.components.Cell;
+import fr.leward.minesweeper.components.chunked.ChunkedBoard;
+import fr.leward.minesweeper.metrics.Metrics;
 
 public class BoardRenderer {
 
+    private final Metrics metrics = Metrics.global();
+
     public String renderBoardAsString(Board board) {
-        StringBuilder sb = new StringBuilder();
+        long startTime = metrics.startTimer();
+        StringBuilder sb = new StringBuilder(board.getWidth() * (board.getHeight() + 1));
+
+        for(int row = 0; row < board.getWidth(); row++) {
+            for(int column = 0; column < board.getHeight(); column++) {
+                if(!board.isRevealed(row, column)) {
+                    sb.append("?");
+                }
+                else if(board.isMine(row, column)) {
+                    sb.append("X");
+                }
+                else {
+                    sb.append(board.countAdjacentMines(row, column));
+                }
+            }
+            sb.append("\n");
+        }
+
+        String rendering = sb.toString();
+        metrics.recordRender(startTime);
+        return rendering;
+    }
+
+    /**
+     * Render a window of an endless board. Hidden cells of chunks that have never been touched are not created.
+     * @param board board to render
+     * @param top first row of the window
+     * @param left first column of the window
+     * @param rows number of rows of the window
+     * @param columns number of columns of the window
+     */
+    public String renderViewportAsString(ChunkedBoard board, int top, int left, int rows, int columns) {
+        StringBuilder sb = new StringBuilder(rows * (columns + 1));
 
-        for(int row : board.getCells().rowKeySet()) {
-            ImmutableMap<Integer, Cell> columns = board.getCells().row(row);
-            for(int column : columns.keySet()) {
-                Cell cell = board.getCell(row, column).get();
-                if(!cell.isRevealed()) {
+        for(int row = top; row < top + rows; row++) {
+            for(int column = left; column < left + columns; column++) {
+                if(!board.isRevealed(row, column)) {
                     sb.append("?");
                 }
-                else if(cell.isMine()) {
+                else if(board.isMine(row, column)) {
                     sb.append("X");
                 }
                 else {
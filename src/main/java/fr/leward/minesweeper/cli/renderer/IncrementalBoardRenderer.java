@@ -0,0 +1,121 @@
+package fr.leward.minesweeper.cli.renderer;
+
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.game.Game;
+import fr.leward.minesweeper.game.RevealListener;
+import fr.leward.minesweeper.metrics.Metrics;
+
+import java.util.Arrays;
+
+/**
+ * Renderer keeping the text of the board in a cached buffer.
+ * It subscribes to the reveals of a game and only re-encodes the cells that changed, so the cost of a turn
+ * depends on the number of revealed cells and not on the size of the board.
+ * The changes since the last call to {@link #renderAnsiDiff()} can be emitted as ANSI cursor-addressed updates.
+ */
+public class IncrementalBoardRenderer implements RevealListener {
+
+    private static final char ESCAPE = '\u001b';
+
+    private final Board board;
+    private final int lineLength;
+    private final char[] buffer;
+    private final int firstTerminalLine;
+    private final Metrics metrics = Metrics.global();
+
+    // Cells changed since the last diff
+    private int[] dirtyCells = new int[64];
+    private int nbDirtyCells = 0;
+
+    /**
+     * @param game game to render, the renderer subscribes to its reveals
+     */
+    public IncrementalBoardRenderer(Game game) {
+        this(game, 1);
+    }
+
+    /**
+     * @param game game to render, the renderer subscribes to its reveals
+     * @param firstTerminalLine terminal line (starting at 1) on which the first row of the board is displayed
+     */
+    public IncrementalBoardRenderer(Game game, int firstTerminalLine) {
+        this.board = game.getBoard();
+        this.lineLength = board.getHeight() + 1;
+        this.buffer = new char[board.getWidth() * lineLength];
+        this.firstTerminalLine = firstTerminalLine;
+        for(int row = 0; row < board.getWidth(); row++) {
+            for(int column = 0; column < board.getHeight(); column++) {
+                buffer[row * lineLength + column] = encode(board.indexOf(row, column));
+            }
+            buffer[row * lineLength + board.getHeight()] = '\n';
+        }
+        game.addRevealListener(this);
+    }
+
+    @Override
+    public void cellRevealed(int index) {
+        int row = index / board.getHeight();
+        int column = index % board.getHeight();
+        buffer[row * lineLength + column] = encode(index);
+        if(nbDirtyCells == dirtyCells.length) {
+            dirtyCells = Arrays.copyOf(dirtyCells, nbDirtyCells * 2);
+        }
+        dirtyCells[nbDirtyCells++] = index;
+    }
+
+    private char encode(int index) {
+        if(!board.isRevealed(index)) {
+            return '?';
+        }
+        else if(board.isMine(index)) {
+            return 'X';
+        }
+        else {
+            return (char) ('0' + board.countAdjacentMines(index));
+        }
+    }
+
+    /**
+     * Render the whole board. A full render supersedes the pending changes, which are discarded.
+     * @return the whole board, in the same format as {@link BoardRenderer#renderBoardAsString(Board)}
+     */
+    public String renderBoardAsString() {
+        nbDirtyCells = 0;
+        return new String(buffer);
+    }
+
+    /**
+     * Build the ANSI escape sequences that update a terminal displaying the board with the cells changed since the last call.
+     * Changed cells that follow each other on a row are written after a single cursor move.
+     * The cursor is left at the beginning of the line following the board.
+     * @return the escape sequences to print, empty if nothing changed
+     */
+    public String renderAnsiDiff() {
+        if(nbDirtyCells == 0) {
+            return "";
+        }
+        long startTime = metrics.startTimer();
+        Arrays.sort(dirtyCells, 0, nbDirtyCells);
+        StringBuilder sb = new StringBuilder(nbDirtyCells * 2 + 16);
+        int previous = -2;
+        for(int i = 0; i < nbDirtyCells; i++) {
+            int index = dirtyCells[i];
+            int row = index / board.getHeight();
+            int column = index % board.getHeight();
+            if(index != previous + 1 || column == 0) {
+                moveCursor(sb, firstTerminalLine + row, column + 1);
+            }
+            sb.append(buffer[row * lineLength + column]);
+            previous = index;
+        }
+        moveCursor(sb, firstTerminalLine + board.getWidth(), 1);
+        nbDirtyCells = 0;
+        String diff = sb.toString();
+        metrics.recordRender(startTime);
+        return diff;
+    }
+
+    private static void moveCursor(StringBuilder sb, int line, int column) {
+        sb.append(ESCAPE).append('[').append(line).append(';').append(column).append('H');
+    }
+}
@@ -0,0 +1,122 @@
+package fr.leward.minesweeper.cli.renderer;
+
+import fr.leward.minesweeper.cli.FrameWriter;
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.metrics.Metrics;
+
+/**
+ * Renderer of the visible window of a board.
+ * Only the cells of the window are encoded, so the cost of a frame depends on the size of the terminal
+ * and not on the size of the board. The window can be scrolled and is always kept inside the board.
+ */
+public class ViewportRenderer {
+
+    private final Board board;
+    private final int rows;
+    private final int columns;
+    private final Metrics metrics = Metrics.global();
+    private int top = 0;
+    private int left = 0;
+
+    /**
+     * @param board board to render
+     * @param rows maximum number of rows of the window
+     * @param columns maximum number of columns of the window
+     */
+    public ViewportRenderer(Board board, int rows, int columns) {
+        if(rows < 1 || columns < 1) {
+            throw new IllegalArgumentException("The viewport must hold at least one cell");
+        }
+        this.board = board;
+        this.rows = Math.min(rows, board.getWidth());
+        this.columns = Math.min(columns, board.getHeight());
+    }
+
+    /**
+     * Move the window by a number of rows and columns, stopping at the edges of the board
+     */
+    public void scroll(int deltaRows, int deltaColumns) {
+        moveTo(top + deltaRows, left + deltaColumns);
+    }
+
+    /**
+     * Move the top left corner of the window, stopping at the edges of the board
+     */
+    public void moveTo(int top, int left) {
+        this.top = Math.max(0, Math.min(top, board.getWidth() - rows));
+        this.left = Math.max(0, Math.min(left, board.getHeight() - columns));
+    }
+
+    /**
+     * Center the window on a cell
+     */
+    public void centerOn(int row, int column) {
+        moveTo(row - rows / 2, column - columns / 2);
+    }
+
+    /**
+     * Scroll the window the least needed for a cell to be visible
+     */
+    public void ensureVisible(int row, int column) {
+        int newTop = top;
+        int newLeft = left;
+        if(row < top) {
+            newTop = row;
+        }
+        else if(row >= top + rows) {
+            newTop = row - rows + 1;
+        }
+        if(column < left) {
+            newLeft = column;
+        }
+        else if(column >= left + columns) {
+            newLeft = column - columns + 1;
+        }
+        moveTo(newTop, newLeft);
+    }
+
+    /**
+     * Append the window to a frame: one line per row, '?' for hidden cells, 'F' for flags, 'X' for mines
+     * and the number of adjacent mines otherwise
+     */
+    public void render(FrameWriter out) {
+        long startTime = metrics.startTimer();
+        int height = board.getHeight();
+        for(int row = top; row < top + rows; row++) {
+            int index = row * height + left;
+            for(int column = 0; column < columns; column++, index++) {
+                out.append(encode(index));
+            }
+            out.newLine();
+        }
+        metrics.recordRender(startTime);
+    }
+
+    private char encode(int index) {
+        if(!board.isRevealed(index)) {
+            return board.isFlagged(index) ? 'F' : '?';
+        }
+        else if(board.isMine(index)) {
+            return 'X';
+        }
+        else {
+            return (char) ('0' + board.countAdjacentMines(index));
+        }
+    }
+
+    public int getTop() {
+        return top;
+    }
+
+    public int getLeft() {
+        return left;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+}
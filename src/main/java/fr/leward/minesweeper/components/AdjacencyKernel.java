@@ -0,0 +1,187 @@
+package fr.leward.minesweeper.components;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Computation of the adjacent mine count of every cell of a board, 64 cells at a time.
+ *
+ * Each row of mines is extracted into a bit plane aligned on words. The 8 neighbours of the 64 cells of a word
+ * are the words of the rows above, at and below, shifted by one column to the left and to the right.
+ * These 8 one-bit planes are summed with a carry-save adder network into 4 bit planes holding the binary counts,
+ * which are then spread into the count grid 8 cells at a time.
+ * A whole board is computed with a single pass over the mines and a single pass over the grid,
+ * whatever its density of mines.
+ */
+public final class AdjacencyKernel {
+
+    // SPREAD[b] has the bit i of b in the lowest bit of its byte i
+    private static final long[] SPREAD = new long[256];
+
+    static {
+        for(int b = 0; b < 256; b++) {
+            long spread = 0;
+            for(int bit = 0; bit < 8; bit++) {
+                if((b & (1 << bit)) != 0) {
+                    spread |= 1L << (bit * 8);
+                }
+            }
+            SPREAD[b] = spread;
+        }
+    }
+
+    private AdjacencyKernel() {
+    }
+
+    /**
+     * Fill the adjacent mine counts of a board, using word-parallel additions
+     * @param mines words of the mines, as returned by {@link java.util.BitSet#toLongArray()}, with the cell
+     *              {@code row * height + column} at bit {@code index % 64} of word {@code index / 64}
+     * @param width Width of the board (number of rows)
+     * @param height Height of the board (number of columns)
+     * @param counts grid receiving the count of every cell, of {@code width * height} elements. It is fully overwritten.
+     */
+    public static void countAdjacentMines(long[] mines, int width, int height, byte[] counts) {
+        int wordsPerRow = (height + 63) >>> 6;
+        long lastWordMask = (height & 63) == 0 ? -1L : (1L << height) - 1;
+        // Rolling planes of the rows above, at and below the current row, with an empty word at both ends
+        long[] above = new long[wordsPerRow + 2];
+        long[] current = new long[wordsPerRow + 2];
+        long[] below = new long[wordsPerRow + 2];
+        extractRow(mines, 0, height, wordsPerRow, current);
+        ByteBuffer grid = ByteBuffer.wrap(counts).order(ByteOrder.LITTLE_ENDIAN);
+
+        for(int row = 0; row < width; row++) {
+            if(row + 1 < width) {
+                extractRow(mines, row + 1, height, wordsPerRow, below);
+            }
+            else {
+                Arrays.fill(below, 0L);
+            }
+
+            int rowStart = row * height;
+            for(int word = 1; word <= wordsPerRow; word++) {
+                long up = above[word];
+                long middle = current[word];
+                long down = below[word];
+                // Neighbours on the left are the previous column, shifted towards the higher bits, and conversely
+                long x1 = (up << 1) | (above[word - 1] >>> 63);
+                long x2 = up;
+                long x3 = (up >>> 1) | (above[word + 1] << 63);
+                long x4 = (middle << 1) | (current[word - 1] >>> 63);
+                long x5 = (middle >>> 1) | (current[word + 1] << 63);
+                long x6 = (down << 1) | (below[word - 1] >>> 63);
+                long x7 = down;
+                long x8 = (down >>> 1) | (below[word + 1] << 63);
+
+                // Carry-save additions of the 8 planes
+                long a = x1 ^ x2;
+                long sumA = a ^ x3;
+                long carryA = (x1 & x2) | (x3 & a);
+                long b = x4 ^ x5;
+                long sumB = b ^ x6;
+                long carryB = (x4 & x5) | (x6 & b);
+                long sumC = x7 ^ x8;
+                long carryC = x7 & x8;
+                long d = sumA ^ sumB;
+                long ones = d ^ sumC;
+                long carryD = (sumA & sumB) | (sumC & d);
+                long e = carryA ^ carryB;
+                long sumE = e ^ carryC;
+                long carryE = (carryA & carryB) | (carryC & e);
+                long twos = sumE ^ carryD;
+                long carryF = sumE & carryD;
+                long fours = carryE ^ carryF;
+                long eights = carryE & carryF;
+
+                int firstColumn = (word - 1) << 6;
+                if(word == wordsPerRow) {
+                    ones &= lastWordMask;
+                    twos &= lastWordMask;
+                    fours &= lastWordMask;
+                    eights &= lastWordMask;
+                }
+                writeCounts(grid, counts, rowStart + firstColumn, Math.min(64, height - firstColumn), ones, twos, fours, eights);
+            }
+
+            long[] recycled = above;
+            above = current;
+            current = below;
+            below = recycled;
+        }
+    }
+
+    /**
+     * Write the counts of up to 64 consecutive cells, given as bit planes, 8 cells at a time
+     */
+    private static void writeCounts(ByteBuffer grid, byte[] counts, int start, int length,
+                                    long ones, long twos, long fours, long eights) {
+        int lane = 0;
+        // Whole lanes of 8 cells, which may spill zeros over the next row as long as they stay in the grid
+        for(; lane < length && start + lane + 8 <= counts.length; lane += 8) {
+            int shift = lane;
+            long value = SPREAD[(int) (ones >>> shift) & 0xFF]
+                    | SPREAD[(int) (twos >>> shift) & 0xFF] << 1
+                    | SPREAD[(int) (fours >>> shift) & 0xFF] << 2
+                    | SPREAD[(int) (eights >>> shift) & 0xFF] << 3;
+            grid.putLong(start + lane, value);
+        }
+        for(; lane < length; lane++) {
+            counts[start + lane] = (byte) (((ones >>> lane) & 1)
+                    | ((twos >>> lane) & 1) << 1
+                    | ((fours >>> lane) & 1) << 2
+                    | ((eights >>> lane) & 1) << 3);
+        }
+    }
+
+    /**
+     * Copy the mines of a row into words aligned on its first column, leaving the first and last words empty
+     */
+    private static void extractRow(long[] mines, int row, int height, int wordsPerRow, long[] plane) {
+        long firstBit = (long) row * height;
+        for(int word = 0; word < wordsPerRow; word++) {
+            long bit = firstBit + ((long) word << 6);
+            int wordIndex = (int) (bit >>> 6);
+            int offset = (int) (bit & 63);
+            long value = wordIndex < mines.length ? mines[wordIndex] >>> offset : 0L;
+            if(offset != 0 && wordIndex + 1 < mines.length) {
+                value |= mines[wordIndex + 1] << (64 - offset);
+            }
+            int remaining = height - (word << 6);
+            if(remaining < 64) {
+                value &= (1L << remaining) - 1;
+            }
+            plane[word + 1] = value;
+        }
+    }
+
+    /**
+     * Fill the adjacent mine counts of a board one cell at a time, reading its 8 neighbours.
+     * This is the reference the word-parallel kernel is checked against.
+     * @param mines words of the mines, as returned by {@link java.util.BitSet#toLongArray()}
+     * @param width Width of the board (number of rows)
+     * @param height Height of the board (number of columns)
+     * @param counts grid receiving the count of every cell, of {@code width * height} elements. It is fully overwritten.
+     */
+    public static void countAdjacentMinesScalar(long[] mines, int width, int height, byte[] counts) {
+        for(int row = 0; row < width; row++) {
+            for(int column = 0; column < height; column++) {
+                int count = 0;
+                for(int r = Math.max(0, row - 1); r <= Math.min(width - 1, row + 1); r++) {
+                    for(int c = Math.max(0, column - 1); c <= Math.min(height - 1, column + 1); c++) {
+                        if((r != row || c != column) && isSet(mines, r * height + c)) {
+                            count++;
+                        }
+                    }
+                }
+                counts[row * height + column] = (byte) count;
+            }
+        }
+    }
+
+    private static boolean isSet(long[] words, int index) {
+        int wordIndex = index >>> 6;
+        return wordIndex < words.length && (words[wordIndex] & (1L << index)) != 0;
+    }
+}
@@ -0,0 +1,104 @@
+package fr.leward.minesweeper.components;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe bit store. Bits are set with a compare-and-set on their word,
+ * so when several threads set the same bit exactly one of them sees it change.
+ */
+public class AtomicBitStore implements BitStore {
+
+    private final int size;
+    private final AtomicLongArray words;
+
+    public AtomicBitStore(int size) {
+        this.size = size;
+        this.words = new AtomicLongArray((size + 63) >>> 6);
+    }
+
+    @Override
+    public boolean get(int index) {
+        return (words.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean set(int index) {
+        int wordIndex = index >>> 6;
+        long mask = 1L << index;
+        while(true) {
+            long word = words.get(wordIndex);
+            if((word & mask) != 0) {
+                return false;
+            }
+            if(words.compareAndSet(wordIndex, word, word | mask)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public boolean clear(int index) {
+        int wordIndex = index >>> 6;
+        long bit = 1L << index;
+        while(true) {
+            long word = words.get(wordIndex);
+            if((word & bit) == 0) {
+                return false;
+            }
+            if(words.compareAndSet(wordIndex, word, word & ~bit)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void clearAll() {
+        for(int i = 0; i < words.length(); i++) {
+            words.set(i, 0L);
+        }
+    }
+
+    @Override
+    public int cardinality() {
+        int cardinality = 0;
+        for(int i = 0; i < words.length(); i++) {
+            cardinality += Long.bitCount(words.get(i));
+        }
+        return cardinality;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int wordCount() {
+        return words.length();
+    }
+
+    @Override
+    public long word(int wordIndex) {
+        return words.get(wordIndex);
+    }
+
+    @Override
+    public void setWord(int wordIndex, long word) {
+        words.set(wordIndex, word);
+    }
+
+    @Override
+    public long orWord(int wordIndex, long mask) {
+        while(true) {
+            long word = words.get(wordIndex);
+            if((word | mask) == word || words.compareAndSet(wordIndex, word, word | mask)) {
+                return word;
+            }
+        }
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+}
@@ -0,0 +1,66 @@
+package fr.leward.minesweeper.components;
+
+/**
+ * A fixed size set of bits, used to store the per-cell state of a board
+ */
+public interface BitStore {
+
+    boolean get(int index);
+
+    /**
+     * Set a bit
+     * @param index index of the bit
+     * @return true if the bit was clear before the call
+     */
+    boolean set(int index);
+
+    /**
+     * Clear a bit
+     * @param index index of the bit
+     * @return true if the bit was set before the call
+     */
+    boolean clear(int index);
+
+    void clearAll();
+
+    /**
+     * @return the number of bits set
+     */
+    int cardinality();
+
+    /**
+     * @return the number of bits of the store
+     */
+    int size();
+
+    /**
+     * @return the number of 64 bits words of the store
+     */
+    int wordCount();
+
+    /**
+     * @param wordIndex index of the word
+     * @return the bits {@code 64 * wordIndex} to {@code 64 * wordIndex + 63}, lowest index in the lowest bit
+     */
+    long word(int wordIndex);
+
+    /**
+     * Replace a whole word of bits
+     * @param wordIndex index of the word
+     * @param word the bits {@code 64 * wordIndex} to {@code 64 * wordIndex + 63}, lowest index in the lowest bit
+     */
+    void setWord(int wordIndex, long word);
+
+    /**
+     * Set the bits of a word selected by a mask
+     * @param wordIndex index of the word
+     * @param mask bits to set, lowest index in the lowest bit
+     * @return the word before the call, so that {@code mask & ~previous} are the bits that changed
+     */
+    long orWord(int wordIndex, long mask);
+
+    /**
+     * @return true if the store can be read and updated by several threads at once
+     */
+    boolean isThreadSafe();
+}
@@ -3,78 +3,403 @@ package fr.leward.minesweeper.components;
 import com.google.common.collect.*;
 import fr.leward.minesweeper.exception.CellNotFoundException;
 import fr.leward.minesweeper.exception.TooManyMinesException;
+import fr.leward.minesweeper.metrics.Metrics;
 
 import java.util.*;
+import java.util.function.IntConsumer;
 
+/**
+ * A minesweeper board.
+ * The state of the board is packed in primitive structures indexed by {@code row * height + column}:
+ * mines, revealed and flagged cells are kept in bit sets and the number of adjacent mines of every cell
+ * is precomputed in a byte array. {@link Cell} instances are only views over that state.
+ *
+ * The mine layout is fixed once the game started. When the revealed cells are kept in a thread-safe
+ * {@link BitStore}, such as {@link AtomicBitStore}, cells can be revealed by several threads at once.
+ */
 public class Board {
 
+    /**
+     * From this ratio of mines per cell, adjacent mine counts are computed word by word rather than mine by mine
+     */
+    static final double WORD_PARALLEL_DENSITY = 0.05;
+
     private final int width;
     private final int height;
-    private final int nbMines;
+    private int nbMines;
+
+    private final BitSet mines;
+    private final BitStore revealed;
+    private final BitStore flagged;
+    private final byte[] adjacentMines;
+    private final Neighbourhood neighbourhood;
+    private final Metrics metrics = Metrics.global();
+    // Scratch array for the updates of the adjacent mine counts, which are never concurrent
+    private final int[] neighbours = new int[8];
 
-    private final ImmutableTable<Integer, Integer, Cell> cells;
+    // Live counters, kept up to date by reveal(), flag() and unflag()
+    private final RevealCounters counters;
+
+    // Index of the empty regions, null until enabled or when the layout changed since it was built
+    private boolean zeroRegionIndexEnabled = false;
+    private ZeroRegionIndex zeroRegions;
+
+    // Lazily built table of cell views, only used by legacy callers of getCells()
+    private ImmutableTable<Integer, Integer, Cell> cells;
 
     /**
-     * Create a new board
-     * @param width Width of the board
-     * @param height Height of the board
+     * Create a new board with randomly placed mines
+     * @param width Width of the board (number of rows)
+     * @param height Height of the board (number of columns)
      * @param nbMines Number of mines to be placed on the board
      */
     public Board(int width, int height, int nbMines) throws TooManyMinesException {
+        this(width, height, nbMines, new RandomMineLayoutGenerator());
+    }
+
+    /**
+     * Create a new board
+     * @param width Width of the board (number of rows)
+     * @param height Height of the board (number of columns)
+     * @param nbMines Number of mines to be placed on the board
+     * @param generator generator placing the mines on the board
+     */
+    public Board(int width, int height, int nbMines, MineLayoutGenerator generator) throws TooManyMinesException {
+        this(width, height, nbMines, generator, new PlainBitStore(checkedSize(width, height)));
+    }
+
+    /**
+     * Create a new board
+     * @param width Width of the board (number of rows)
+     * @param height Height of the board (number of columns)
+     * @param nbMines Number of mines to be placed on the board
+     * @param generator generator placing the mines on the board
+     * @param revealed empty store of the revealed cells, of the size of the board
+     * @throws IllegalArgumentException if the board has no cell or too many of them, or the store is not of the size of the board
+     */
+    public Board(int width, int height, int nbMines, MineLayoutGenerator generator, BitStore revealed) throws TooManyMinesException {
+        int size = checkedSize(width, height);
+        // There must be less mines than the total number of cells
+        if(nbMines >= size) {
+            throw new TooManyMinesException();
+        }
+        checkStore(revealed, size, "revealed");
         this.width = width;
         this.height = height;
         this.nbMines = nbMines;
-        cells = generateBoard(width, height, nbMines);
+        this.mines = new BitSet(size);
+        this.revealed = revealed;
+        this.flagged = emptyStoreLike(revealed);
+        this.counters = RevealCounters.forStore(revealed);
+        this.adjacentMines = new byte[size];
+        this.neighbourhood = new Neighbourhood(width, height);
+        long startTime = metrics.startTimer();
+        generator.placeMines(mines, size, nbMines);
+        computeAdjacentMines();
+        metrics.recordGeneration(startTime);
     }
 
     /**
-     * Generate a new board which consists of a table of cells
-     * @param width width of the board to generate
-     * @param height height of the board to generate
-     * @param nbMines number of mines that will be placed on the board
-     * @return a generate table of cells to be used as a board
-     * @throws TooManyMinesException throwns when the number of mines exceeds the size of the board
+     * Create a board with a known layout of mines
+     * @param width Width of the board (number of rows)
+     * @param height Height of the board (number of columns)
+     * @param mines indexes of the cells holding a mine
      */
-    private ImmutableTable<Integer, Integer, Cell> generateBoard(int width, int height, int nbMines) throws TooManyMinesException{
-        // There must be less mines than the total number of cells
-        if(nbMines >= (width * height)) {
+    public Board(int width, int height, BitSet mines) {
+        this(width, height, mines, new PlainBitStore(checkedSize(width, height)));
+    }
+
+    /**
+     * Create a board with a known layout of mines
+     * @param width Width of the board (number of rows)
+     * @param height Height of the board (number of columns)
+     * @param mines indexes of the cells holding a mine
+     * @param revealed store of the revealed cells, of the size of the board. Cells already revealed in the store are counted,
+     *                 which allows to restore a board in play.
+     */
+    public Board(int width, int height, BitSet mines, BitStore revealed) {
+        this(width, height, mines, revealed, emptyStoreLike(revealed));
+    }
+
+    /**
+     * Create a board with a known layout of mines and flags
+     * @param width Width of the board (number of rows)
+     * @param height Height of the board (number of columns)
+     * @param mines indexes of the cells holding a mine
+     * @param revealed store of the revealed cells, of the size of the board. Cells already revealed in the store are counted,
+     *                 which allows to restore a board in play.
+     * @param flagged store of the flagged cells, of the size of the board. Cells already flagged in the store are counted.
+     * @throws TooManyMinesException if every cell holds a mine
+     * @throws IllegalArgumentException if the board has no cell or too many of them, a mine lies past the last cell,
+     *                                  or a store is not of the size of the board
+     */
+    public Board(int width, int height, BitSet mines, BitStore revealed, BitStore flagged) {
+        int size = checkedSize(width, height);
+        if(mines.length() > size) {
+            throw new IllegalArgumentException("Mine at index " + (mines.length() - 1) + " lies past the last cell of the board");
+        }
+        if(mines.cardinality() >= size) {
             throw new TooManyMinesException();
         }
+        checkStore(revealed, size, "revealed");
+        checkStore(flagged, size, "flagged");
+        this.width = width;
+        this.height = height;
+        this.nbMines = mines.cardinality();
+        this.mines = (BitSet) mines.clone();
+        this.revealed = revealed;
+        this.flagged = flagged;
+        this.counters = RevealCounters.forStore(revealed);
+        this.adjacentMines = new byte[size];
+        this.neighbourhood = new Neighbourhood(width, height);
+        computeAdjacentMines();
+        countRevealedCells();
+        counters.flagsChanged(flagged.cardinality());
+    }
 
-        // Fill a table of cells
-        Table<Integer, Integer, Cell> table = HashBasedTable.create(width, height);
-        for(int row = 0; row < width; row++) {
-            for(int column = 0; column < height; column++) {
-                table.put(row, column, new Cell(row, column));
-            }
+    /**
+     * @return the number of cells of a board
+     * @throws IllegalArgumentException if a side is not positive or the cells cannot be indexed by an int
+     */
+    private static int checkedSize(int width, int height) {
+        if(width < 1 || height < 1 || (long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid board of " + width + " rows and " + height + " columns");
+        }
+        return width * height;
+    }
+
+    /**
+     * Check that a store holds the cells of a board, and no bit past the last one
+     */
+    private static void checkStore(BitStore store, int size, String name) {
+        if(store.size() != size) {
+            throw new IllegalArgumentException("Store of the " + name + " cells holds " + store.size() + " cells instead of " + size);
+        }
+        if((size & 63) != 0 && (store.word(store.wordCount() - 1) & -1L << size) != 0) {
+            throw new IllegalArgumentException("Store of the " + name + " cells holds bits past the last cell of the board");
+        }
+    }
+
+    /**
+     * @return an empty store of the same size, threading model and encoding as a given store
+     */
+    private static BitStore emptyStoreLike(BitStore store) {
+        if(store instanceof CompressedBitStore) {
+            return new CompressedBitStore(store.size());
         }
+        return store.isThreadSafe() ? new AtomicBitStore(store.size()) : new PlainBitStore(store.size());
+    }
 
-        // Put mines on the board
-        for(int i = 0; i < nbMines; i++) {
-            putRandomMineOnBoard(table);
+    /**
+     * Fill the adjacent mine count of every cell.
+     * Boards with few mines add each mine to its neighbours, denser boards are computed 64 cells at a time
+     * by the {@link AdjacencyKernel}. This is done once when the board is generated, moving a mine afterwards
+     * only updates its neighbourhood.
+     */
+    private void computeAdjacentMines() {
+        if(nbMines >= getSize() * WORD_PARALLEL_DENSITY) {
+            AdjacencyKernel.countAdjacentMines(mines.toLongArray(), width, height, adjacentMines);
+            return;
+        }
+        for(int index = mines.nextSetBit(0); index >= 0; index = mines.nextSetBit(index + 1)) {
+            updateAdjacentMines(index, 1);
         }
+    }
 
-        return ImmutableTable.copyOf(table);
+    /**
+     * Initialize the live counters from the content of the revealed store, a word of 64 cells at a time
+     */
+    private void countRevealedCells() {
+        long[] mineWords = mines.toLongArray();
+        int revealedSafeCells = 0;
+        int revealedMines = 0;
+        for(int wordIndex = 0; wordIndex < revealed.wordCount(); wordIndex++) {
+            long revealedWord = revealed.word(wordIndex);
+            long mineWord = wordIndex < mineWords.length ? mineWords[wordIndex] : 0L;
+            revealedSafeCells += Long.bitCount(revealedWord & ~mineWord);
+            revealedMines += Long.bitCount(revealedWord & mineWord);
+        }
+        counters.add(revealedSafeCells, revealedMines);
+    }
+
+    /**
+     * Add a delta to the adjacent mine count of the neighbours of a cell
+     * @param index index of the cell whose neighbours are updated
+     * @param delta 1 when a mine is added to the cell, -1 when it is removed
+     */
+    private void updateAdjacentMines(int index, int delta) {
+        int nbNeighbours = neighbourhood.neighbours(index, neighbours);
+        for(int i = 0; i < nbNeighbours; i++) {
+            adjacentMines[neighbours[i]] += delta;
+        }
     }
 
     /**
-     * Puts a mine at a random location of the board
-     * A randomly selected cell is set with a mine if the cell has no mine on it
-     * or the cell has not been defined yet.
-     * @param cells the table of cells in which a mine will be randomly placed
+     * Move a mine from a cell to another one, for instance to keep the first revealed cell safe.
+     * Only the adjacent mine counts around both cells are updated.
+     * @param fromRow row of the cell holding the mine
+     * @param fromColumn column of the cell holding the mine
+     * @param toRow row of the cell that will receive the mine
+     * @param toColumn column of the cell that will receive the mine
+     * @throws IllegalArgumentException if there is no mine to move or the target already holds one
      */
-    private void putRandomMineOnBoard(Table<Integer, Integer, Cell> cells) {
-        Random random = new Random();
-        // Try to put a mine randomly until a valid cell is found
-        while(true) {
-            int row = random.nextInt(width);
-            int column = random.nextInt(height);
-            Cell randomCell = cells.get(row, column);
-            if(randomCell == null || !randomCell.isMine()) {
-                cells.put(row, column, new Cell(row, column, true));
-                break;
+    public void moveMine(int fromRow, int fromColumn, int toRow, int toColumn) {
+        int from = indexOf(fromRow, fromColumn);
+        int to = indexOf(toRow, toColumn);
+        if(!mines.get(from)) {
+            throw new IllegalArgumentException("There is no mine at (" + fromRow + ", " + fromColumn + ")");
+        }
+        if(mines.get(to)) {
+            throw new IllegalArgumentException("There is already a mine at (" + toRow + ", " + toColumn + ")");
+        }
+        mines.clear(from);
+        updateAdjacentMines(from, -1);
+        mines.set(to);
+        updateAdjacentMines(to, 1);
+        zeroRegions = null;
+    }
+
+    /**
+     * Place a new layout of mines in the existing storage of the board and hide every cell again,
+     * so that the board can be reused for another game of the same size without allocating.
+     * Cell views handed out before the reset stay valid.
+     * @param generator generator placing the same number of mines as the board holds
+     */
+    public void reset(MineLayoutGenerator generator) {
+        reset(nbMines, generator);
+    }
+
+    /**
+     * Place a new layout with another number of mines in the existing storage of the board and hide every cell again
+     * @param nbMines Number of mines to be placed on the board
+     * @param generator generator placing the mines on the board
+     * @see #reset(MineLayoutGenerator)
+     */
+    public void reset(int nbMines, MineLayoutGenerator generator) throws TooManyMinesException {
+        if(nbMines >= getSize()) {
+            throw new TooManyMinesException();
+        }
+        this.nbMines = nbMines;
+        zeroRegions = null;
+        mines.clear();
+        revealed.clearAll();
+        flagged.clearAll();
+        Arrays.fill(adjacentMines, (byte) 0);
+        counters.reset();
+        long startTime = metrics.startTimer();
+        generator.placeMines(mines, getSize(), nbMines);
+        computeAdjacentMines();
+        metrics.recordGeneration(startTime);
+    }
+
+    /**
+     * Hide every cell again and remove the flags, keeping the layout of mines.
+     * This replays a board from the start without computing the adjacent mine counts nor the region index again.
+     */
+    public void hideAllCells() {
+        revealed.clearAll();
+        flagged.clearAll();
+        counters.reset();
+    }
+
+    /**
+     * Keep an index of the empty regions, so that a reveal on an empty cell can reveal its region in bulk.
+     * The index is built now, and again on its next use after the layout changed.
+     * It takes an int per cell, plus the runs of each region.
+     */
+    public void enableZeroRegionIndex() {
+        zeroRegionIndexEnabled = true;
+        getZeroRegionIndex();
+    }
+
+    /**
+     * @return the index of the empty regions of the current layout, null unless {@link #enableZeroRegionIndex()} was called
+     */
+    public ZeroRegionIndex getZeroRegionIndex() {
+        if(!zeroRegionIndexEnabled) {
+            return null;
+        }
+        if(zeroRegions == null) {
+            zeroRegions = new ZeroRegionIndex(this);
+        }
+        return zeroRegions;
+    }
+
+    /**
+     * Reveal every cell of an empty region and of its numbered border, a word of 64 cells at a time.
+     * Flagged cells are not taken into account: callers only use this when there is no flag on the board.
+     * @param region region of the zero region index
+     * @param onRevealed receives the index of each cell that got revealed, null when no one needs them
+     * @return the number of cells that got revealed
+     */
+    public int revealRegion(int region, IntConsumer onRevealed) {
+        ZeroRegionIndex index = getZeroRegionIndex();
+        int revealedCells = 0;
+        int lastRun = index.firstRun(region) + index.getRunCount(region);
+        for(int run = index.firstRun(region); run < lastRun; run++) {
+            int start = index.runStart(run);
+            int end = start + index.runLength(run);
+            while(start < end) {
+                int wordIndex = start >>> 6;
+                int wordEnd = Math.min(end, (wordIndex + 1) << 6);
+                long mask = (-1L << start) & (-1L >>> (64 - (wordEnd - (wordIndex << 6))));
+                long changed = mask & ~revealed.orWord(wordIndex, mask);
+                revealedCells += Long.bitCount(changed);
+                if(onRevealed != null) {
+                    for(; changed != 0; changed &= changed - 1) {
+                        onRevealed.accept((wordIndex << 6) + Long.numberOfTrailingZeros(changed));
+                    }
+                }
+                start = wordEnd;
             }
         }
+        // Regions hold no mine
+        counters.add(revealedCells, 0);
+        return revealedCells;
+    }
+
+    /**
+     * Compute the index of a cell in the packed state of the board
+     * @param row row of the cell
+     * @param column column of the cell
+     * @return the index of the cell
+     */
+    public int indexOf(int row, int column) {
+        return row * height + column;
+    }
+
+    /**
+     * @param row row of the cell
+     * @param column column of the cell
+     * @return true if the coordinates are on the board
+     */
+    public boolean isOnBoard(int row, int column) {
+        return row >= 0 && row < width && column >= 0 && column < height;
+    }
+
+    /**
+     * Write the indexes of the neighbours of a cell, without allocating
+     * @param index index of the cell
+     * @param result array of at least 8 elements receiving the neighbours
+     * @return the number of neighbours
+     * @see Neighbourhood#neighbours(int, int[])
+     */
+    public int neighbours(int index, int[] result) {
+        return neighbourhood.neighbours(index, result);
+    }
+
+    /**
+     * Visit the indexes of the neighbours of a cell
+     * @param index index of the cell
+     * @param visitor visitor receiving the index of every neighbour
+     * @see Neighbourhood#forEach(int, NeighbourVisitor)
+     */
+    public void forEachNeighbour(int index, NeighbourVisitor visitor) {
+        neighbourhood.forEach(index, visitor);
+    }
+
+    public Neighbourhood getNeighbourhood() {
+        return neighbourhood;
     }
 
     /**
@@ -85,11 +410,11 @@ public class Board {
      * @return the cell at (x,y) coordinates if applicable, otherwise an empty value
      */
     public Optional<Cell> getCell(int row, int column) {
-        if(row < 0 || row >= width || column < 0 || column > height) {
+        if(!isOnBoard(row, column)) {
             return Optional.empty();
         }
         else {
-            return Optional.ofNullable(cells.get(row, column));
+            return Optional.of(new BoardCell(this, row, column));
         }
     }
 
@@ -130,16 +455,194 @@ public class Board {
     }
 
     /**
-     * Count the adjacent mines of a cell that is in a given row and column
+     * Count the adjacent mines of a cell that is in a given row and column.
+     * The count is read from the grid computed when the board was generated.
      * @param row row of the cell to target
      * @param column column of the cell to target
      * @return the number of adjacent mines
      */
     public int countAdjacentMines(int row, int column) {
-        return countMines(getAdjacentCells(row, column));
+        return adjacentMines[indexOf(row, column)];
+    }
+
+    /**
+     * Count the adjacent mines of a cell using its index
+     * @param index index of the cell, as returned by {@link #indexOf(int, int)}
+     * @return the number of adjacent mines
+     */
+    public int countAdjacentMines(int index) {
+        return adjacentMines[index];
+    }
+
+    public boolean isMine(int row, int column) {
+        return isMine(indexOf(row, column));
+    }
+
+    public boolean isMine(int index) {
+        return mines.get(index);
+    }
+
+    public boolean isRevealed(int row, int column) {
+        return isRevealed(indexOf(row, column));
+    }
+
+    public boolean isRevealed(int index) {
+        return revealed.get(index);
+    }
+
+    public void reveal(int row, int column) {
+        reveal(indexOf(row, column));
+    }
+
+    /**
+     * Reveal a cell and update the live counters of the board.
+     * Revealing a cell that is already revealed has no effect. On a thread-safe board,
+     * only one of the threads revealing the same cell gets true.
+     * @param index index of the cell to reveal
+     * @return true if the cell was hidden before the call
+     */
+    public boolean reveal(int index) {
+        if(!revealed.set(index)) {
+            return false;
+        }
+        counters.cellRevealed(mines.get(index));
+        return true;
+    }
+
+    public boolean isFlagged(int row, int column) {
+        return isFlagged(indexOf(row, column));
+    }
+
+    public boolean isFlagged(int index) {
+        return flagged.get(index);
+    }
+
+    /**
+     * Flag a hidden cell as holding a mine. Flagged cells are left out of cascades and chords.
+     * @param index index of the cell to flag
+     * @return true if the cell was hidden and not flagged before the call
+     */
+    public boolean flag(int index) {
+        if(revealed.get(index) || !flagged.set(index)) {
+            return false;
+        }
+        counters.flagsChanged(1);
+        return true;
+    }
+
+    /**
+     * Remove the flag of a cell
+     * @param index index of the cell to unflag
+     * @return true if the cell was flagged before the call
+     */
+    public boolean unflag(int index) {
+        if(!flagged.clear(index)) {
+            return false;
+        }
+        counters.flagsChanged(-1);
+        return true;
+    }
+
+    /**
+     * Count the flagged cells around a cell
+     * @param index index of the cell, as returned by {@link #indexOf(int, int)}
+     * @return the number of adjacent flags
+     */
+    public int countAdjacentFlags(int index) {
+        return neighbourhood.count(index, flagged);
+    }
+
+    /**
+     * @return the number of revealed cells that hold no mine
+     */
+    public int getRevealedSafeCells() {
+        return counters.getRevealedSafeCells();
     }
 
+    /**
+     * @return the number of revealed cells that hold a mine
+     */
+    public int getRevealedMines() {
+        return counters.getRevealedMines();
+    }
+
+    /**
+     * @return the number of flagged cells
+     */
+    public int getFlags() {
+        return counters.getFlags();
+    }
+
+    /**
+     * @return the number of cells that hold no mine and are still hidden
+     */
+    public int getRemainingSafeCells() {
+        return getSize() - nbMines - getRevealedSafeCells();
+    }
+
+    /**
+     * @return a copy of the mine layout, as words of 64 cells in the order of the cell indexes
+     */
+    public long[] getMineWords() {
+        return Arrays.copyOf(mines.toLongArray(), (getSize() + 63) >>> 6);
+    }
+
+    /**
+     * @return the store of the revealed cells. It must not be modified directly, cells are revealed with {@link #reveal(int)}
+     */
+    public BitStore getRevealedStore() {
+        return revealed;
+    }
+
+    /**
+     * @return the store of the flagged cells. It must not be modified directly, cells are flagged with {@link #flag(int)}
+     */
+    public BitStore getFlaggedStore() {
+        return flagged;
+    }
+
+    /**
+     * @return true if cells can be revealed by several threads at once
+     */
+    public boolean isThreadSafe() {
+        return revealed.isThreadSafe();
+    }
+
+    /**
+     * Get all the cells of the board as a table.
+     * The table is built on first call and is made of views over the packed state of the board,
+     * prefer the primitive accessors on large boards.
+     * @return table of the cells, indexed by row and column
+     */
     public ImmutableTable<Integer, Integer, Cell> getCells() {
+        if(cells == null) {
+            ImmutableTable.Builder<Integer, Integer, Cell> builder = ImmutableTable.builder();
+            for(int row = 0; row < width; row++) {
+                for(int column = 0; column < height; column++) {
+                    builder.put(row, column, new BoardCell(this, row, column));
+                }
+            }
+            cells = builder.build();
+        }
         return cells;
     }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the number of cells of the board
+     */
+    public int getSize() {
+        return width * height;
+    }
+
+    public int getNbMines() {
+        return nbMines;
+    }
 }
@@ -0,0 +1,44 @@
+package fr.leward.minesweeper.components;
+
+/**
+ * A cell that reads and writes its state from the packed state of a {@link Board}
+ */
+class BoardCell extends Cell {
+
+    private final Board board;
+
+    BoardCell(Board board, int row, int column) {
+        super(row, column);
+        this.board = board;
+    }
+
+    @Override
+    public void reveal() {
+        board.reveal(getRow(), getColumn());
+    }
+
+    @Override
+    public boolean isMine() {
+        return board.isMine(getRow(), getColumn());
+    }
+
+    @Override
+    public boolean isRevealed() {
+        return board.isRevealed(getRow(), getColumn());
+    }
+
+    @Override
+    public void flag() {
+        board.flag(board.indexOf(getRow(), getColumn()));
+    }
+
+    @Override
+    public void unflag() {
+        board.unflag(board.indexOf(getRow(), getColumn()));
+    }
+
+    @Override
+    public boolean isFlagged() {
+        return board.isFlagged(getRow(), getColumn());
+    }
+}
@@ -0,0 +1,109 @@
+package fr.leward.minesweeper.components;
+
+import fr.leward.minesweeper.exception.TooManyMinesException;
+
+/**
+ * Boards kept for the next games of the same size, so that starting a game does not allocate the storage of a board.
+ * A recycled board gets a new layout of mines in place, see {@link Board#reset(int, MineLayoutGenerator)}.
+ *
+ * A pool is not thread-safe: each thread uses its own pool through {@link #local()}.
+ * It holds a few boards only, looked up by their number of rows and columns with a linear scan,
+ * which is enough for the handful of board sizes a thread plays and never allocates.
+ */
+public class BoardPool {
+
+    /**
+     * Number of boards kept by the pool of a thread
+     */
+    public static final int DEFAULT_CAPACITY = 4;
+
+    private static final ThreadLocal<BoardPool> LOCAL = ThreadLocal.withInitial(() -> new BoardPool(DEFAULT_CAPACITY));
+
+    private final Board[] boards;
+    private final RandomMineLayoutGenerator generator = new RandomMineLayoutGenerator(0L);
+    private int size = 0;
+
+    /**
+     * @param capacity maximum number of boards kept by the pool
+     */
+    public BoardPool(int capacity) {
+        this.boards = new Board[capacity];
+    }
+
+    /**
+     * @return the pool of the current thread
+     */
+    public static BoardPool local() {
+        return LOCAL.get();
+    }
+
+    /**
+     * Take a board out of the pool, or create one if none has the requested size.
+     * The layout is the same as the one of {@code new Board(width, height, nbMines, new RandomMineLayoutGenerator(seed))}.
+     * @param width Width of the board (number of rows)
+     * @param height Height of the board (number of columns)
+     * @param nbMines Number of mines to be placed on the board
+     * @param seed seed of the mine layout
+     * @return a board with no revealed nor flagged cell
+     */
+    public Board acquire(int width, int height, int nbMines, long seed) throws TooManyMinesException {
+        generator.reseed(seed);
+        return acquire(width, height, nbMines, generator);
+    }
+
+    /**
+     * Take a board out of the pool, or create one if none has the requested size
+     * @param width Width of the board (number of rows)
+     * @param height Height of the board (number of columns)
+     * @param nbMines Number of mines to be placed on the board
+     * @param generator generator placing the mines on the board
+     * @return a board with no revealed nor flagged cell
+     */
+    public Board acquire(int width, int height, int nbMines, MineLayoutGenerator generator) throws TooManyMinesException {
+        for(int i = size - 1; i >= 0; i--) {
+            Board board = boards[i];
+            if(board.getWidth() == width && board.getHeight() == height) {
+                board.reset(nbMines, generator);
+                boards[i] = boards[--size];
+                boards[size] = null;
+                return board;
+            }
+        }
+        return new Board(width, height, nbMines, generator);
+    }
+
+    /**
+     * Give a board back to the pool. The board must not be used anymore by its previous owner.
+     * @param board board to recycle
+     * @return true if the board was kept, false if the pool is full or already holds it
+     */
+    public boolean release(Board board) {
+        if(size == boards.length) {
+            return false;
+        }
+        for(int i = 0; i < size; i++) {
+            if(boards[i] == board) {
+                return false;
+            }
+        }
+        boards[size++] = board;
+        return true;
+    }
+
+    /**
+     * @return the number of boards in the pool
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Drop every board of the pool
+     */
+    public void clear() {
+        for(int i = 0; i < size; i++) {
+            boards[i] = null;
+        }
+        size = 0;
+    }
+}
@@ -6,6 +6,7 @@ public class Cell {
     private final int column;
     private final boolean mine;
     boolean revealed = false;
+    boolean flagged = false;
 
     public Cell(int row, int column) {
         this(row, column, false);
@@ -21,6 +22,16 @@ public class Cell {
         this.revealed = true;
     }
 
+    public void flag() {
+        if(!revealed) {
+            this.flagged = true;
+        }
+    }
+
+    public void unflag() {
+        this.flagged = false;
+    }
+
     public int getRow() {
         return row;
     }
@@ -36,4 +47,8 @@ public class Cell {
     public boolean isRevealed() {
         return revealed;
     }
+
+    public boolean isFlagged() {
+        return flagged;
+    }
 }
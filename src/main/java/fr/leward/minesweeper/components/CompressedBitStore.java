@@ -0,0 +1,736 @@
+package fr.leward.minesweeper.components;
+
+import java.util.Arrays;
+
+/**
+ * Bit store compressed per tile of 65536 bits, in the manner of Roaring bitmaps, for use by a single thread.
+ *
+ * A tile without any bit set takes no memory. Other tiles are held by the smallest of three containers:
+ * a sorted array of the bits set while there are few of them, a plain bitmap, or a list of runs of consecutive bits,
+ * which suits the large regions revealed by cascades. Ranges of bits, such as the words set by {@link #orWord(int, long)},
+ * are added to runs without expanding them. {@link #runOptimize()} picks again the smallest container of every tile.
+ *
+ * The number of bits set is kept up to date, and {@link #rank(int)} counts the bits set before an index
+ * from the cardinality of the tiles instead of scanning them.
+ */
+public class CompressedBitStore implements BitStore {
+
+    static final int TILE_SHIFT = 16;
+    static final int TILE_MASK = (1 << TILE_SHIFT) - 1;
+    static final int WORDS_PER_TILE = 1 << (TILE_SHIFT - 6);
+    // Above this number of bits, an array takes more room than a bitmap
+    static final int ARRAY_MAX = 4096;
+    // Above this number of runs, a run container takes more room than a bitmap
+    static final int RUN_MAX = 2048;
+    // Ranges at least this long turn an array into runs rather than being added bit by bit
+    static final int LONG_RANGE = 16;
+    static final int BITMAP_BYTES = WORDS_PER_TILE * 8;
+
+    private final int size;
+    private final Container[] tiles;
+    private int cardinality = 0;
+
+    public CompressedBitStore(int size) {
+        this.size = size;
+        this.tiles = new Container[(size + TILE_MASK) >>> TILE_SHIFT];
+    }
+
+    @Override
+    public boolean get(int index) {
+        Container container = tiles[index >>> TILE_SHIFT];
+        return container != null && container.contains(index & TILE_MASK);
+    }
+
+    @Override
+    public boolean set(int index) {
+        int tile = index >>> TILE_SHIFT;
+        int low = index & TILE_MASK;
+        Container container = tiles[tile];
+        if(container == null) {
+            tiles[tile] = new ArrayContainer().add(low);
+        }
+        else if(container.contains(low)) {
+            return false;
+        }
+        else {
+            tiles[tile] = container.add(low);
+        }
+        cardinality++;
+        return true;
+    }
+
+    @Override
+    public boolean clear(int index) {
+        int tile = index >>> TILE_SHIFT;
+        int low = index & TILE_MASK;
+        Container container = tiles[tile];
+        if(container == null || !container.contains(low)) {
+            return false;
+        }
+        tiles[tile] = container.remove(low);
+        cardinality--;
+        return true;
+    }
+
+    @Override
+    public void clearAll() {
+        Arrays.fill(tiles, null);
+        cardinality = 0;
+    }
+
+    @Override
+    public int cardinality() {
+        return cardinality;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int wordCount() {
+        return (size + 63) >>> 6;
+    }
+
+    @Override
+    public long word(int wordIndex) {
+        Container container = tiles[wordIndex >>> (TILE_SHIFT - 6)];
+        return container == null ? 0L : container.word(wordIndex & (WORDS_PER_TILE - 1));
+    }
+
+    @Override
+    public void setWord(int wordIndex, long word) {
+        long previous = word(wordIndex);
+        for(long removed = previous & ~word; removed != 0; removed &= removed - 1) {
+            clear((wordIndex << 6) + Long.numberOfTrailingZeros(removed));
+        }
+        orWord(wordIndex, word);
+    }
+
+    @Override
+    public long orWord(int wordIndex, long mask) {
+        long previous = word(wordIndex);
+        long added = mask & ~previous;
+        if(added == 0) {
+            return previous;
+        }
+        int tile = wordIndex >>> (TILE_SHIFT - 6);
+        int base = (wordIndex & (WORDS_PER_TILE - 1)) << 6;
+        Container container = tiles[tile];
+        // Each sequence of consecutive bits is added as a range
+        while(added != 0) {
+            int from = Long.numberOfTrailingZeros(added);
+            int length = Long.numberOfTrailingZeros(~(added >>> from));
+            if(container == null) {
+                container = length >= LONG_RANGE ? new RunContainer() : new ArrayContainer();
+            }
+            container = container.addRange(base + from, base + from + length);
+            added &= length == 64 ? 0L : ~(((1L << length) - 1) << from);
+        }
+        tiles[tile] = container;
+        cardinality += Long.bitCount(mask & ~previous);
+        return previous;
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     * @param index an index of the store, or its size
+     * @return the number of bits set before the index
+     */
+    public int rank(int index) {
+        int tile = index >>> TILE_SHIFT;
+        int rank = 0;
+        for(int i = 0; i < tile; i++) {
+            if(tiles[i] != null) {
+                rank += tiles[i].cardinality();
+            }
+        }
+        if(tile < tiles.length && tiles[tile] != null) {
+            rank += tiles[tile].rank(index & TILE_MASK);
+        }
+        return rank;
+    }
+
+    /**
+     * Set every bit set in another store of the same size, a container at a time.
+     * Every merged tile ends up in its smallest container, so that merging sparse stores keeps them small.
+     * @param other store whose bits are added to this one
+     */
+    public void union(CompressedBitStore other) {
+        if(other.size != size) {
+            throw new IllegalArgumentException("Stores of " + size + " and " + other.size + " bits cannot be merged");
+        }
+        for(int tile = 0; tile < tiles.length; tile++) {
+            Container source = other.tiles[tile];
+            if(source == null) {
+                continue;
+            }
+            Container target = tiles[tile];
+            if(target == null) {
+                tiles[tile] = source.copy();
+                cardinality += source.cardinality();
+                continue;
+            }
+            int before = target.cardinality();
+            target = smallest(target.union(source));
+            tiles[tile] = target;
+            cardinality += target.cardinality() - before;
+        }
+    }
+
+    /**
+     * Convert every tile to its smallest container, typically once a cascade revealed large regions
+     */
+    public void runOptimize() {
+        for(int tile = 0; tile < tiles.length; tile++) {
+            if(tiles[tile] != null) {
+                tiles[tile] = smallest(tiles[tile]);
+            }
+        }
+    }
+
+    /**
+     * @return an estimate of the memory taken by the containers, in bytes
+     */
+    public long getSizeInBytes() {
+        long bytes = 16 + 4L * tiles.length;
+        for(Container container : tiles) {
+            if(container != null) {
+                bytes += container.sizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the type of the container of a tile: 'a' for an array, 'b' for a bitmap, 'r' for runs, '-' for an empty tile
+     */
+    char containerType(int tile) {
+        Container container = tiles[tile];
+        return container == null ? '-' : container.type();
+    }
+
+    private static Container smallest(Container container) {
+        int cardinality = container.cardinality();
+        int runs = container.runCount();
+        int arrayBytes = cardinality <= ARRAY_MAX ? 2 * cardinality : Integer.MAX_VALUE;
+        int runBytes = runs <= RUN_MAX ? 4 * runs : Integer.MAX_VALUE;
+        if(runBytes <= arrayBytes && runBytes < BITMAP_BYTES) {
+            return container instanceof RunContainer ? container : RunContainer.of(container);
+        }
+        if(arrayBytes < BITMAP_BYTES) {
+            return container instanceof ArrayContainer ? container : ArrayContainer.of(container);
+        }
+        return container instanceof BitmapContainer ? container : BitmapContainer.of(container);
+    }
+
+    /**
+     * Bits of a tile, indexed from 0 to 65535
+     */
+    private abstract static class Container {
+
+        abstract boolean contains(int low);
+
+        /**
+         * Set a bit that is not set yet
+         * @return the container holding the result, this one or a conversion
+         */
+        abstract Container add(int low);
+
+        /**
+         * Clear a bit that is set
+         * @return the container holding the result, null when no bit is left
+         */
+        abstract Container remove(int low);
+
+        /**
+         * Set the bits from {@code from} included to {@code to} excluded, some of them may already be set
+         * @return the container holding the result, this one or a conversion
+         */
+        abstract Container addRange(int from, int to);
+
+        abstract int cardinality();
+
+        abstract long word(int wordIndex);
+
+        /**
+         * @return the number of bits set before a bit
+         */
+        abstract int rank(int low);
+
+        abstract int runCount();
+
+        abstract Container copy();
+
+        abstract int sizeInBytes();
+
+        abstract char type();
+
+        /**
+         * Set the bits of another container
+         * @return the container holding the result, this one or a conversion
+         */
+        Container union(Container other) {
+            if(other instanceof RunContainer) {
+                RunContainer runs = (RunContainer) other;
+                Container result = this;
+                for(int run = 0; run < runs.nbRuns; run++) {
+                    result = result.addRange(runs.runs[2 * run], runs.runs[2 * run + 1] + 1);
+                }
+                return result;
+            }
+            BitmapContainer bitmap = this instanceof BitmapContainer ? (BitmapContainer) this : BitmapContainer.of(this);
+            for(int wordIndex = 0; wordIndex < WORDS_PER_TILE; wordIndex++) {
+                long word = other.word(wordIndex);
+                if(word != 0) {
+                    bitmap.cardinality += Long.bitCount(word & ~bitmap.words[wordIndex]);
+                    bitmap.words[wordIndex] |= word;
+                }
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * Sorted values of the bits set, for tiles with few of them
+     */
+    private static final class ArrayContainer extends Container {
+
+        private char[] values = new char[4];
+        private int size = 0;
+
+        static ArrayContainer of(Container container) {
+            ArrayContainer array = new ArrayContainer();
+            array.values = new char[Math.max(4, container.cardinality())];
+            for(int wordIndex = 0; wordIndex < WORDS_PER_TILE; wordIndex++) {
+                for(long word = container.word(wordIndex); word != 0; word &= word - 1) {
+                    array.values[array.size++] = (char) ((wordIndex << 6) + Long.numberOfTrailingZeros(word));
+                }
+            }
+            return array;
+        }
+
+        /**
+         * @return the position of the first value greater than or equal to a value
+         */
+        private int lowerBound(int value) {
+            int low = 0;
+            int high = size;
+            while(low < high) {
+                int middle = (low + high) >>> 1;
+                if(values[middle] < value) {
+                    low = middle + 1;
+                }
+                else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        @Override
+        boolean contains(int low) {
+            int position = lowerBound(low);
+            return position < size && values[position] == low;
+        }
+
+        @Override
+        Container add(int low) {
+            if(size == ARRAY_MAX) {
+                return BitmapContainer.of(this).add(low);
+            }
+            int position = lowerBound(low);
+            if(size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, size * 2));
+            }
+            System.arraycopy(values, position, values, position + 1, size - position);
+            values[position] = (char) low;
+            size++;
+            return this;
+        }
+
+        @Override
+        Container remove(int low) {
+            int position = lowerBound(low);
+            System.arraycopy(values, position + 1, values, position, size - position - 1);
+            size--;
+            return size == 0 ? null : this;
+        }
+
+        /**
+         * Merge the values of another array, staying an array while they fit
+         */
+        @Override
+        Container union(Container other) {
+            if(!(other instanceof ArrayContainer)) {
+                return super.union(other);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            char[] merged = new char[size + array.size];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while(i < size || j < array.size) {
+                char value;
+                if(j == array.size || (i < size && values[i] < array.values[j])) {
+                    value = values[i++];
+                }
+                else if(i == size || array.values[j] < values[i]) {
+                    value = array.values[j++];
+                }
+                else {
+                    value = values[i++];
+                    j++;
+                }
+                merged[count++] = value;
+            }
+            if(count > ARRAY_MAX) {
+                return super.union(other);
+            }
+            values = count == merged.length ? merged : Arrays.copyOf(merged, Math.max(4, count));
+            size = count;
+            return this;
+        }
+
+        @Override
+        Container addRange(int from, int to) {
+            if(to - from >= LONG_RANGE) {
+                // Scattered values would make more runs than a bitmap can hold
+                Container converted = runCount() < RUN_MAX ? RunContainer.of(this) : BitmapContainer.of(this);
+                return smallest(converted.addRange(from, to));
+            }
+            Container result = this;
+            for(int low = from; low < to; low++) {
+                if(!result.contains(low)) {
+                    result = result.add(low);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        int cardinality() {
+            return size;
+        }
+
+        @Override
+        long word(int wordIndex) {
+            int start = wordIndex << 6;
+            long word = 0;
+            for(int position = lowerBound(start); position < size && values[position] < start + 64; position++) {
+                word |= 1L << (values[position] - start);
+            }
+            return word;
+        }
+
+        @Override
+        int rank(int low) {
+            return lowerBound(low);
+        }
+
+        @Override
+        int runCount() {
+            int runs = 0;
+            for(int i = 0; i < size; i++) {
+                if(i == 0 || values[i] != values[i - 1] + 1) {
+                    runs++;
+                }
+            }
+            return runs;
+        }
+
+        @Override
+        Container copy() {
+            ArrayContainer copy = new ArrayContainer();
+            copy.values = Arrays.copyOf(values, Math.max(4, size));
+            copy.size = size;
+            return copy;
+        }
+
+        @Override
+        int sizeInBytes() {
+            return 16 + 2 * values.length;
+        }
+
+        @Override
+        char type() {
+            return 'a';
+        }
+    }
+
+    /**
+     * One bit per bit of the tile
+     */
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words = new long[WORDS_PER_TILE];
+        private int cardinality = 0;
+
+        static BitmapContainer of(Container container) {
+            BitmapContainer bitmap = new BitmapContainer();
+            for(int wordIndex = 0; wordIndex < WORDS_PER_TILE; wordIndex++) {
+                bitmap.words[wordIndex] = container.word(wordIndex);
+            }
+            bitmap.cardinality = container.cardinality();
+            return bitmap;
+        }
+
+        @Override
+        boolean contains(int low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        Container add(int low) {
+            words[low >>> 6] |= 1L << low;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(int low) {
+            words[low >>> 6] &= ~(1L << low);
+            cardinality--;
+            return cardinality == 0 ? null : this;
+        }
+
+        @Override
+        Container addRange(int from, int to) {
+            int firstWord = from >>> 6;
+            int lastWord = (to - 1) >>> 6;
+            for(int wordIndex = firstWord; wordIndex <= lastWord; wordIndex++) {
+                long mask = -1L;
+                if(wordIndex == firstWord) {
+                    mask &= -1L << from;
+                }
+                if(wordIndex == lastWord) {
+                    mask &= -1L >>> (63 - ((to - 1) & 63));
+                }
+                cardinality += Long.bitCount(mask & ~words[wordIndex]);
+                words[wordIndex] |= mask;
+            }
+            return this;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        long word(int wordIndex) {
+            return words[wordIndex];
+        }
+
+        @Override
+        int rank(int low) {
+            int rank = 0;
+            for(int wordIndex = 0; wordIndex < low >>> 6; wordIndex++) {
+                rank += Long.bitCount(words[wordIndex]);
+            }
+            if((low & 63) != 0) {
+                rank += Long.bitCount(words[low >>> 6] & (-1L >>> (64 - (low & 63))));
+            }
+            return rank;
+        }
+
+        @Override
+        int runCount() {
+            int runs = 0;
+            long previousTopBit = 0;
+            for(long word : words) {
+                // A run starts on each set bit whose previous bit is clear
+                runs += Long.bitCount(word & ~((word << 1) | previousTopBit));
+                previousTopBit = word >>> 63;
+            }
+            return runs;
+        }
+
+        @Override
+        Container copy() {
+            BitmapContainer copy = new BitmapContainer();
+            System.arraycopy(words, 0, copy.words, 0, WORDS_PER_TILE);
+            copy.cardinality = cardinality;
+            return copy;
+        }
+
+        @Override
+        int sizeInBytes() {
+            return 16 + BITMAP_BYTES;
+        }
+
+        @Override
+        char type() {
+            return 'b';
+        }
+    }
+
+    /**
+     * Sorted runs of consecutive bits, as pairs of first and last bit
+     */
+    private static final class RunContainer extends Container {
+
+        private char[] runs = new char[4];
+        private int nbRuns = 0;
+        private int cardinality = 0;
+
+        static RunContainer of(Container container) {
+            RunContainer result = new RunContainer();
+            result.runs = new char[2 * Math.max(2, container.runCount())];
+            for(int wordIndex = 0; wordIndex < WORDS_PER_TILE; wordIndex++) {
+                int base = wordIndex << 6;
+                for(long word = container.word(wordIndex); word != 0; ) {
+                    int offset = Long.numberOfTrailingZeros(word);
+                    int length = Long.numberOfTrailingZeros(~(word >>> offset));
+                    int start = base + offset;
+                    int last = start + length - 1;
+                    // A run crossing words continues the previous one
+                    if(result.nbRuns > 0 && result.last(result.nbRuns - 1) == start - 1) {
+                        result.runs[2 * result.nbRuns - 1] = (char) last;
+                    }
+                    else {
+                        result.runs[2 * result.nbRuns] = (char) start;
+                        result.runs[2 * result.nbRuns + 1] = (char) last;
+                        result.nbRuns++;
+                    }
+                    word = offset + length == 64 ? 0L : word & (-1L << (offset + length));
+                }
+            }
+            result.cardinality = container.cardinality();
+            return result;
+        }
+
+        private int start(int run) {
+            return runs[2 * run];
+        }
+
+        private int last(int run) {
+            return runs[2 * run + 1];
+        }
+
+        /**
+         * @return the first run whose last bit is greater than or equal to a value
+         */
+        private int firstRunEndingFrom(int value) {
+            int low = 0;
+            int high = nbRuns;
+            while(low < high) {
+                int middle = (low + high) >>> 1;
+                if(last(middle) < value) {
+                    low = middle + 1;
+                }
+                else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        @Override
+        boolean contains(int low) {
+            int run = firstRunEndingFrom(low);
+            return run < nbRuns && start(run) <= low;
+        }
+
+        @Override
+        Container add(int low) {
+            return addRange(low, low + 1);
+        }
+
+        @Override
+        Container remove(int low) {
+            Container expanded = cardinality <= ARRAY_MAX ? ArrayContainer.of(this) : BitmapContainer.of(this);
+            return expanded.remove(low);
+        }
+
+        @Override
+        Container addRange(int from, int to) {
+            int last = to - 1;
+            // Runs touching or overlapping the range are merged with it
+            int first = firstRunEndingFrom(from - 1);
+            int end = first;
+            int merged = 0;
+            while(end < nbRuns && start(end) <= last + 1) {
+                from = Math.min(from, start(end));
+                last = Math.max(last, last(end));
+                merged += last(end) - start(end) + 1;
+                end++;
+            }
+            int removedRuns = end - first;
+            if(removedRuns == 0) {
+                if(nbRuns >= RUN_MAX) {
+                    return BitmapContainer.of(this).addRange(from, to);
+                }
+                if(2 * (nbRuns + 1) > runs.length) {
+                    runs = Arrays.copyOf(runs, runs.length * 2);
+                }
+                System.arraycopy(runs, 2 * first, runs, 2 * first + 2, 2 * (nbRuns - first));
+                nbRuns++;
+            }
+            else if(removedRuns > 1) {
+                System.arraycopy(runs, 2 * end, runs, 2 * first + 2, 2 * (nbRuns - end));
+                nbRuns -= removedRuns - 1;
+            }
+            runs[2 * first] = (char) from;
+            runs[2 * first + 1] = (char) last;
+            cardinality += last - from + 1 - merged;
+            return this;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        long word(int wordIndex) {
+            int start = wordIndex << 6;
+            int end = start + 63;
+            long word = 0;
+            for(int run = firstRunEndingFrom(start); run < nbRuns && start(run) <= end; run++) {
+                int from = Math.max(start, start(run)) - start;
+                int to = Math.min(end, last(run)) - start;
+                word |= (-1L << from) & (-1L >>> (63 - to));
+            }
+            return word;
+        }
+
+        @Override
+        int rank(int low) {
+            int rank = 0;
+            for(int run = 0; run < nbRuns && start(run) < low; run++) {
+                rank += Math.min(last(run), low - 1) - start(run) + 1;
+            }
+            return rank;
+        }
+
+        @Override
+        int runCount() {
+            return nbRuns;
+        }
+
+        @Override
+        Container copy() {
+            RunContainer copy = new RunContainer();
+            copy.runs = Arrays.copyOf(runs, Math.max(4, 2 * nbRuns));
+            copy.nbRuns = nbRuns;
+            copy.cardinality = cardinality;
+            return copy;
+        }
+
+        @Override
+        int sizeInBytes() {
+            return 24 + 2 * runs.length;
+        }
+
+        @Override
+        char type() {
+            return 'r';
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package fr.leward.minesweeper.components;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters of the revealed cells of a board updated by several threads.
+ * Striped adders keep concurrent cascades from contending on a single counter.
+ */
+class ConcurrentRevealCounters extends RevealCounters {
+
+    private final LongAdder revealedSafeCells = new LongAdder();
+    private final LongAdder revealedMines = new LongAdder();
+    private final LongAdder flags = new LongAdder();
+
+    @Override
+    void cellRevealed(boolean mine) {
+        if(mine) {
+            revealedMines.increment();
+        }
+        else {
+            revealedSafeCells.increment();
+        }
+    }
+
+    @Override
+    void add(int safeCells, int mines) {
+        revealedSafeCells.add(safeCells);
+        revealedMines.add(mines);
+    }
+
+    @Override
+    void flagsChanged(int delta) {
+        flags.add(delta);
+    }
+
+    @Override
+    void reset() {
+        revealedSafeCells.reset();
+        revealedMines.reset();
+        flags.reset();
+    }
+
+    @Override
+    int getRevealedSafeCells() {
+        return revealedSafeCells.intValue();
+    }
+
+    @Override
+    int getRevealedMines() {
+        return revealedMines.intValue();
+    }
+
+    @Override
+    int getFlags() {
+        return flags.intValue();
+    }
+}
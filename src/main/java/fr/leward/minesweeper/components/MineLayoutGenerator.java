@@ -0,0 +1,17 @@
+package fr.leward.minesweeper.components;
+
+import java.util.BitSet;
+
+/**
+ * Strategy used by a {@link Board} to place its mines
+ */
+public interface MineLayoutGenerator {
+
+    /**
+     * Place mines on an empty layout
+     * @param mines empty bit set receiving the mines, indexed like the cells of the board
+     * @param nbCells number of cells of the board
+     * @param nbMines number of mines to place, strictly lower than the number of cells
+     */
+    void placeMines(BitSet mines, int nbCells, int nbMines);
+}
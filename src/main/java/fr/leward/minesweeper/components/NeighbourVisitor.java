@@ -0,0 +1,13 @@
+package fr.leward.minesweeper.components;
+
+/**
+ * Callback receiving the indexes of the neighbours of a cell, see {@link Neighbourhood#forEach(int, NeighbourVisitor)}
+ */
+@FunctionalInterface
+public interface NeighbourVisitor {
+
+    /**
+     * @param index index of a neighbouring cell
+     */
+    void visit(int index);
+}
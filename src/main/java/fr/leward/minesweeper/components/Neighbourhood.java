@@ -0,0 +1,127 @@
+package fr.leward.minesweeper.components;
+
+/**
+ * Neighbours of the cells of a board, as cell indexes.
+ *
+ * The 8 neighbours of a cell are at fixed index offsets from it. Cells inside the board use the offsets without
+ * any bounds check, cells on the edges and corners drop the offsets falling off the board with a precomputed mask.
+ * Nothing is allocated: neighbours are written into an array owned by the caller or handed to a visitor.
+ */
+public final class Neighbourhood {
+
+    // Offsets are ordered row by row: top-left, top, top-right, left, right, bottom-left, bottom, bottom-right
+    private static final int TOP = 0b0000_0111;
+    private static final int BOTTOM = 0b1110_0000;
+    private static final int LEFT = 0b0010_1001;
+    private static final int RIGHT = 0b1001_0100;
+    private static final int ALL = 0b1111_1111;
+
+    private final int width;
+    private final int height;
+    private final int[] offsets;
+
+    /**
+     * @param width Width of the board (number of rows)
+     * @param height Height of the board (number of columns)
+     */
+    public Neighbourhood(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.offsets = new int[] {
+                -height - 1, -height, -height + 1,
+                -1, 1,
+                height - 1, height, height + 1
+        };
+    }
+
+    /**
+     * Write the indexes of the neighbours of a cell, in row-major order
+     * @param index index of the cell
+     * @param result array of at least 8 elements receiving the neighbours
+     * @return the number of neighbours, 8 for the cells inside the board, 5 on the edges and 3 in the corners
+     */
+    public int neighbours(int index, int[] result) {
+        int row = index / height;
+        int column = index - row * height;
+        if(row > 0 && row < width - 1 && column > 0 && column < height - 1) {
+            int[] offsets = this.offsets;
+            result[0] = index + offsets[0];
+            result[1] = index + offsets[1];
+            result[2] = index + offsets[2];
+            result[3] = index + offsets[3];
+            result[4] = index + offsets[4];
+            result[5] = index + offsets[5];
+            result[6] = index + offsets[6];
+            result[7] = index + offsets[7];
+            return 8;
+        }
+        int count = 0;
+        for(int mask = edgeMask(row, column); mask != 0; mask &= mask - 1) {
+            result[count++] = index + offsets[Integer.numberOfTrailingZeros(mask)];
+        }
+        return count;
+    }
+
+    /**
+     * Visit the neighbours of a cell, in row-major order.
+     * A visitor capturing local variables is allocated at every call, reuse a visitor on hot paths.
+     * @param index index of the cell
+     * @param visitor visitor receiving the index of every neighbour
+     */
+    public void forEach(int index, NeighbourVisitor visitor) {
+        int row = index / height;
+        int column = index - row * height;
+        int mask = row > 0 && row < width - 1 && column > 0 && column < height - 1 ? ALL : edgeMask(row, column);
+        for(; mask != 0; mask &= mask - 1) {
+            visitor.visit(index + offsets[Integer.numberOfTrailingZeros(mask)]);
+        }
+    }
+
+    /**
+     * Count the neighbours of a cell whose bit is set in a store
+     * @param index index of the cell
+     * @param bits store indexed like the cells of the board
+     * @return the number of neighbours set in the store
+     */
+    public int count(int index, BitStore bits) {
+        int row = index / height;
+        int column = index - row * height;
+        int mask = row > 0 && row < width - 1 && column > 0 && column < height - 1 ? ALL : edgeMask(row, column);
+        int count = 0;
+        for(; mask != 0; mask &= mask - 1) {
+            if(bits.get(index + offsets[Integer.numberOfTrailingZeros(mask)])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return true if the cell has its 8 neighbours on the board
+     */
+    public boolean isInterior(int index) {
+        int row = index / height;
+        int column = index - row * height;
+        return row > 0 && row < width - 1 && column > 0 && column < height - 1;
+    }
+
+    /**
+     * @return the mask of the offsets that stay on the board for a cell on an edge or in a corner
+     */
+    private int edgeMask(int row, int column) {
+        int mask = ALL;
+        if(row == 0) {
+            mask &= ~TOP;
+        }
+        if(row == width - 1) {
+            mask &= ~BOTTOM;
+        }
+        if(column == 0) {
+            mask &= ~LEFT;
+        }
+        if(column == height - 1) {
+            mask &= ~RIGHT;
+        }
+        return mask;
+    }
+}
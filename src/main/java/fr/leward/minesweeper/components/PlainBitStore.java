@@ -0,0 +1,88 @@
+package fr.leward.minesweeper.components;
+
+import java.util.Arrays;
+
+/**
+ * Bit store backed by an array of longs, for use by a single thread
+ */
+public class PlainBitStore implements BitStore {
+
+    private final int size;
+    private final long[] words;
+
+    public PlainBitStore(int size) {
+        this.size = size;
+        this.words = new long[(size + 63) >>> 6];
+    }
+
+    @Override
+    public boolean get(int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean set(int index) {
+        int wordIndex = index >>> 6;
+        long word = words[wordIndex];
+        long mask = 1L << index;
+        if((word & mask) != 0) {
+            return false;
+        }
+        words[wordIndex] = word | mask;
+        return true;
+    }
+
+    @Override
+    public boolean clear(int index) {
+        long word = words[index >>> 6];
+        long bit = 1L << index;
+        words[index >>> 6] = word & ~bit;
+        return (word & bit) != 0;
+    }
+
+    @Override
+    public void clearAll() {
+        Arrays.fill(words, 0L);
+    }
+
+    @Override
+    public int cardinality() {
+        int cardinality = 0;
+        for(long word : words) {
+            cardinality += Long.bitCount(word);
+        }
+        return cardinality;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int wordCount() {
+        return words.length;
+    }
+
+    @Override
+    public long word(int wordIndex) {
+        return words[wordIndex];
+    }
+
+    @Override
+    public void setWord(int wordIndex, long word) {
+        words[wordIndex] = word;
+    }
+
+    @Override
+    public long orWord(int wordIndex, long mask) {
+        long previous = words[wordIndex];
+        words[wordIndex] = previous | mask;
+        return previous;
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return false;
+    }
+}
@@ -0,0 +1,95 @@
+package fr.leward.minesweeper.components;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+/**
+ * Place mines uniformly at random, in a time proportional to the number of mines.
+ * The generator is seeded: two generators built with the same seed produce the same sequence of layouts.
+ *
+ * Sparse layouts are drawn with Floyd's sampling algorithm directly into the bit set.
+ * Dense layouts use a partial Fisher–Yates shuffle over a reusable array of cell indexes,
+ * drawing whichever of the mines or the free cells is the smallest set.
+ */
+public class RandomMineLayoutGenerator implements MineLayoutGenerator {
+
+    /**
+     * Above this ratio of mines per cell, the layout is considered dense
+     */
+    static final double DENSE_THRESHOLD = 0.25;
+
+    private long seed;
+    private SplittableRandom random;
+    private int[] indexes = new int[0];
+
+    /**
+     * Create a generator with a random seed
+     */
+    public RandomMineLayoutGenerator() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    public RandomMineLayoutGenerator(long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public void placeMines(BitSet mines, int nbCells, int nbMines) {
+        if(nbMines > nbCells * DENSE_THRESHOLD) {
+            placeDense(mines, nbCells, nbMines);
+        }
+        else {
+            placeSparse(mines, nbCells, nbMines);
+        }
+    }
+
+    /**
+     * Floyd's algorithm: one random draw per mine and no retry
+     */
+    private void placeSparse(BitSet mines, int nbCells, int nbMines) {
+        for(int j = nbCells - nbMines; j < nbCells; j++) {
+            int candidate = random.nextInt(j + 1);
+            mines.set(mines.get(candidate) ? j : candidate);
+        }
+    }
+
+    /**
+     * Partial Fisher–Yates shuffle: the first drawn indexes of the array are the selected cells
+     */
+    private void placeDense(BitSet mines, int nbCells, int nbMines) {
+        // Draw the free cells instead of the mines when there are fewer of them
+        boolean drawFreeCells = nbMines > nbCells / 2;
+        int nbDraws = drawFreeCells ? nbCells - nbMines : nbMines;
+
+        if(indexes.length != nbCells) {
+            indexes = new int[nbCells];
+        }
+        for(int i = 0; i < nbCells; i++) {
+            indexes[i] = i;
+        }
+        for(int i = 0; i < nbDraws; i++) {
+            int j = i + random.nextInt(nbCells - i);
+            int drawn = indexes[j];
+            indexes[j] = indexes[i];
+            indexes[i] = drawn;
+            mines.set(drawn);
+        }
+        if(drawFreeCells) {
+            mines.flip(0, nbCells);
+        }
+    }
+
+    /**
+     * Start again from a new seed, as if the generator had just been built with it
+     * @param seed seed of the next layouts
+     */
+    public void reseed(long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+}
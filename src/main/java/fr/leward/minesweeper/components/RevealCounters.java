@@ -0,0 +1,58 @@
+package fr.leward.minesweeper.components;
+
+/**
+ * Live counters of the revealed and flagged cells of a board, for use by a single thread
+ */
+class RevealCounters {
+
+    private int revealedSafeCells = 0;
+    private int revealedMines = 0;
+    private int flags = 0;
+
+    void cellRevealed(boolean mine) {
+        if(mine) {
+            revealedMines++;
+        }
+        else {
+            revealedSafeCells++;
+        }
+    }
+
+    void add(int safeCells, int mines) {
+        revealedSafeCells += safeCells;
+        revealedMines += mines;
+    }
+
+    /**
+     * @param delta 1 when a cell is flagged, -1 when it is unflagged
+     */
+    void flagsChanged(int delta) {
+        flags += delta;
+    }
+
+    void reset() {
+        revealedSafeCells = 0;
+        revealedMines = 0;
+        flags = 0;
+    }
+
+    int getRevealedSafeCells() {
+        return revealedSafeCells;
+    }
+
+    int getRevealedMines() {
+        return revealedMines;
+    }
+
+    int getFlags() {
+        return flags;
+    }
+
+    /**
+     * @param revealedStore revealed state the counters follow
+     * @return counters suited to the threading model of the store
+     */
+    static RevealCounters forStore(BitStore revealedStore) {
+        return revealedStore.isThreadSafe() ? new ConcurrentRevealCounters() : new RevealCounters();
+    }
+}
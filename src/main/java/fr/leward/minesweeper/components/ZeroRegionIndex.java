@@ -0,0 +1,157 @@
+package fr.leward.minesweeper.components;
+
+import fr.leward.minesweeper.util.IntQueue;
+
+import java.util.Arrays;
+
+/**
+ * Index of the empty regions of a board: the connected cells without adjacent mine, with the numbered cells
+ * on their border. Revealing any empty cell reveals its whole region, so the cells of each region are
+ * precomputed as runs of consecutive indexes, which are revealed with a few word operations instead of a flood fill.
+ *
+ * The index describes the layout it was built from. {@link Board} drops it when a mine is moved or the board is reset,
+ * and builds it again on its next use.
+ */
+public final class ZeroRegionIndex {
+
+    private final int[] regionOfCell;
+    private final int nbRegions;
+    // Runs of region r are runStarts[runOffsets[r]] to runStarts[runOffsets[r + 1] - 1]
+    private final int[] runOffsets;
+    private final int[] runStarts;
+    private final int[] runLengths;
+    private final int[] regionSizes;
+
+    /**
+     * Label the empty regions of a board with a flood fill, in a time proportional to the size of the board
+     * @param board board to index
+     */
+    public ZeroRegionIndex(Board board) {
+        int size = board.getSize();
+        regionOfCell = new int[size];
+        Arrays.fill(regionOfCell, -1);
+        // Last region a numbered cell was added to, so that it is listed once per region
+        int[] borderRegion = new int[size];
+        Arrays.fill(borderRegion, -1);
+
+        IntQueue queue = new IntQueue();
+        int[] neighbours = new int[8];
+        int[] cells = new int[64];
+        int[] offsets = new int[16];
+        int[] starts = new int[64];
+        int[] lengths = new int[64];
+        int[] sizes = new int[16];
+        int nbRuns = 0;
+        int region = 0;
+
+        for(int seed = 0; seed < size; seed++) {
+            if(regionOfCell[seed] >= 0 || board.isMine(seed) || board.countAdjacentMines(seed) != 0) {
+                continue;
+            }
+            // Flood fill of the region, collecting its empty and numbered cells
+            int nbCells = 0;
+            regionOfCell[seed] = region;
+            queue.clear();
+            queue.add(seed);
+            while(!queue.isEmpty()) {
+                int cell = queue.poll();
+                if(nbCells == cells.length) {
+                    cells = Arrays.copyOf(cells, nbCells * 2);
+                }
+                cells[nbCells++] = cell;
+                int nbNeighbours = board.neighbours(cell, neighbours);
+                for(int i = 0; i < nbNeighbours; i++) {
+                    int neighbour = neighbours[i];
+                    if(board.countAdjacentMines(neighbour) == 0) {
+                        if(regionOfCell[neighbour] < 0) {
+                            regionOfCell[neighbour] = region;
+                            queue.add(neighbour);
+                        }
+                    }
+                    else if(borderRegion[neighbour] != region) {
+                        borderRegion[neighbour] = region;
+                        if(nbCells == cells.length) {
+                            cells = Arrays.copyOf(cells, nbCells * 2);
+                        }
+                        cells[nbCells++] = neighbour;
+                    }
+                }
+            }
+
+            // Runs of consecutive indexes
+            Arrays.sort(cells, 0, nbCells);
+            if(region + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                sizes = Arrays.copyOf(sizes, sizes.length * 2);
+            }
+            offsets[region] = nbRuns;
+            sizes[region] = nbCells;
+            for(int i = 0; i < nbCells; ) {
+                int start = cells[i];
+                int length = 1;
+                while(i + length < nbCells && cells[i + length] == start + length) {
+                    length++;
+                }
+                if(nbRuns == starts.length) {
+                    starts = Arrays.copyOf(starts, nbRuns * 2);
+                    lengths = Arrays.copyOf(lengths, nbRuns * 2);
+                }
+                starts[nbRuns] = start;
+                lengths[nbRuns] = length;
+                nbRuns++;
+                i += length;
+            }
+            region++;
+        }
+        offsets[region] = nbRuns;
+
+        this.nbRegions = region;
+        this.runOffsets = Arrays.copyOf(offsets, region + 1);
+        this.runStarts = Arrays.copyOf(starts, nbRuns);
+        this.runLengths = Arrays.copyOf(lengths, nbRuns);
+        this.regionSizes = Arrays.copyOf(sizes, region);
+    }
+
+    /**
+     * @param index index of a cell
+     * @return the region of the cell if it has no adjacent mine, -1 for mines and numbered cells
+     */
+    public int regionOf(int index) {
+        return regionOfCell[index];
+    }
+
+    /**
+     * @return the number of empty regions of the board
+     */
+    public int getRegionCount() {
+        return nbRegions;
+    }
+
+    /**
+     * @param region a region
+     * @return the number of cells of the region, its numbered border included
+     */
+    public int getRegionSize(int region) {
+        return regionSizes[region];
+    }
+
+    /**
+     * @param region a region
+     * @return the number of runs of consecutive indexes holding the cells of the region
+     */
+    public int getRunCount(int region) {
+        return runOffsets[region + 1] - runOffsets[region];
+    }
+
+    int firstRun(int region) {
+        return runOffsets[region];
+    }
+
+    int runStart(int run) {
+        return runStarts[run];
+    }
+
+    int runLength(int run) {
+        return runLengths[run];
+    }
+}
@@ -0,0 +1,48 @@
+package fr.leward.minesweeper.components.chunked;
+
+/**
+ * A square of {@link #SIZE} x {@link #SIZE} cells of a {@link ChunkedBoard}.
+ * Each row of the chunk is packed in a single word, bit {@code n} being the column {@code n} of the chunk.
+ */
+final class Chunk {
+
+    static final int SHIFT = 6;
+    static final int SIZE = 1 << SHIFT;
+    static final int MASK = SIZE - 1;
+
+    final int chunkRow;
+    final int chunkColumn;
+    final long[] mines = new long[SIZE];
+    final long[] revealed = new long[SIZE];
+    int revealedCells;
+
+    Chunk(int chunkRow, int chunkColumn) {
+        this.chunkRow = chunkRow;
+        this.chunkColumn = chunkColumn;
+    }
+
+    boolean isMine(int localRow, int localColumn) {
+        return (mines[localRow] & 1L << localColumn) != 0;
+    }
+
+    boolean isRevealed(int localRow, int localColumn) {
+        return (revealed[localRow] & 1L << localColumn) != 0;
+    }
+
+    /**
+     * @return true if the cell was hidden
+     */
+    boolean reveal(int localRow, int localColumn) {
+        long bit = 1L << localColumn;
+        if((revealed[localRow] & bit) != 0) {
+            return false;
+        }
+        revealed[localRow] |= bit;
+        revealedCells++;
+        return true;
+    }
+
+    static long key(int chunkRow, int chunkColumn) {
+        return (long) chunkRow << 32 | chunkColumn & 0xFFFFFFFFL;
+    }
+}
@@ -0,0 +1,139 @@
+package fr.leward.minesweeper.components.chunked;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Least recently used cache of the chunks of a {@link ChunkedBoard}.
+ * Mines are derived again from the seed when a chunk is loaded, so only the revealed cells of an evicted chunk
+ * are spilled to disk, one file per chunk.
+ */
+final class ChunkCache {
+
+    private final ChunkedBoard board;
+    private final int capacity;
+    private final Path spillDirectory;
+    private final LinkedHashMap<Long, Chunk> chunks;
+    // Keys of the chunks with revealed cells that have been written to the spill directory
+    private final Set<Long> spilled = new HashSet<>();
+    private final ByteBuffer spillBuffer = ByteBuffer.allocateDirect(Chunk.SIZE * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    ChunkCache(ChunkedBoard board, int capacity, Path spillDirectory) {
+        this.board = board;
+        this.capacity = capacity;
+        this.spillDirectory = spillDirectory;
+        this.chunks = new LinkedHashMap<Long, Chunk>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+                if(size() <= ChunkCache.this.capacity) {
+                    return false;
+                }
+                evict(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Get a chunk, creating or loading it if needed.
+     * Every access goes through the map so that the chunk being played is always the most recently used one.
+     */
+    Chunk get(int chunkRow, int chunkColumn) {
+        long key = Chunk.key(chunkRow, chunkColumn);
+        Chunk chunk = chunks.get(key);
+        if(chunk == null) {
+            chunk = new Chunk(chunkRow, chunkColumn);
+            board.placeMines(chunk);
+            if(spilled.remove(key)) {
+                load(chunk);
+            }
+            chunks.put(key, chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * Get a chunk only if it has been created before
+     * @return the chunk, or null if no cell of the chunk has been touched yet
+     */
+    Chunk getIfTouched(int chunkRow, int chunkColumn) {
+        long key = Chunk.key(chunkRow, chunkColumn);
+        Chunk chunk = chunks.get(key);
+        if(chunk == null && spilled.contains(key)) {
+            chunk = get(chunkRow, chunkColumn);
+        }
+        return chunk;
+    }
+
+    int getLoadedChunks() {
+        return chunks.size();
+    }
+
+    int getSpilledChunks() {
+        return spilled.size();
+    }
+
+    private void evict(Chunk chunk) {
+        if(chunk.revealedCells == 0) {
+            // Nothing that cannot be derived from the seed
+            return;
+        }
+        spillBuffer.clear();
+        for(long word : chunk.revealed) {
+            spillBuffer.putLong(word);
+        }
+        spillBuffer.flip();
+        Path file = spillFile(chunk);
+        try(FileChannel channel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            while(spillBuffer.hasRemaining()) {
+                channel.write(spillBuffer);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Cannot spill chunk " + chunk.chunkRow + "," + chunk.chunkColumn, e);
+        }
+        // Files are deleted before their directory when the JVM exits, as they are registered after it
+        file.toFile().deleteOnExit();
+        spilled.add(Chunk.key(chunk.chunkRow, chunk.chunkColumn));
+    }
+
+    /**
+     * Read the revealed cells of a spilled chunk and delete its file, the chunk is spilled again when evicted
+     */
+    private void load(Chunk chunk) {
+        spillBuffer.clear();
+        Path file = spillFile(chunk);
+        try {
+            try(FileChannel channel = FileChannel.open(file, READ)) {
+                while(spillBuffer.hasRemaining() && channel.read(spillBuffer) >= 0) {
+                    // Read the whole chunk
+                }
+            }
+            Files.delete(file);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Cannot load chunk " + chunk.chunkRow + "," + chunk.chunkColumn, e);
+        }
+        spillBuffer.flip();
+        for(int row = 0; row < Chunk.SIZE; row++) {
+            long word = spillBuffer.getLong();
+            chunk.revealed[row] = word;
+            chunk.revealedCells += Long.bitCount(word);
+        }
+    }
+
+    private Path spillFile(Chunk chunk) {
+        return spillDirectory.resolve(chunk.chunkRow + "_" + chunk.chunkColumn + ".chunk");
+    }
+}
@@ -0,0 +1,265 @@
+package fr.leward.minesweeper.components.chunked;
+
+import com.google.common.collect.ImmutableList;
+import fr.leward.minesweeper.components.Cell;
+import fr.leward.minesweeper.util.IntQueue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * An endless board, split in chunks of 64 x 64 cells that are created when a cell is first touched.
+ * Rows and columns can be any int, negative included.
+ *
+ * The mines of a chunk are derived from the seed of the board and the coordinates of the chunk, so the same seed
+ * always gives the same world whatever the order the chunks are explored in. At most {@code maxLoadedChunks} chunks
+ * are kept in memory, the least recently used ones are evicted and their revealed cells spilled to disk.
+ *
+ * With a low density the empty regions can be arbitrarily large, so a single reveal stops cascading after
+ * {@code maxCascade} cells. The rest of the cascade is kept pending and carried on by {@link #continueCascade()}.
+ */
+public class ChunkedBoard {
+
+    public static final int DEFAULT_MAX_LOADED_CHUNKS = 256;
+    public static final int DEFAULT_MAX_CASCADE = 1 << 16;
+
+    private final long seed;
+    private final double density;
+    private final int maxCascade;
+    private final ChunkCache chunks;
+
+    // Pending cascade, as pairs of row and column of revealed empty cells whose neighbours are not revealed yet
+    private final IntQueue pending = new IntQueue();
+    private long revealedSafeCells = 0;
+    private long revealedMines = 0;
+
+    /**
+     * Create an endless board spilling its chunks to a temporary directory
+     * @param seed seed of the mine layout
+     * @param density probability of a cell being a mine, between 0 and 1
+     */
+    public ChunkedBoard(long seed, double density) {
+        this(seed, density, DEFAULT_MAX_LOADED_CHUNKS, DEFAULT_MAX_CASCADE, createSpillDirectory());
+    }
+
+    /**
+     * Create an endless board
+     * @param seed seed of the mine layout
+     * @param density probability of a cell being a mine, between 0 and 1
+     * @param maxLoadedChunks number of chunks kept in memory
+     * @param maxCascade number of cells a single reveal can reveal before its cascade is left pending
+     * @param spillDirectory directory where the evicted chunks are written
+     */
+    public ChunkedBoard(long seed, double density, int maxLoadedChunks, int maxCascade, Path spillDirectory) {
+        if(density < 0 || density >= 1) {
+            throw new IllegalArgumentException("Density must be between 0 and 1, was " + density);
+        }
+        if(maxLoadedChunks < 4) {
+            // A cell and its neighbours can span 4 chunks
+            throw new IllegalArgumentException("At least 4 chunks must be kept in memory");
+        }
+        if(maxCascade < 1) {
+            throw new IllegalArgumentException("The cascade limit must be positive");
+        }
+        this.seed = seed;
+        this.density = density;
+        this.maxCascade = maxCascade;
+        this.chunks = new ChunkCache(this, maxLoadedChunks, spillDirectory);
+    }
+
+    private static Path createSpillDirectory() {
+        try {
+            Path directory = Files.createTempDirectory("minesweeper-chunks");
+            directory.toFile().deleteOnExit();
+            return directory;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Place the mines of a new chunk, from the seed of the board and the coordinates of the chunk
+     */
+    void placeMines(Chunk chunk) {
+        long chunkSeed = seed ^ chunk.chunkRow * 0x9E3779B97F4A7C15L ^ chunk.chunkColumn * 0xC2B2AE3D27D4EB4FL;
+        SplittableRandom random = new SplittableRandom(chunkSeed);
+        for(int row = 0; row < Chunk.SIZE; row++) {
+            long word = 0;
+            for(int column = 0; column < Chunk.SIZE; column++) {
+                if(random.nextDouble() < density) {
+                    word |= 1L << column;
+                }
+            }
+            chunk.mines[row] = word;
+        }
+    }
+
+    private Chunk chunkOf(int row, int column) {
+        return chunks.get(row >> Chunk.SHIFT, column >> Chunk.SHIFT);
+    }
+
+    public boolean isMine(int row, int column) {
+        return chunkOf(row, column).isMine(row & Chunk.MASK, column & Chunk.MASK);
+    }
+
+    /**
+     * Whether a cell is revealed. Chunks that have never been touched are not created.
+     */
+    public boolean isRevealed(int row, int column) {
+        Chunk chunk = chunks.getIfTouched(row >> Chunk.SHIFT, column >> Chunk.SHIFT);
+        return chunk != null && chunk.isRevealed(row & Chunk.MASK, column & Chunk.MASK);
+    }
+
+    /**
+     * Count the adjacent mines of a cell, across the borders of its chunk if needed
+     */
+    public int countAdjacentMines(int row, int column) {
+        int localRow = row & Chunk.MASK;
+        int localColumn = column & Chunk.MASK;
+        if(localRow > 0 && localRow < Chunk.MASK && localColumn > 0 && localColumn < Chunk.MASK) {
+            // Fast path, the cell and its neighbours are in the same chunk
+            long[] mines = chunkOf(row, column).mines;
+            int shift = localColumn - 1;
+            return Long.bitCount(mines[localRow - 1] >>> shift & 7L)
+                    + Long.bitCount(mines[localRow] >>> shift & 5L)
+                    + Long.bitCount(mines[localRow + 1] >>> shift & 7L);
+        }
+        int count = 0;
+        for(int r = row - 1; r <= row + 1; r++) {
+            for(int c = column - 1; c <= column + 1; c++) {
+                if((r != row || c != column) && isMine(r, c)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reveal a cell, and cascade through the empty cells around it up to {@code maxCascade} cells
+     * @return the number of cells revealed, 0 if the cell was already revealed
+     */
+    public int reveal(int row, int column) {
+        if(!revealCell(row, column)) {
+            return 0;
+        }
+        if(isMine(row, column) || countAdjacentMines(row, column) != 0) {
+            return 1;
+        }
+        pending.add(row);
+        pending.add(column);
+        return 1 + cascade(maxCascade - 1);
+    }
+
+    /**
+     * Carry on a cascade that was stopped by the cascade limit
+     * @return the number of cells revealed
+     */
+    public int continueCascade() {
+        return cascade(maxCascade);
+    }
+
+    /**
+     * @return true if a cascade was stopped by the cascade limit
+     */
+    public boolean hasPendingCascade() {
+        return !pending.isEmpty();
+    }
+
+    private int cascade(int limit) {
+        int revealed = 0;
+        while(!pending.isEmpty() && revealed < limit) {
+            int row = pending.poll();
+            int column = pending.poll();
+            for(int r = row - 1; r <= row + 1; r++) {
+                for(int c = column - 1; c <= column + 1; c++) {
+                    if(revealed == limit) {
+                        // Some neighbours are still hidden, expand the cell again on the next call
+                        pending.add(row);
+                        pending.add(column);
+                        return revealed;
+                    }
+                    if(revealCell(r, c)) {
+                        revealed++;
+                        if(countAdjacentMines(r, c) == 0) {
+                            pending.add(r);
+                            pending.add(c);
+                        }
+                    }
+                }
+            }
+        }
+        return revealed;
+    }
+
+    /**
+     * Mark a cell as revealed, without cascading
+     * @return true if the cell was hidden
+     */
+    private boolean revealCell(int row, int column) {
+        int localRow = row & Chunk.MASK;
+        int localColumn = column & Chunk.MASK;
+        Chunk chunk = chunkOf(row, column);
+        if(!chunk.reveal(localRow, localColumn)) {
+            return false;
+        }
+        if(chunk.isMine(localRow, localColumn)) {
+            revealedMines++;
+        }
+        else {
+            revealedSafeCells++;
+        }
+        return true;
+    }
+
+    /**
+     * Get a view of a cell
+     */
+    public Cell getCell(int row, int column) {
+        return new ChunkedCell(this, row, column);
+    }
+
+    /**
+     * Get the 8 cells adjacent to a cell, across the borders of its chunk if needed
+     */
+    public ImmutableList<Cell> getAdjacentCells(int row, int column) {
+        return ImmutableList.of(
+                getCell(row - 1, column - 1), getCell(row - 1, column), getCell(row - 1, column + 1),
+                getCell(row, column + 1), getCell(row + 1, column + 1), getCell(row + 1, column),
+                getCell(row + 1, column - 1), getCell(row, column - 1));
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public double getDensity() {
+        return density;
+    }
+
+    public long getRevealedSafeCells() {
+        return revealedSafeCells;
+    }
+
+    public long getRevealedMines() {
+        return revealedMines;
+    }
+
+    /**
+     * @return the number of chunks currently held in memory
+     */
+    public int getLoadedChunks() {
+        return chunks.getLoadedChunks();
+    }
+
+    /**
+     * @return the number of chunks whose revealed cells are only on disk
+     */
+    public int getSpilledChunks() {
+        return chunks.getSpilledChunks();
+    }
+}
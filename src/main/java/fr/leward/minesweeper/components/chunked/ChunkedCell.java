@@ -0,0 +1,31 @@
+package fr.leward.minesweeper.components.chunked;
+
+import fr.leward.minesweeper.components.Cell;
+
+/**
+ * A cell that reads and writes its state from the chunks of a {@link ChunkedBoard}
+ */
+class ChunkedCell extends Cell {
+
+    private final ChunkedBoard board;
+
+    ChunkedCell(ChunkedBoard board, int row, int column) {
+        super(row, column);
+        this.board = board;
+    }
+
+    @Override
+    public void reveal() {
+        board.reveal(getRow(), getColumn());
+    }
+
+    @Override
+    public boolean isMine() {
+        return board.isMine(getRow(), getColumn());
+    }
+
+    @Override
+    public boolean isRevealed() {
+        return board.isRevealed(getRow(), getColumn());
+    }
+}
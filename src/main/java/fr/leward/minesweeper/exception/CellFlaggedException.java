@@ -0,0 +1,8 @@
+package fr.leward.minesweeper.exception;
+
+public class CellFlaggedException extends RuntimeException {
+
+    public CellFlaggedException() {
+        super("The cell is flagged");
+    }
+}
@@ -0,0 +1,8 @@
+package fr.leward.minesweeper.exception;
+
+public class InvalidJournalException extends RuntimeException {
+
+    public InvalidJournalException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package fr.leward.minesweeper.exception;
+
+public class InvalidSnapshotException extends RuntimeException {
+
+    public InvalidSnapshotException(String message) {
+        super(message);
+    }
+}
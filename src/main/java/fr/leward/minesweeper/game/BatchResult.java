@@ -0,0 +1,88 @@
+package fr.leward.minesweeper.game;
+
+import java.util.Arrays;
+
+/**
+ * Result of a batch of moves: the status of every move, the total number of revealed cells and the state of the game
+ * after the last move. A result can be passed again to {@link Game#playMoves(MoveBatch, BatchResult)} to be reused.
+ */
+public class BatchResult {
+
+    private MoveStatus[] statuses = new MoveStatus[0];
+    private int size = 0;
+    private int appliedMoves = 0;
+    private int revealedCells = 0;
+    private GameStatus gameStatus = GameStatus.IN_PROGRESS;
+
+    void reset(int moves) {
+        if(statuses.length < moves) {
+            statuses = new MoveStatus[moves];
+        }
+        size = moves;
+        appliedMoves = 0;
+        revealedCells = 0;
+    }
+
+    void moveApplied(int move, int revealedCells) {
+        statuses[move] = MoveStatus.APPLIED;
+        appliedMoves++;
+        this.revealedCells += revealedCells;
+    }
+
+    void moveRejected(int move, MoveStatus status) {
+        statuses[move] = status;
+    }
+
+    void setGameStatus(GameStatus gameStatus) {
+        this.gameStatus = gameStatus;
+    }
+
+    /**
+     * @param move index of the move in the batch
+     * @return the outcome of the move
+     */
+    public MoveStatus getStatus(int move) {
+        if(move >= size) {
+            throw new IndexOutOfBoundsException("Move " + move + " is not part of the batch");
+        }
+        return statuses[move];
+    }
+
+    /**
+     * @return the number of moves of the batch
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of moves that were applied and counted
+     */
+    public int getAppliedMoves() {
+        return appliedMoves;
+    }
+
+    /**
+     * @return the number of cells revealed by the whole batch, cascades included
+     */
+    public int getRevealedCells() {
+        return revealedCells;
+    }
+
+    /**
+     * @return the status of the game after the batch
+     */
+    public GameStatus getGameStatus() {
+        return gameStatus;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "statuses=" + Arrays.toString(Arrays.copyOf(statuses, size)) +
+                ", appliedMoves=" + appliedMoves +
+                ", revealedCells=" + revealedCells +
+                ", gameStatus=" + gameStatus +
+                '}';
+    }
+}
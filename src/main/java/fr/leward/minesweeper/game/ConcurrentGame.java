@@ -0,0 +1,157 @@
+package fr.leward.minesweeper.game;
+
+import fr.leward.minesweeper.components.AtomicBitStore;
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.components.MineLayoutGenerator;
+import fr.leward.minesweeper.components.RandomMineLayoutGenerator;
+import fr.leward.minesweeper.exception.CellAlreadyRevealedException;
+import fr.leward.minesweeper.exception.GameOverException;
+import fr.leward.minesweeper.exception.OutOfBoardException;
+import fr.leward.minesweeper.metrics.Metrics;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A minesweeper game that can be played by several threads at once on the same board.
+ *
+ * Revealed cells are claimed with a compare-and-set on the packed revealed state of the board, so a cell
+ * is revealed by exactly one thread and concurrent cascades never reveal or count a cell twice.
+ * Each thread floods with its own work queue. The status of the game is published with a compare-and-set:
+ * the first move hitting a mine or revealing the last safe cell decides the outcome.
+ */
+public class ConcurrentGame {
+
+    private final Board board;
+    private final AtomicReference<GameStatus> status = new AtomicReference<>(GameStatus.IN_PROGRESS);
+    private final AtomicInteger hitCounter = new AtomicInteger();
+    private final Metrics metrics = Metrics.global();
+    private final ThreadLocal<RevealEngine> revealEngines;
+    private volatile RevealListener revealListener = RevealListener.NONE;
+    private volatile ParallelRevealEngine parallelRevealEngine;
+
+    public ConcurrentGame(int rows, int columns, int nbMines) {
+        this(rows, columns, nbMines, new RandomMineLayoutGenerator());
+    }
+
+    public ConcurrentGame(int rows, int columns, int nbMines, MineLayoutGenerator generator) {
+        this(new Board(rows, columns, nbMines, generator, new AtomicBitStore(rows * columns)));
+    }
+
+    /**
+     * Create a game played on an existing board
+     * @param board a thread-safe board
+     * @throws IllegalArgumentException if the board is not thread-safe
+     */
+    public ConcurrentGame(Board board) {
+        if(!board.isThreadSafe()) {
+            throw new IllegalArgumentException("The board of a concurrent game must be thread-safe");
+        }
+        this.board = board;
+        this.revealEngines = ThreadLocal.withInitial(() -> new RevealEngine(board));
+    }
+
+    /**
+     * Reveal a cell and increase the hit counter. This method can be called by several threads at once.
+     * @param row
+     * @param column
+     * @return the number of cells revealed by this move, including the cascade
+     * @throws OutOfBoardException
+     * @throws CellAlreadyRevealedException if the cell has already been revealed, possibly by another thread
+     * @throws GameOverException if the game is already won or lost
+     */
+    public int revealCell(int row, int column) throws OutOfBoardException, CellAlreadyRevealedException {
+        if(status.get() != GameStatus.IN_PROGRESS) {
+            throw new GameOverException();
+        }
+        if(!board.isOnBoard(row, column)) {
+            throw new OutOfBoardException();
+        }
+        int index = board.indexOf(row, column);
+        // Claim the cell, only one thread can win it
+        if(!board.reveal(index)) {
+            throw new CellAlreadyRevealedException();
+        }
+        hitCounter.incrementAndGet();
+        long startTime = metrics.startTimer();
+
+        RevealListener listener = revealListener;
+        listener.cellRevealed(index);
+        if(board.isMine(index)) {
+            status.compareAndSet(GameStatus.IN_PROGRESS, GameStatus.LOST);
+            metrics.recordReveal(startTime, 1);
+            return 1;
+        }
+
+        int revealedCells = 1 + cascade(index, listener);
+        metrics.recordReveal(startTime, revealedCells);
+        if(board.getRemainingSafeCells() == 0) {
+            status.compareAndSet(GameStatus.IN_PROGRESS, GameStatus.WON);
+        }
+        return revealedCells;
+    }
+
+    private int cascade(int index, RevealListener listener) {
+        ParallelRevealEngine parallelEngine = parallelRevealEngine;
+        if(parallelEngine != null) {
+            return parallelEngine.cascade(index, listener);
+        }
+        RevealEngine revealEngine = revealEngines.get();
+        revealEngine.setListener(listener);
+        return revealEngine.cascade(index);
+    }
+
+    /**
+     * Split the cascades that reveal more than a threshold of cells across a fork-join pool.
+     * Cascades below the threshold stay on the calling thread, and the revealed cells are the same in both modes.
+     * @param pool pool flooding the tiles of large cascades
+     * @param sequentialThreshold number of cells a cascade reveals on the calling thread before being split
+     */
+    public void enableParallelCascade(ForkJoinPool pool, int sequentialThreshold) {
+        parallelRevealEngine = new ParallelRevealEngine(board, pool, sequentialThreshold, ParallelRevealEngine.DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Go back to cascades running entirely on the thread playing the move
+     */
+    public void disableParallelCascade() {
+        parallelRevealEngine = null;
+    }
+
+    /**
+     * Subscribe to the cells revealed by the moves of the game.
+     * The listener is called from the threads playing the moves and must be thread-safe.
+     * @param listener listener notified of every revealed cell, cascades included
+     */
+    public synchronized void addRevealListener(RevealListener listener) {
+        revealListener = revealListener == RevealListener.NONE ? listener : revealListener.andThen(listener);
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public GameStatus getStatus() {
+        return status.get();
+    }
+
+    public boolean isGameOver() {
+        return status.get() == GameStatus.LOST;
+    }
+
+    public boolean isGameFinished() {
+        return status.get() == GameStatus.WON;
+    }
+
+    public int getHitCounter() {
+        return hitCounter.get();
+    }
+
+    /**
+     * @return a snapshot of the counters of the game, which may be updated concurrently while it is taken
+     */
+    public GameStats getStats() {
+        return new GameStats(getStatus(), getHitCounter(), board.getRevealedSafeCells(), board.getRevealedMines(), board.getRemainingSafeCells(), board.getFlags());
+    }
+}
@@ -0,0 +1,74 @@
+package fr.leward.minesweeper.game;
+
+import fr.leward.minesweeper.components.chunked.ChunkedBoard;
+import fr.leward.minesweeper.exception.CellAlreadyRevealedException;
+import fr.leward.minesweeper.exception.GameOverException;
+
+/**
+ * A game played on an endless {@link ChunkedBoard}. There is no way to win it, the player explores until a mine
+ * is revealed.
+ */
+public class EndlessGame {
+
+    private final ChunkedBoard board;
+    private boolean gameOver = false;
+    private int hitCounter = 0;
+
+    public EndlessGame(long seed, double density) {
+        this(new ChunkedBoard(seed, density));
+    }
+
+    public EndlessGame(ChunkedBoard board) {
+        this.board = board;
+    }
+
+    /**
+     * Reveal a cell and increase the hit counter
+     * @param row
+     * @param column
+     * @return the number of cells revealed by this move, including the cascade up to the cascade limit of the board
+     * @throws CellAlreadyRevealedException
+     */
+    public int revealCell(int row, int column) throws CellAlreadyRevealedException {
+        if(gameOver) {
+            throw new GameOverException();
+        }
+        if(board.isRevealed(row, column)) {
+            throw new CellAlreadyRevealedException();
+        }
+        int revealedCells = board.reveal(row, column);
+        if(board.isMine(row, column)) {
+            gameOver = true;
+        }
+        hitCounter++;
+        return revealedCells;
+    }
+
+    /**
+     * Carry on a cascade stopped by the cascade limit of the board. It does not count as a move.
+     * @return the number of cells revealed
+     */
+    public int continueCascade() {
+        return board.continueCascade();
+    }
+
+    public boolean hasPendingCascade() {
+        return board.hasPendingCascade();
+    }
+
+    public ChunkedBoard getBoard() {
+        return board;
+    }
+
+    public int getHitCounter() {
+        return hitCounter;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public GameStatus getStatus() {
+        return gameOver ? GameStatus.LOST : GameStatus.IN_PROGRESS;
+    }
+}
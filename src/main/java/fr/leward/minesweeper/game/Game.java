@@ -1,43 +1,263 @@
 package fr.leward.minesweeper.game;
 
-import com.google.common.collect.ImmutableList;
 import fr.leward.minesweeper.components.Board;
-import fr.leward.minesweeper.components.Cell;
+import fr.leward.minesweeper.components.BoardPool;
+import fr.leward.minesweeper.components.MineLayoutGenerator;
+import fr.leward.minesweeper.components.RandomMineLayoutGenerator;
 import fr.leward.minesweeper.exception.CellAlreadyRevealedException;
+import fr.leward.minesweeper.exception.CellFlaggedException;
 import fr.leward.minesweeper.exception.GameOverException;
 import fr.leward.minesweeper.exception.OutOfBoardException;
+import fr.leward.minesweeper.metrics.Metrics;
+
+import java.util.concurrent.TimeUnit;
 
 /**
  * A minesweeper game
  */
 public class Game {
 
+    static final long DEFAULT_NO_GUESS_BUDGET_MILLIS = 50;
+
+    /**
+     * Value of {@link #getNoGuessCandidate()} until the no-guess layout has been searched
+     */
+    public static final int NO_GUESS_PENDING = -2;
+    /**
+     * Value of {@link #getNoGuessCandidate()} when no layout solvable without guessing was found in time
+     */
+    public static final int NO_GUESS_FALLBACK = -1;
+
+    // Outcomes of a rejected move, as the opposite of the ordinal of its status
+    private static final MoveStatus[] MOVE_STATUSES = MoveStatus.values();
+    private static final int NO_EFFECT = -MoveStatus.NO_EFFECT.ordinal();
+    private static final int OUT_OF_BOARD = -MoveStatus.OUT_OF_BOARD.ordinal();
+    private static final int ALREADY_REVEALED = -MoveStatus.ALREADY_REVEALED.ordinal();
+    private static final int FLAGGED = -MoveStatus.FLAGGED.ordinal();
+    private static final int GAME_OVER = -MoveStatus.GAME_OVER.ordinal();
+
     private int rows;
     private int columns;
     private int nbMines;
     private boolean gameOver = false;
-    private boolean gameFinished = false;
 
     private /*final*/ Board board; // Final has been removed to allow testing and mocking
+    private RevealEngine revealEngine;
+    private RevealListener revealListener = RevealListener.NONE;
+    private MoveListener moveListener = MoveListener.NONE;
     private int hitCounter = 0;
+    private final Metrics metrics = Metrics.global();
+    // Prepares the layout on the first reveal, null once done or when the layout is fixed from the start
+    private SafeStartGenerator safeStart;
+    // Generator of the layouts of the games started by reset(long), created on first use
+    private RandomMineLayoutGenerator layoutGenerator;
+    // How the layout was generated, recorded by journals and snapshots so that the game can be rebuilt
+    private long seed = 0;
+    private GenerationMode generationMode = GenerationMode.IMMEDIATE;
+    private long noGuessBudgetMillis = DEFAULT_NO_GUESS_BUDGET_MILLIS;
+    private int noGuessCandidate = NO_GUESS_PENDING;
 
     public Game(int rows, int columns, int nbMines) {
+        this(rows, columns, nbMines, new RandomMineLayoutGenerator());
+    }
+
+    /**
+     * Create a game whose board is generated from a seed, so that it can be replayed
+     * @param rows
+     * @param columns
+     * @param nbMines
+     * @param seed seed of the mine layout
+     */
+    public Game(int rows, int columns, int nbMines, long seed) {
+        this(rows, columns, nbMines, seed, GenerationMode.IMMEDIATE, DEFAULT_NO_GUESS_BUDGET_MILLIS);
+    }
+
+    /**
+     * Create a game whose layout is generated from a seed and adjusted to the first move
+     * @param rows
+     * @param columns
+     * @param nbMines
+     * @param seed seed of the mine layout
+     * @param mode how the layout depends on the first move
+     */
+    public Game(int rows, int columns, int nbMines, long seed, GenerationMode mode) {
+        this(rows, columns, nbMines, seed, mode, DEFAULT_NO_GUESS_BUDGET_MILLIS);
+    }
+
+    /**
+     * Create a game whose layout is generated from a seed and adjusted to the first move
+     * @param rows
+     * @param columns
+     * @param nbMines
+     * @param seed seed of the mine layout
+     * @param mode how the layout depends on the first move
+     * @param noGuessBudgetMillis time allowed to find a layout that can be solved without guessing
+     */
+    public Game(int rows, int columns, int nbMines, long seed, GenerationMode mode, long noGuessBudgetMillis) {
+        this(new Board(rows, columns, nbMines, new RandomMineLayoutGenerator(seed)), seed, mode, noGuessBudgetMillis);
+    }
+
+    /**
+     * Create a game played on an existing board whose layout is adjusted to the first move
+     * @param board board of the game, with no revealed cell
+     * @param seed seed of the adjustments of the layout
+     * @param mode how the layout depends on the first move
+     * @param noGuessBudgetMillis time allowed to find a layout that can be solved without guessing
+     */
+    public Game(Board board, long seed, GenerationMode mode, long noGuessBudgetMillis) {
+        this(board);
+        startLayout(seed, mode, noGuessBudgetMillis);
+    }
+
+    public Game(int rows, int columns, int nbMines, MineLayoutGenerator generator) {
         this.rows = rows;
         this.columns = columns;
         this.nbMines = nbMines;
-        board = new Board(rows, columns, nbMines);
+        board = new Board(rows, columns, nbMines, generator);
+        revealEngine = new RevealEngine(board);
+    }
+
+    /**
+     * Create a game played on an existing board
+     * @param board board of the game
+     */
+    public Game(Board board) {
+        this(board, 0, GameStatus.IN_PROGRESS);
+    }
+
+    /**
+     * Restore a game in play
+     * @param board board of the game, with its revealed cells
+     * @param hitCounter number of moves already played
+     * @param status status of the game, a lost game cannot be played anymore
+     */
+    public Game(Board board, int hitCounter, GameStatus status) {
+        this.rows = board.getWidth();
+        this.columns = board.getHeight();
+        this.nbMines = board.getNbMines();
+        this.board = board;
+        this.revealEngine = new RevealEngine(board);
+        this.hitCounter = hitCounter;
+        this.gameOver = status == GameStatus.LOST;
+    }
+
+    /**
+     * Restore a game in play whose layout was generated from a seed.
+     * The layout is still adjusted to the first move if no cell of the board has been revealed yet.
+     * @param board board of the game, with its revealed cells
+     * @param hitCounter number of moves already played
+     * @param status status of the game, a lost game cannot be played anymore
+     * @param seed seed of the mine layout
+     * @param mode how the layout depends on the first move
+     * @param noGuessBudgetMillis time allowed to find a layout that can be solved without guessing
+     */
+    public Game(Board board, int hitCounter, GameStatus status, long seed, GenerationMode mode, long noGuessBudgetMillis) {
+        this(board, hitCounter, status);
+        startLayout(seed, mode, noGuessBudgetMillis);
+        if(board.getRevealedSafeCells() + board.getRevealedMines() > 0) {
+            safeStart = null;
+        }
+    }
+
+    /**
+     * Create a game on a board taken from the pool of the current thread, allocating close to nothing once the pool
+     * holds a board of that size. Call {@link #release()} when the game is over to give the board back.
+     * The layout is the same as the one of {@link #Game(int, int, int, long)}.
+     * @param rows
+     * @param columns
+     * @param nbMines
+     * @param seed seed of the mine layout
+     * @return the new game
+     */
+    public static Game fromPool(int rows, int columns, int nbMines, long seed) {
+        return new Game(BoardPool.local().acquire(rows, columns, nbMines, seed), seed, GenerationMode.IMMEDIATE, DEFAULT_NO_GUESS_BUDGET_MILLIS);
+    }
+
+    /**
+     * Give the board of the game back to the pool of the current thread. The game must not be used anymore.
+     * @return true if the board was kept by the pool
+     */
+    public boolean release() {
+        return BoardPool.local().release(board);
+    }
+
+    /**
+     * Start a new game on the same board, with a layout generated in place.
+     * The hit counter and the status start over, and the listeners of the previous game are removed.
+     * @param generator generator placing the mines on the board
+     */
+    public void reset(MineLayoutGenerator generator) {
+        board.reset(generator);
+        hitCounter = 0;
+        gameOver = false;
+        safeStart = null;
+        seed = 0;
+        generationMode = GenerationMode.IMMEDIATE;
+        noGuessCandidate = NO_GUESS_PENDING;
+        revealListener = RevealListener.NONE;
+        moveListener = MoveListener.NONE;
+        revealEngine.setListener(revealListener);
+    }
+
+    /**
+     * Start a new game on the same board, with the layout of {@link #Game(int, int, int, long)}
+     * @param seed seed of the mine layout
+     * @see #reset(MineLayoutGenerator)
+     */
+    public void reset(long seed) {
+        reset(seed, GenerationMode.IMMEDIATE, DEFAULT_NO_GUESS_BUDGET_MILLIS);
+    }
+
+    /**
+     * Start a new game on the same board, with a layout generated from a seed and adjusted to the first move
+     * @param seed seed of the mine layout
+     * @param mode how the layout depends on the first move
+     * @param noGuessBudgetMillis time allowed to find a layout that can be solved without guessing
+     * @see #reset(MineLayoutGenerator)
+     */
+    public void reset(long seed, GenerationMode mode, long noGuessBudgetMillis) {
+        if(layoutGenerator == null) {
+            layoutGenerator = new RandomMineLayoutGenerator(seed);
+        }
+        else {
+            layoutGenerator.reseed(seed);
+        }
+        reset(layoutGenerator);
+        startLayout(seed, mode, noGuessBudgetMillis);
+    }
+
+    private void startLayout(long seed, GenerationMode mode, long noGuessBudgetMillis) {
+        this.seed = seed;
+        this.generationMode = mode;
+        this.noGuessBudgetMillis = noGuessBudgetMillis;
+        this.noGuessCandidate = NO_GUESS_PENDING;
+        if(mode != GenerationMode.IMMEDIATE) {
+            safeStart = new SafeStartGenerator(mode, seed, TimeUnit.MILLISECONDS.toNanos(noGuessBudgetMillis), NO_GUESS_PENDING);
+        }
+    }
+
+    /**
+     * Use the no-guess layout chosen by a previous game with the same seed instead of searching it again within the time budget,
+     * so that a replayed game gets the same layout whatever the speed of the machine.
+     * Has no effect once the first cell has been revealed.
+     * @param candidate value of {@link #getNoGuessCandidate()} in the previous game
+     */
+    public void setNoGuessCandidate(int candidate) {
+        if(safeStart != null) {
+            safeStart = new SafeStartGenerator(generationMode, seed, TimeUnit.MILLISECONDS.toNanos(noGuessBudgetMillis), candidate);
+        }
     }
 
     /**
      * Reveal a cell and increase the hit counter
      * @param row
      * @param column
+     * @return the number of cells revealed by this move, including the cascade
      * @throws OutOfBoardException
      * @throws CellAlreadyRevealedException
      */
-    public void revealCell(int row, int column) throws OutOfBoardException, CellAlreadyRevealedException {
-        revealCellInternal(row, column);
-        hitCounter++;
+    public int revealCell(int row, int column) throws OutOfBoardException, CellAlreadyRevealedException {
+        return checkOutcome(play(MoveType.REVEAL, row, column));
     }
 
     /**
@@ -46,52 +266,186 @@ public class Game {
      * Default visibility is used to enable tests
      * @param row
      * @param column
+     * @return the number of cells revealed, including the cascade
      * @throws OutOfBoardException
      * @throws CellAlreadyRevealedException
      */
-    void revealCellInternal(int row, int column) throws OutOfBoardException, CellAlreadyRevealedException {
-        // Cannot reveal a cell if game is over
+    int revealCellInternal(int row, int column) throws OutOfBoardException, CellAlreadyRevealedException {
+        return checkOutcome(apply(MoveType.REVEAL, row, column));
+    }
+
+    /**
+     * Flag a hidden cell as holding a mine and increase the hit counter
+     * @param row
+     * @param column
+     * @return true if the cell got flagged, false if it was already flagged, in which case the move does not count
+     * @throws OutOfBoardException
+     * @throws CellAlreadyRevealedException
+     */
+    public boolean flagCell(int row, int column) throws OutOfBoardException, CellAlreadyRevealedException {
+        return checkOutcome(play(MoveType.FLAG, row, column)) != NO_EFFECT;
+    }
+
+    /**
+     * Remove the flag of a cell and increase the hit counter
+     * @param row
+     * @param column
+     * @return true if the cell was flagged, otherwise the move does not count
+     * @throws OutOfBoardException
+     */
+    public boolean unflagCell(int row, int column) throws OutOfBoardException {
+        return checkOutcome(play(MoveType.UNFLAG, row, column)) != NO_EFFECT;
+    }
+
+    /**
+     * Chord on a revealed number: when as many of its neighbours are flagged as it has adjacent mines,
+     * all its other hidden neighbours are revealed at once, with their cascades. A wrong flag loses the game.
+     * @param row
+     * @param column
+     * @return the number of cells revealed by this move. 0 when the number is not satisfied by its flags
+     * or has no hidden neighbour left, in which case the move does not count.
+     * @throws OutOfBoardException
+     */
+    public int chordCell(int row, int column) throws OutOfBoardException {
+        return Math.max(0, checkOutcome(play(MoveType.CHORD, row, column)));
+    }
+
+    /**
+     * Play a batch of moves in a single pass. Rejected moves are reported in the result instead of throwing,
+     * and the following moves are still played.
+     * @param batch moves to play, in order
+     * @return the outcome of the moves
+     */
+    public BatchResult playMoves(MoveBatch batch) {
+        return playMoves(batch, new BatchResult());
+    }
+
+    /**
+     * Play a batch of moves in a single pass, reusing a result to avoid any allocation
+     * @param batch moves to play, in order
+     * @param result result to fill, its previous content is discarded
+     * @return the result
+     */
+    public BatchResult playMoves(MoveBatch batch, BatchResult result) {
+        int size = batch.size();
+        result.reset(size);
+        for(int move = 0; move < size; move++) {
+            int outcome = play(batch.getType(move), batch.getRow(move), batch.getColumn(move));
+            if(outcome >= 0) {
+                result.moveApplied(move, outcome);
+            }
+            else {
+                result.moveRejected(move, MOVE_STATUSES[-outcome]);
+            }
+        }
+        result.setGameStatus(getStatus());
+        return result;
+    }
+
+    /**
+     * Apply a move, then count it and notify the move listener if it had an effect
+     * @return the outcome of the move, see {@link #apply(MoveType, int, int)}
+     */
+    private int play(MoveType type, int row, int column) {
+        int outcome = apply(type, row, column);
+        if(outcome >= 0) {
+            hitCounter++;
+            moveListener.movePlayed(type, row, column, outcome);
+        }
+        return outcome;
+    }
+
+    /**
+     * Apply a move to the board without throwing any exception
+     * @return the number of cells revealed by the move if it had an effect, otherwise a negative outcome
+     */
+    private int apply(MoveType type, int row, int column) {
+        // Cannot play if game is over
         if(gameOver) {
-            throw new GameOverException();
+            return GAME_OVER;
+        }
+        if(!board.isOnBoard(row, column)) {
+            return OUT_OF_BOARD;
         }
+        int index = board.indexOf(row, column);
+        switch (type) {
+            case REVEAL:
+                return reveal(index);
+            case FLAG:
+                if(board.isRevealed(index)) {
+                    return ALREADY_REVEALED;
+                }
+                return board.flag(index) ? 0 : NO_EFFECT;
+            case UNFLAG:
+                return board.unflag(index) ? 0 : NO_EFFECT;
+            case CHORD:
+                return chord(index);
+            default:
+                throw new IllegalArgumentException("Unknown move type " + type);
+        }
+    }
 
-        Cell cell = board.getCell(row, column).orElseThrow(OutOfBoardException::new);
+    private int reveal(int index) {
         // Cannot reveal a cell that is already revealed
-        if(cell.isRevealed()) {
-            throw new CellAlreadyRevealedException();
+        if(board.isRevealed(index)) {
+            return ALREADY_REVEALED;
+        }
+        if(board.isFlagged(index)) {
+            return FLAGGED;
+        }
+        if(safeStart != null) {
+            safeStart.prepare(board, index);
+            noGuessCandidate = safeStart.getCandidate();
+            safeStart = null;
         }
-        cell.reveal();
 
+        long startTime = metrics.startTimer();
+        int revealedCells = revealEngine.reveal(index);
+        metrics.recordReveal(startTime, revealedCells);
         // Revealing a mine means the game is over
-        if(cell.isMine()) {
+        if(board.isMine(index)) {
             gameOver = true;
         }
-        // If no adjacent mine, also reveal surrounding cells
-        else if(board.countAdjacentMines(row, column) == 0) {
-            ImmutableList<Cell> adjacentCells = board.getAdjacentCells(row, column);
-            for(Cell adjacentCell : adjacentCells) {
-                try {
-                    revealCell(adjacentCell.getRow(), adjacentCell.getColumn());
-                }
-                catch (OutOfBoardException | CellAlreadyRevealedException e) {
-                    // It's no big deal here, it will just prevent further recursion to happen
-                }
-            }
+        return revealedCells;
+    }
+
+    private int chord(int index) {
+        int adjacentMines = board.countAdjacentMines(index);
+        if(!board.isRevealed(index) || adjacentMines == 0 || board.countAdjacentFlags(index) != adjacentMines) {
+            return NO_EFFECT;
+        }
+
+        int revealedMines = board.getRevealedMines();
+        long startTime = metrics.startTimer();
+        int revealedCells = revealEngine.chord(index);
+        metrics.recordReveal(startTime, revealedCells);
+        if(revealedCells == 0) {
+            return NO_EFFECT;
         }
-        gameFinished = determineIfGameIsFinished();
+        if(board.getRevealedMines() != revealedMines) {
+            gameOver = true;
+        }
+        return revealedCells;
     }
 
     /**
-     * Default visibility for tests
-     * @return
+     * Turn the outcome of a rejected move into the exception of the single move API
+     * @return the outcome, if the move was applied or had no effect
      */
-     boolean determineIfGameIsFinished() {
-        for(Cell cell : board.getCells().values()) {
-            if(!cell.isMine() && !cell.isRevealed()) {
-                return false;
-            }
+    private static int checkOutcome(int outcome) {
+        if(outcome == GAME_OVER) {
+            throw new GameOverException();
+        }
+        if(outcome == OUT_OF_BOARD) {
+            throw new OutOfBoardException();
         }
-        return true;
+        if(outcome == ALREADY_REVEALED) {
+            throw new CellAlreadyRevealedException();
+        }
+        if(outcome == FLAGGED) {
+            throw new CellFlaggedException();
+        }
+        return outcome;
     }
 
     public int getRows() {
@@ -110,6 +464,35 @@ public class Game {
         return board;
     }
 
+    /**
+     * @return the seed of the layout, 0 when the game was not generated from a seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return how the layout depends on the first move
+     */
+    public GenerationMode getGenerationMode() {
+        return generationMode;
+    }
+
+    /**
+     * @return time allowed to find a layout that can be solved without guessing, used in {@link GenerationMode#NO_GUESS} mode
+     */
+    public long getNoGuessBudgetMillis() {
+        return noGuessBudgetMillis;
+    }
+
+    /**
+     * @return the index of the candidate layout chosen in {@link GenerationMode#NO_GUESS} mode when the first cell was revealed,
+     * {@link #NO_GUESS_FALLBACK} if none was found in time, {@link #NO_GUESS_PENDING} before the first reveal and in the other modes
+     */
+    public int getNoGuessCandidate() {
+        return noGuessCandidate;
+    }
+
     /**
      * Set the board of the game
      * This is intended to be used only by tests, hence its default visibility
@@ -117,6 +500,25 @@ public class Game {
      */
     void setBoard(Board board) {
         this.board = board;
+        this.revealEngine = new RevealEngine(board);
+        this.revealEngine.setListener(revealListener);
+    }
+
+    /**
+     * Subscribe to the cells revealed by the moves of the game
+     * @param listener listener notified of every revealed cell, cascades included
+     */
+    public void addRevealListener(RevealListener listener) {
+        revealListener = revealListener == RevealListener.NONE ? listener : revealListener.andThen(listener);
+        revealEngine.setListener(revealListener);
+    }
+
+    /**
+     * Subscribe to the moves accepted by the game
+     * @param listener listener notified after each move, once the hit counter and the status are up to date
+     */
+    public void addMoveListener(MoveListener listener) {
+        moveListener = moveListener == MoveListener.NONE ? listener : moveListener.andThen(listener);
     }
 
     public int getHitCounter() {
@@ -127,7 +529,26 @@ public class Game {
         return gameOver;
     }
 
+    /**
+     * The game is finished when every cell without mine has been revealed.
+     * This reads the live counters of the board and does not scan it.
+     * @return true if the player won the game
+     */
     public boolean isGameFinished() {
-        return gameFinished;
+        return !gameOver && board.getRemainingSafeCells() == 0;
+    }
+
+    public GameStatus getStatus() {
+        if(gameOver) {
+            return GameStatus.LOST;
+        }
+        return isGameFinished() ? GameStatus.WON : GameStatus.IN_PROGRESS;
+    }
+
+    /**
+     * @return a snapshot of the counters of the game
+     */
+    public GameStats getStats() {
+        return new GameStats(getStatus(), hitCounter, board.getRevealedSafeCells(), board.getRevealedMines(), board.getRemainingSafeCells(), board.getFlags());
     }
 }
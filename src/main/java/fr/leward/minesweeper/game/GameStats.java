@@ -0,0 +1,59 @@
+package fr.leward.minesweeper.game;
+
+/**
+ * Snapshot of the counters of a game
+ */
+public class GameStats {
+
+    private final GameStatus status;
+    private final int hitCounter;
+    private final int revealedSafeCells;
+    private final int revealedMines;
+    private final int remainingSafeCells;
+    private final int flags;
+
+    public GameStats(GameStatus status, int hitCounter, int revealedSafeCells, int revealedMines, int remainingSafeCells, int flags) {
+        this.status = status;
+        this.hitCounter = hitCounter;
+        this.revealedSafeCells = revealedSafeCells;
+        this.revealedMines = revealedMines;
+        this.remainingSafeCells = remainingSafeCells;
+        this.flags = flags;
+    }
+
+    public GameStatus getStatus() {
+        return status;
+    }
+
+    public int getHitCounter() {
+        return hitCounter;
+    }
+
+    public int getRevealedSafeCells() {
+        return revealedSafeCells;
+    }
+
+    public int getRevealedMines() {
+        return revealedMines;
+    }
+
+    public int getRemainingSafeCells() {
+        return remainingSafeCells;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    @Override
+    public String toString() {
+        return "GameStats{" +
+                "status=" + status +
+                ", hitCounter=" + hitCounter +
+                ", revealedSafeCells=" + revealedSafeCells +
+                ", revealedMines=" + revealedMines +
+                ", remainingSafeCells=" + remainingSafeCells +
+                ", flags=" + flags +
+                '}';
+    }
+}
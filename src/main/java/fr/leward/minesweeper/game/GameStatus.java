@@ -0,0 +1,10 @@
+package fr.leward.minesweeper.game;
+
+/**
+ * Status of a minesweeper game
+ */
+public enum GameStatus {
+    IN_PROGRESS,
+    WON,
+    LOST
+}
@@ -0,0 +1,20 @@
+package fr.leward.minesweeper.game;
+
+/**
+ * How the layout of the mines of a game relates to its first move
+ */
+public enum GenerationMode {
+    /**
+     * Mines are placed when the board is created, the first move can hit a mine
+     */
+    IMMEDIATE,
+    /**
+     * The first revealed cell and its neighbours never hold a mine
+     */
+    FIRST_CLICK_SAFE,
+    /**
+     * Like {@link #FIRST_CLICK_SAFE}, and the game can be won from the first move with deductions only,
+     * unless no such layout is found within the time budget
+     */
+    NO_GUESS
+}
@@ -0,0 +1,78 @@
+package fr.leward.minesweeper.game;
+
+import java.util.Arrays;
+
+/**
+ * A sequence of moves packed in a primitive array, three ints per move: type, row and column.
+ * A batch can be cleared and refilled to play several batches without allocating.
+ */
+public class MoveBatch {
+
+    static final int STRIDE = 3;
+    private static final MoveType[] MOVE_TYPES = MoveType.values();
+
+    private int[] moves;
+    private int size = 0;
+
+    public MoveBatch() {
+        this(64);
+    }
+
+    /**
+     * @param initialCapacity number of moves the batch holds before growing
+     */
+    public MoveBatch(int initialCapacity) {
+        this.moves = new int[Math.max(1, initialCapacity) * STRIDE];
+    }
+
+    public MoveBatch add(MoveType type, int row, int column) {
+        if(size * STRIDE == moves.length) {
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+        int offset = size * STRIDE;
+        moves[offset] = type.ordinal();
+        moves[offset + 1] = row;
+        moves[offset + 2] = column;
+        size++;
+        return this;
+    }
+
+    public MoveBatch reveal(int row, int column) {
+        return add(MoveType.REVEAL, row, column);
+    }
+
+    public MoveBatch flag(int row, int column) {
+        return add(MoveType.FLAG, row, column);
+    }
+
+    public MoveBatch unflag(int row, int column) {
+        return add(MoveType.UNFLAG, row, column);
+    }
+
+    public MoveBatch chord(int row, int column) {
+        return add(MoveType.CHORD, row, column);
+    }
+
+    public MoveType getType(int move) {
+        return MOVE_TYPES[moves[move * STRIDE]];
+    }
+
+    public int getRow(int move) {
+        return moves[move * STRIDE + 1];
+    }
+
+    public int getColumn(int move) {
+        return moves[move * STRIDE + 2];
+    }
+
+    /**
+     * @return the number of moves of the batch
+     */
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
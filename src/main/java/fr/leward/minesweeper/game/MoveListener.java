@@ -0,0 +1,25 @@
+package fr.leward.minesweeper.game;
+
+/**
+ * Listener notified of every move accepted by a game, once its effects are applied
+ */
+@FunctionalInterface
+public interface MoveListener {
+
+    MoveListener NONE = (type, row, column, revealedCells) -> { };
+
+    /**
+     * @param type kind of move
+     * @param row row of the cell targeted by the move
+     * @param column column of the cell targeted by the move
+     * @param revealedCells number of cells revealed by the move
+     */
+    void movePlayed(MoveType type, int row, int column, int revealedCells);
+
+    default MoveListener andThen(MoveListener next) {
+        return (type, row, column, revealedCells) -> {
+            movePlayed(type, row, column, revealedCells);
+            next.movePlayed(type, row, column, revealedCells);
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package fr.leward.minesweeper.game;
+
+/**
+ * Outcome of a move played in a batch, see {@link Game#playMoves(MoveBatch, BatchResult)}
+ */
+public enum MoveStatus {
+    /**
+     * The move was applied and counted
+     */
+    APPLIED,
+    /**
+     * The move was valid but changed nothing, such as flagging a flagged cell or chording an unsatisfied number.
+     * It is not counted.
+     */
+    NO_EFFECT,
+    OUT_OF_BOARD,
+    ALREADY_REVEALED,
+    /**
+     * The cell to reveal is flagged
+     */
+    FLAGGED,
+    GAME_OVER
+}
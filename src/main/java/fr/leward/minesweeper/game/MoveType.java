@@ -0,0 +1,14 @@
+package fr.leward.minesweeper.game;
+
+/**
+ * Kind of move played by a player
+ */
+public enum MoveType {
+    REVEAL,
+    FLAG,
+    UNFLAG,
+    /**
+     * Reveal the unflagged neighbours of a revealed number that has as many flags around it
+     */
+    CHORD
+}
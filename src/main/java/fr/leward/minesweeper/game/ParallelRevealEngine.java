@@ -0,0 +1,192 @@
+package fr.leward.minesweeper.game;
+
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.util.IntQueue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cascade engine splitting the flood fill of huge empty regions across a {@link ForkJoinPool}.
+ *
+ * A cascade starts sequentially. Once it revealed more cells than the sequential threshold, its frontier is
+ * split by square tiles of the board and each tile is flooded by its own task. A task reveals cells across
+ * the border of its tile and hands the empty ones over to a task of the neighbouring tile. Cells are claimed
+ * through the thread-safe revealed state of the board, so tasks never reveal a cell twice and the revealed set
+ * is the same as the one of the sequential {@link RevealEngine}.
+ */
+class ParallelRevealEngine {
+
+    static final int DEFAULT_TILE_SIZE = 256;
+
+    private final Board board;
+    private final ForkJoinPool pool;
+    private final int sequentialThreshold;
+    private final int tileSize;
+    private final int tilesPerRow;
+
+    /**
+     * @param board a thread-safe board
+     * @param pool pool running the tile tasks
+     * @param sequentialThreshold number of cells revealed sequentially before the cascade is split
+     * @param tileSize size of the side of the tiles
+     */
+    ParallelRevealEngine(Board board, ForkJoinPool pool, int sequentialThreshold, int tileSize) {
+        if(!board.isThreadSafe()) {
+            throw new IllegalArgumentException("A parallel cascade needs a thread-safe board");
+        }
+        this.board = board;
+        this.pool = pool;
+        this.sequentialThreshold = sequentialThreshold;
+        this.tileSize = tileSize;
+        this.tilesPerRow = (board.getHeight() + tileSize - 1) / tileSize;
+    }
+
+    /**
+     * Reveal the empty region around a cell that has just been revealed
+     * @param index index of the revealed cell
+     * @param listener listener notified of the revealed cells, from the threads of the pool
+     * @return the number of cells revealed by the cascade, the starting cell excluded
+     */
+    int cascade(int index, RevealListener listener) {
+        if(board.isMine(index) || board.countAdjacentMines(index) != 0) {
+            return 0;
+        }
+
+        // Sequential phase, most cascades end here
+        int revealedCells = 0;
+        IntQueue queue = new IntQueue();
+        int[] neighbours = new int[8];
+        queue.add(index);
+        while(!queue.isEmpty() && revealedCells < sequentialThreshold) {
+            int nbNeighbours = board.neighbours(queue.poll(), neighbours);
+            for(int i = 0; i < nbNeighbours; i++) {
+                int neighbour = neighbours[i];
+                if(!board.isFlagged(neighbour) && board.reveal(neighbour)) {
+                    listener.cellRevealed(neighbour);
+                    revealedCells++;
+                    if(board.countAdjacentMines(neighbour) == 0) {
+                        queue.add(neighbour);
+                    }
+                }
+            }
+        }
+        if(queue.isEmpty()) {
+            return revealedCells;
+        }
+
+        // Parallel phase, the remaining frontier is flooded tile by tile
+        LongAdder parallelRevealedCells = new LongAdder();
+        pool.invoke(new FrontierTask(queue, listener, parallelRevealedCells));
+        return revealedCells + parallelRevealedCells.intValue();
+    }
+
+    private int tileOf(int index) {
+        int row = index / board.getHeight();
+        int column = index % board.getHeight();
+        return (row / tileSize) * tilesPerRow + column / tileSize;
+    }
+
+    /**
+     * Root task forking one tile task per tile of the frontier
+     */
+    private class FrontierTask extends CountedCompleter<Void> {
+
+        private final IntQueue frontier;
+        private final RevealListener listener;
+        private final LongAdder revealedCells;
+
+        FrontierTask(IntQueue frontier, RevealListener listener, LongAdder revealedCells) {
+            this.frontier = frontier;
+            this.listener = listener;
+            this.revealedCells = revealedCells;
+        }
+
+        @Override
+        public void compute() {
+            Map<Integer, IntQueue> seedsByTile = new HashMap<>();
+            while(!frontier.isEmpty()) {
+                int index = frontier.poll();
+                seedsByTile.computeIfAbsent(tileOf(index), tile -> new IntQueue()).add(index);
+            }
+            for(Map.Entry<Integer, IntQueue> entry : seedsByTile.entrySet()) {
+                addToPendingCount(1);
+                new TileTask(this, entry.getKey(), entry.getValue(), listener, revealedCells).fork();
+            }
+            tryComplete();
+        }
+    }
+
+    /**
+     * Flood fill restricted to a tile. Empty cells found in the neighbouring tiles are handed over to new tasks.
+     */
+    private class TileTask extends CountedCompleter<Void> {
+
+        private final int tile;
+        private final IntQueue queue;
+        private final RevealListener listener;
+        private final LongAdder revealedCells;
+
+        TileTask(CountedCompleter<?> parent, int tile, IntQueue seeds, RevealListener listener, LongAdder revealedCells) {
+            super(parent);
+            this.tile = tile;
+            this.queue = seeds;
+            this.listener = listener;
+            this.revealedCells = revealedCells;
+        }
+
+        @Override
+        public void compute() {
+            int width = board.getWidth();
+            int height = board.getHeight();
+            int firstRow = (tile / tilesPerRow) * tileSize;
+            int firstColumn = (tile % tilesPerRow) * tileSize;
+            int lastRow = Math.min(width, firstRow + tileSize) - 1;
+            int lastColumn = Math.min(height, firstColumn + tileSize) - 1;
+
+            // Empty cells of the 8 neighbouring tiles, indexed by their direction
+            IntQueue[] outbound = new IntQueue[9];
+            int revealed = 0;
+            int[] neighbours = new int[8];
+            while(!queue.isEmpty()) {
+                int nbNeighbours = board.neighbours(queue.poll(), neighbours);
+                for(int i = 0; i < nbNeighbours; i++) {
+                    int neighbour = neighbours[i];
+                    if(board.isFlagged(neighbour) || !board.reveal(neighbour)) {
+                        continue;
+                    }
+                    listener.cellRevealed(neighbour);
+                    revealed++;
+                    if(board.countAdjacentMines(neighbour) != 0) {
+                        continue;
+                    }
+                    int r = neighbour / height;
+                    int c = neighbour - r * height;
+                    if(r >= firstRow && r <= lastRow && c >= firstColumn && c <= lastColumn) {
+                        queue.add(neighbour);
+                    }
+                    else {
+                        int direction = (r < firstRow ? 0 : r > lastRow ? 2 : 1) * 3
+                                + (c < firstColumn ? 0 : c > lastColumn ? 2 : 1);
+                        if(outbound[direction] == null) {
+                            outbound[direction] = new IntQueue();
+                        }
+                        outbound[direction].add(neighbour);
+                    }
+                }
+            }
+            revealedCells.add(revealed);
+
+            for(IntQueue seeds : outbound) {
+                if(seeds != null) {
+                    addToPendingCount(1);
+                    new TileTask(this, tileOf(seeds.peek()), seeds, listener, revealedCells).fork();
+                }
+            }
+            tryComplete();
+        }
+    }
+}
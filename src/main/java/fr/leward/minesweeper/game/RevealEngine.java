@@ -0,0 +1,109 @@
+package fr.leward.minesweeper.game;
+
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.components.ZeroRegionIndex;
+import fr.leward.minesweeper.util.IntQueue;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Reveal cells of a board and cascade through the cells that have no adjacent mine.
+ * The cascade is an iterative flood fill over a reusable queue of cell indexes, so it neither recurses
+ * nor allocates per cell. When the board keeps a {@link ZeroRegionIndex} and holds no flag, the empty region
+ * is revealed in bulk instead.
+ */
+class RevealEngine {
+
+    private final Board board;
+    private final IntQueue queue = new IntQueue();
+    private final int[] neighbours = new int[8];
+    private RevealListener listener = RevealListener.NONE;
+    private final IntConsumer notifier = index -> listener.cellRevealed(index);
+
+    RevealEngine(Board board) {
+        this.board = board;
+    }
+
+    /**
+     * Reveal a hidden cell and, if it has no adjacent mine, all the cells of its empty region.
+     * The caller is responsible for checking that the cell is on the board and not revealed yet.
+     * @param index index of the cell to reveal
+     * @return the number of cells that got revealed
+     */
+    int reveal(int index) {
+        board.reveal(index);
+        listener.cellRevealed(index);
+        return 1 + cascade(index);
+    }
+
+    /**
+     * Reveal the empty region around a cell that has just been revealed.
+     * On a thread-safe board, cells revealed concurrently by other threads are left to their cascade.
+     * @param index index of the revealed cell
+     * @return the number of cells revealed by the cascade, the starting cell excluded
+     */
+    int cascade(int index) {
+        if(board.isMine(index) || board.countAdjacentMines(index) != 0) {
+            return 0;
+        }
+        ZeroRegionIndex regions = board.getZeroRegionIndex();
+        // Flags stop the flood fill, which the precomputed regions do not know about
+        if(regions != null && board.getFlags() == 0) {
+            return board.revealRegion(regions.regionOf(index), listener == RevealListener.NONE ? null : notifier);
+        }
+        queue.clear();
+        queue.add(index);
+        return drain();
+    }
+
+    /**
+     * Reveal at once every hidden and unflagged neighbour of a revealed cell, then the empty regions of those
+     * neighbours in a single pass over the work queue.
+     * The caller is responsible for checking that the number of the cell is satisfied by its adjacent flags.
+     * @param index index of the revealed cell
+     * @return the number of cells that got revealed, mines included
+     */
+    int chord(int index) {
+        int revealedCells = 0;
+        queue.clear();
+        int nbNeighbours = board.neighbours(index, neighbours);
+        for(int i = 0; i < nbNeighbours; i++) {
+            int neighbour = neighbours[i];
+            if(!board.isFlagged(neighbour) && board.reveal(neighbour)) {
+                listener.cellRevealed(neighbour);
+                revealedCells++;
+                if(!board.isMine(neighbour) && board.countAdjacentMines(neighbour) == 0) {
+                    queue.add(neighbour);
+                }
+            }
+        }
+        return revealedCells + drain();
+    }
+
+    /**
+     * Flood fill from the empty cells of the work queue, leaving flagged cells hidden
+     * @return the number of cells revealed
+     */
+    private int drain() {
+        int revealedCells = 0;
+        while(!queue.isEmpty()) {
+            int nbNeighbours = board.neighbours(queue.poll(), neighbours);
+            for(int i = 0; i < nbNeighbours; i++) {
+                int neighbour = neighbours[i];
+                // Neighbours of an empty cell are never mines
+                if(!board.isFlagged(neighbour) && board.reveal(neighbour)) {
+                    listener.cellRevealed(neighbour);
+                    revealedCells++;
+                    if(board.countAdjacentMines(neighbour) == 0) {
+                        queue.add(neighbour);
+                    }
+                }
+            }
+        }
+        return revealedCells;
+    }
+
+    void setListener(RevealListener listener) {
+        this.listener = listener;
+    }
+}
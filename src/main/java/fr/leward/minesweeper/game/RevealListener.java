@@ -0,0 +1,22 @@
+package fr.leward.minesweeper.game;
+
+/**
+ * Listener notified of every cell revealed during a game, including the cells revealed by a cascade
+ */
+@FunctionalInterface
+public interface RevealListener {
+
+    RevealListener NONE = index -> { };
+
+    /**
+     * @param index index of the revealed cell on the board
+     */
+    void cellRevealed(int index);
+
+    default RevealListener andThen(RevealListener next) {
+        return index -> {
+            cellRevealed(index);
+            next.cellRevealed(index);
+        };
+    }
+}
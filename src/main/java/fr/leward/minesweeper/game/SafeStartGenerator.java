@@ -0,0 +1,152 @@
+package fr.leward.minesweeper.game;
+
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.components.RandomMineLayoutGenerator;
+import fr.leward.minesweeper.solver.Solver;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Prepare the layout of a board when its first cell is revealed, see {@link GenerationMode}.
+ *
+ * A first-click-safe layout is obtained by moving the mines of the safe zone, the first cell and its neighbours,
+ * to random cells outside of it. When the board is too dense to leave the whole zone empty, only the first cell is kept safe.
+ *
+ * A no-guess layout is searched among candidate layouts derived from the seed, made first-click-safe and played
+ * by the {@link Solver} from the first cell. Candidates are evaluated in parallel by waves of fixed size and the
+ * lowest solvable candidate of the first successful wave is kept, so the chosen layout only depends on the seed
+ * and the first move. The time budget is only checked before starting a wave, a wave is always evaluated completely
+ * whatever the speed of the machine and the number of threads. When the budget runs out, the board is only made first-click-safe.
+ * How many waves fit in the budget still depends on the machine, so the outcome of the search is kept as the index of the
+ * chosen candidate, and a replayed game gets the same layout by regenerating that candidate instead of searching again.
+ */
+class SafeStartGenerator {
+
+    static final int WAVE_SIZE = 16;
+
+    private final GenerationMode mode;
+    private final long seed;
+    private final long timeBudgetNanos;
+    private int candidate;
+
+    /**
+     * @param mode how the layout depends on the first move
+     * @param seed seed of the layout
+     * @param timeBudgetNanos time allowed to search a no-guess layout
+     * @param candidate index of the no-guess candidate to use, {@link Game#NO_GUESS_FALLBACK} to only make the board
+     *                  first-click-safe, or {@link Game#NO_GUESS_PENDING} to search it within the time budget
+     */
+    SafeStartGenerator(GenerationMode mode, long seed, long timeBudgetNanos, int candidate) {
+        this.mode = mode;
+        this.seed = seed;
+        this.timeBudgetNanos = timeBudgetNanos;
+        this.candidate = candidate;
+    }
+
+    /**
+     * @return the index of the no-guess candidate used by {@link #prepare(Board, int)}, see {@link Game#getNoGuessCandidate()}
+     */
+    int getCandidate() {
+        return candidate;
+    }
+
+    /**
+     * Change the layout of a board on which no cell has been revealed yet
+     * @param board board to prepare
+     * @param index index of the first cell to reveal
+     */
+    void prepare(Board board, int index) {
+        if(mode == GenerationMode.NO_GUESS) {
+            if(candidate == Game.NO_GUESS_PENDING) {
+                candidate = findNoGuessCandidate(board, index);
+            }
+            if(candidate != Game.NO_GUESS_FALLBACK) {
+                moveMinesTo(board, BitSet.valueOf(candidate(board, index, candidate).getMineWords()));
+                return;
+            }
+        }
+        clearSafeZone(board, index, new SplittableRandom(seed));
+    }
+
+    /**
+     * @return the index of a candidate that can be solved without guessing from the first cell,
+     * or {@link Game#NO_GUESS_FALLBACK} if none was found in time
+     */
+    private int findNoGuessCandidate(Board board, int index) {
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        int row = index / board.getHeight();
+        int column = index % board.getHeight();
+        for(int wave = 0; System.nanoTime() < deadline; wave++) {
+            int first = wave * WAVE_SIZE;
+            int solvable = IntStream.range(first, first + WAVE_SIZE)
+                    .parallel()
+                    .filter(candidate -> Solver.solvesWithoutGuessing(new Game(candidate(board, index, candidate)), row, column))
+                    .min()
+                    .orElse(-1);
+            if(solvable >= 0) {
+                return solvable;
+            }
+        }
+        return Game.NO_GUESS_FALLBACK;
+    }
+
+    /**
+     * Move the mines of a board to match a layout with the same number of mines, keeping the flags of the board
+     */
+    private static void moveMinesTo(Board board, BitSet layout) {
+        BitSet current = BitSet.valueOf(board.getMineWords());
+        BitSet toRemove = (BitSet) current.clone();
+        toRemove.andNot(layout);
+        BitSet toAdd = (BitSet) layout.clone();
+        toAdd.andNot(current);
+        int height = board.getHeight();
+        for(int from = toRemove.nextSetBit(0), to = toAdd.nextSetBit(0); from >= 0; from = toRemove.nextSetBit(from + 1), to = toAdd.nextSetBit(to + 1)) {
+            board.moveMine(from / height, from % height, to / height, to % height);
+        }
+    }
+
+    private Board candidate(Board board, int index, int candidate) {
+        long candidateSeed = seed + (candidate + 1) * 0x9E3779B97F4A7C15L;
+        Board layout = new Board(board.getWidth(), board.getHeight(), board.getNbMines(), new RandomMineLayoutGenerator(candidateSeed));
+        clearSafeZone(layout, index, new SplittableRandom(candidateSeed));
+        return layout;
+    }
+
+    /**
+     * Move the mines of the safe zone around a cell to random cells outside of it
+     */
+    static void clearSafeZone(Board board, int index, SplittableRandom random) {
+        int[] zone = new int[9];
+        int zoneSize = board.neighbours(index, zone);
+        zone[zoneSize++] = index;
+        if(board.getNbMines() > board.getSize() - zoneSize) {
+            // Too dense, only the first cell can be kept safe
+            zone[0] = index;
+            zoneSize = 1;
+        }
+
+        int height = board.getHeight();
+        for(int i = 0; i < zoneSize; i++) {
+            int from = zone[i];
+            if(!board.isMine(from)) {
+                continue;
+            }
+            int to;
+            do {
+                to = random.nextInt(board.getSize());
+            } while(board.isMine(to) || isInZone(zone, zoneSize, to));
+            board.moveMine(from / height, from % height, to / height, to % height);
+        }
+    }
+
+    private static boolean isInZone(int[] zone, int zoneSize, int index) {
+        for(int i = 0; i < zoneSize; i++) {
+            if(zone[i] == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,103 @@
+package fr.leward.minesweeper.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non negative long values with a bounded relative error, in the manner of HdrHistogram.
+ *
+ * Values below 64 have their own bucket. Above, every power of two is split in 32 linear buckets,
+ * so a value is reported with a relative error below 1/32 over the whole range of longs, with less than 2000 buckets.
+ * Recording is a few shifts and an atomic increment, and never allocates.
+ */
+public class LogHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if(value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        long currentMax;
+        while(value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value)) {
+            // Retry until the max is at least the value
+        }
+    }
+
+    static int indexOf(long value) {
+        if(value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - SUB_BUCKET_BITS + 1;
+        int subBucket = (int) (value >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + subBucket - HALF_SUB_BUCKETS;
+    }
+
+    /**
+     * @return the highest value counted in a bucket
+     */
+    static long highestValueOf(int index) {
+        if(index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * Compute a percentile from the values recorded so far. It can be called while values are still being recorded.
+     * @param percentile percentile between 0 and 100
+     * @return the highest value equivalent to the requested percentile, never above the max, 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        for(int index = 0; index < BUCKETS; index++) {
+            total += counts.get(index);
+        }
+        long threshold = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long cumulated = 0;
+        for(int index = 0; index < BUCKETS; index++) {
+            cumulated += counts.get(index);
+            if(cumulated >= threshold) {
+                return Math.min(highestValueOf(index), getMax());
+            }
+        }
+        return 0;
+    }
+
+    public void reset() {
+        for(int index = 0; index < BUCKETS; index++) {
+            counts.set(index, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+}
@@ -0,0 +1,139 @@
+package fr.leward.minesweeper.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and size histograms of the hot operations: reveals with their cascades, board generation and rendering.
+ *
+ * Instrumented code reads the global instance once, when it is created, and calls {@link #startTimer()}
+ * before the operation and one of the {@code record} methods after it. While metrics are disabled the global
+ * instance is {@link #NOOP}, which neither reads the clock nor records anything.
+ * Metrics are enabled at startup with the {@code minesweeper.metrics} system property, or with {@link #enable()}.
+ */
+public class Metrics {
+
+    public static final Metrics NOOP = new Metrics(false);
+
+    private static volatile Metrics global = Boolean.getBoolean("minesweeper.metrics") ? new Metrics(true) : NOOP;
+
+    private final boolean enabled;
+    private final LogHistogram revealLatency = new LogHistogram();
+    private final LogHistogram cascadeSize = new LogHistogram();
+    private final LogHistogram generationLatency = new LogHistogram();
+    private final LogHistogram renderLatency = new LogHistogram();
+
+    public Metrics() {
+        this(true);
+    }
+
+    private Metrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the metrics objects created from now on record into
+     */
+    public static Metrics global() {
+        return global;
+    }
+
+    /**
+     * Enable the global metrics, keeping the values recorded so far if they were already enabled
+     * @return the global metrics
+     */
+    public static synchronized Metrics enable() {
+        if(global == NOOP) {
+            global = new Metrics(true);
+        }
+        return global;
+    }
+
+    /**
+     * Disable the global metrics. Objects created before keep recording into the previous instance.
+     */
+    public static synchronized void disable() {
+        global = NOOP;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the start time of an operation in nanoseconds, 0 when disabled
+     */
+    public long startTimer() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Record a reveal or a chord
+     * @param startTime value of {@link #startTimer()} before the move
+     * @param revealedCells number of cells revealed by the move, cascades included
+     */
+    public void recordReveal(long startTime, int revealedCells) {
+        if(enabled) {
+            revealLatency.record(System.nanoTime() - startTime);
+            cascadeSize.record(revealedCells);
+        }
+    }
+
+    /**
+     * Record the generation of a board
+     * @param startTime value of {@link #startTimer()} before the generation
+     */
+    public void recordGeneration(long startTime) {
+        if(enabled) {
+            generationLatency.record(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Record the rendering of a board
+     * @param startTime value of {@link #startTimer()} before the rendering
+     */
+    public void recordRender(long startTime) {
+        if(enabled) {
+            renderLatency.record(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * @return latencies of the reveals, in nanoseconds
+     */
+    public LogHistogram getRevealLatency() {
+        return revealLatency;
+    }
+
+    /**
+     * @return number of cells revealed per reveal
+     */
+    public LogHistogram getCascadeSize() {
+        return cascadeSize;
+    }
+
+    /**
+     * @return latencies of the board generations, in nanoseconds
+     */
+    public LogHistogram getGenerationLatency() {
+        return generationLatency;
+    }
+
+    /**
+     * @return latencies of the renderings, in nanoseconds
+     */
+    public LogHistogram getRenderLatency() {
+        return renderLatency;
+    }
+
+    public void reset() {
+        revealLatency.reset();
+        cascadeSize.reset();
+        generationLatency.reset();
+        renderLatency.reset();
+    }
+
+    static double toMicros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+}
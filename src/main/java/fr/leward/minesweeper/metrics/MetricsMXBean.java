@@ -0,0 +1,39 @@
+package fr.leward.minesweeper.metrics;
+
+/**
+ * JMX view of the {@link Metrics}, latencies in microseconds
+ */
+public interface MetricsMXBean {
+
+    long getReveals();
+
+    double getRevealLatencyMeanMicros();
+
+    double getRevealLatencyP50Micros();
+
+    double getRevealLatencyP99Micros();
+
+    double getRevealLatencyP999Micros();
+
+    double getRevealLatencyMaxMicros();
+
+    double getCascadeSizeMean();
+
+    long getCascadeSizeP99();
+
+    long getCascadeSizeMax();
+
+    long getGenerations();
+
+    double getGenerationLatencyP50Micros();
+
+    double getGenerationLatencyP99Micros();
+
+    long getRenders();
+
+    double getRenderLatencyP50Micros();
+
+    double getRenderLatencyP99Micros();
+
+    void reset();
+}
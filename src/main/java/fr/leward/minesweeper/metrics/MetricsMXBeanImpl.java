@@ -0,0 +1,118 @@
+package fr.leward.minesweeper.metrics;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+
+import static fr.leward.minesweeper.metrics.Metrics.toMicros;
+
+/**
+ * Expose a {@link Metrics} instance through JMX
+ */
+public class MetricsMXBeanImpl implements MetricsMXBean {
+
+    public static final String OBJECT_NAME = "fr.leward.minesweeper:type=Metrics";
+
+    private final Metrics metrics;
+
+    public MetricsMXBeanImpl(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Register the metrics in the platform MBean server, replacing the metrics registered before
+     * @param metrics metrics to expose
+     */
+    public static void register(Metrics metrics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if(server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(new MetricsMXBeanImpl(metrics), name);
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("Cannot register the metrics MBean", e);
+        }
+    }
+
+    @Override
+    public long getReveals() {
+        return metrics.getRevealLatency().getCount();
+    }
+
+    @Override
+    public double getRevealLatencyMeanMicros() {
+        return metrics.getRevealLatency().getMean() / 1000;
+    }
+
+    @Override
+    public double getRevealLatencyP50Micros() {
+        return toMicros(metrics.getRevealLatency().getValueAtPercentile(50));
+    }
+
+    @Override
+    public double getRevealLatencyP99Micros() {
+        return toMicros(metrics.getRevealLatency().getValueAtPercentile(99));
+    }
+
+    @Override
+    public double getRevealLatencyP999Micros() {
+        return toMicros(metrics.getRevealLatency().getValueAtPercentile(99.9));
+    }
+
+    @Override
+    public double getRevealLatencyMaxMicros() {
+        return toMicros(metrics.getRevealLatency().getMax());
+    }
+
+    @Override
+    public double getCascadeSizeMean() {
+        return metrics.getCascadeSize().getMean();
+    }
+
+    @Override
+    public long getCascadeSizeP99() {
+        return metrics.getCascadeSize().getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getCascadeSizeMax() {
+        return metrics.getCascadeSize().getMax();
+    }
+
+    @Override
+    public long getGenerations() {
+        return metrics.getGenerationLatency().getCount();
+    }
+
+    @Override
+    public double getGenerationLatencyP50Micros() {
+        return toMicros(metrics.getGenerationLatency().getValueAtPercentile(50));
+    }
+
+    @Override
+    public double getGenerationLatencyP99Micros() {
+        return toMicros(metrics.getGenerationLatency().getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getRenders() {
+        return metrics.getRenderLatency().getCount();
+    }
+
+    @Override
+    public double getRenderLatencyP50Micros() {
+        return toMicros(metrics.getRenderLatency().getValueAtPercentile(50));
+    }
+
+    @Override
+    public double getRenderLatencyP99Micros() {
+        return toMicros(metrics.getRenderLatency().getValueAtPercentile(99));
+    }
+
+    @Override
+    public void reset() {
+        metrics.reset();
+    }
+}
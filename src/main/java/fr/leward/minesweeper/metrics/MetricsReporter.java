@@ -0,0 +1,92 @@
+package fr.leward.minesweeper.metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Periodically append the percentiles of the {@link Metrics} to a CSV file or print them as text.
+ * Every report holds one line per histogram. The reporter runs on its own daemon thread.
+ */
+public class MetricsReporter implements Closeable {
+
+    static final String CSV_HEADER = "timestamp,metric,count,mean,p50,p90,p99,p999,max";
+
+    private final Metrics metrics;
+    private final PrintStream out;
+    private final boolean csv;
+    private final ScheduledExecutorService scheduler;
+
+    private MetricsReporter(Metrics metrics, PrintStream out, boolean csv, long period, TimeUnit unit) {
+        this.metrics = metrics;
+        this.out = out;
+        this.csv = csv;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::report, period, period, unit);
+    }
+
+    /**
+     * Append reports to a CSV file, writing the header if the file is new
+     */
+    public static MetricsReporter csv(Metrics metrics, Path path, long period, TimeUnit unit) {
+        try {
+            boolean newFile = !Files.exists(path) || Files.size(path) == 0;
+            PrintStream out = new PrintStream(Files.newOutputStream(path, CREATE, WRITE, APPEND), true, StandardCharsets.UTF_8.name());
+            if(newFile) {
+                out.println(CSV_HEADER);
+            }
+            return new MetricsReporter(metrics, out, true, period, unit);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Print reports as text
+     */
+    public static MetricsReporter text(Metrics metrics, PrintStream out, long period, TimeUnit unit) {
+        return new MetricsReporter(metrics, out, false, period, unit);
+    }
+
+    /**
+     * Write a report now
+     */
+    public void report() {
+        long timestamp = System.currentTimeMillis();
+        report(timestamp, "reveal.latency.ns", metrics.getRevealLatency());
+        report(timestamp, "reveal.cascade.cells", metrics.getCascadeSize());
+        report(timestamp, "generation.latency.ns", metrics.getGenerationLatency());
+        report(timestamp, "render.latency.ns", metrics.getRenderLatency());
+        out.flush();
+    }
+
+    private void report(long timestamp, String name, LogHistogram histogram) {
+        String format = csv ? "%d,%s,%d,%.1f,%d,%d,%d,%d,%d%n" : "%d %-22s count=%d mean=%.1f p50=%d p90=%d p99=%d p999=%d max=%d%n";
+        out.printf(Locale.ROOT, format, timestamp, name, histogram.getCount(), histogram.getMean(),
+                histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90), histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9), histogram.getMax());
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        if(csv) {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package fr.leward.minesweeper.persistence;
+
+/**
+ * When the records of a journal are forced to the storage device
+ */
+public enum FsyncPolicy {
+    /**
+     * Records are written when a batch is full and the operating system decides when they reach the device
+     */
+    NEVER,
+    /**
+     * Records are written and forced to the device when a batch is full
+     */
+    BATCH,
+    /**
+     * Every record is written and forced to the device before the move returns
+     */
+    EVERY_MOVE
+}
@@ -0,0 +1,208 @@
+package fr.leward.minesweeper.persistence;
+
+import fr.leward.minesweeper.components.BitStore;
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.components.PlainBitStore;
+import fr.leward.minesweeper.exception.InvalidSnapshotException;
+import fr.leward.minesweeper.game.Game;
+import fr.leward.minesweeper.game.GameStatus;
+import fr.leward.minesweeper.game.GenerationMode;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Binary snapshot of a game, saved and loaded through memory-mapped files.
+ *
+ * The format is little-endian and made of a 48 bytes header followed by three bit planes
+ * of {@code ceil(rows * columns / 64)} longs each, indexed like the cells of the board:
+ * <pre>
+ * offset  size  content
+ *      0     4  magic number "MSWP"
+ *      4     2  format version
+ *      6     2  reserved, 0
+ *      8     4  rows
+ *     12     4  columns
+ *     16     4  number of mines
+ *     20     4  hit counter
+ *     24     1  status: 0 in progress, 1 won, 2 lost
+ *     25     1  generation mode
+ *     26     2  reserved, 0
+ *     28     4  no-guess budget, in milliseconds
+ *     32     8  seed of the mine layout
+ *     40     8  reserved, 0
+ *     48        mine bits, revealed bits, flag bits
+ * </pre>
+ * The generation mode is the ordinal of the {@link GenerationMode} of the game. A game saved before its first reveal
+ * gets its layout adjusted to the first move once loaded, like the original game.
+ * Version 1 snapshots have a 32 bytes header ending after the status and are loaded in {@link GenerationMode#IMMEDIATE} mode.
+ *
+ * Planes are copied word by word between the mapped file and the board, no cell is parsed on its own.
+ */
+public class GameSnapshot {
+
+    static final int MAGIC = 0x5057534D; // "MSWP" in little-endian
+    static final short VERSION = 2;
+    static final int HEADER_SIZE = 48;
+    static final int VERSION_1_HEADER_SIZE = 32;
+
+    private static final GameStatus[] STATUSES = GameStatus.values();
+    private static final GenerationMode[] GENERATION_MODES = GenerationMode.values();
+
+    private GameSnapshot() {
+    }
+
+    /**
+     * Save a game to a file, replacing it.
+     * The snapshot is written to a temporary file of the same directory, which then replaces the file with an atomic move,
+     * so that a crash while saving leaves the previous snapshot intact.
+     * @param game game to save
+     * @param path file receiving the snapshot
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(Game game, Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            write(game, temporary);
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void write(Game game, Path path) throws IOException {
+        Board board = game.getBoard();
+        int wordCount = (board.getSize() + 63) >>> 6;
+        long fileSize = HEADER_SIZE + 3L * wordCount * Long.BYTES;
+        try(FileChannel channel = FileChannel.open(path, CREATE, READ, WRITE, TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC);
+            buffer.putShort(VERSION);
+            buffer.putShort((short) 0);
+            buffer.putInt(board.getWidth());
+            buffer.putInt(board.getHeight());
+            buffer.putInt(board.getNbMines());
+            buffer.putInt(game.getHitCounter());
+            buffer.put((byte) game.getStatus().ordinal());
+            buffer.put((byte) game.getGenerationMode().ordinal());
+            buffer.putShort((short) 0);
+            buffer.putInt((int) Math.min(Integer.MAX_VALUE, game.getNoGuessBudgetMillis()));
+            buffer.putLong(game.getSeed());
+            buffer.position(HEADER_SIZE);
+
+            LongBuffer planes = buffer.asLongBuffer();
+            planes.put(board.getMineWords());
+            BitStore revealed = board.getRevealedStore();
+            for(int wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+                planes.put(revealed.word(wordIndex));
+            }
+            BitStore flagged = board.getFlaggedStore();
+            for(int wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+                planes.put(flagged.word(wordIndex));
+            }
+            buffer.force();
+        }
+    }
+
+    /**
+     * Load a game from a file
+     * @param path file holding the snapshot
+     * @return the restored game
+     * @throws IOException if the file cannot be read
+     * @throws InvalidSnapshotException if the file is not a valid snapshot or uses an unknown version of the format
+     */
+    public static Game load(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, READ)) {
+            if(channel.size() < VERSION_1_HEADER_SIZE) {
+                throw new InvalidSnapshotException("File is too small to be a snapshot");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if(buffer.getInt() != MAGIC) {
+                throw new InvalidSnapshotException("File is not a snapshot");
+            }
+            short version = buffer.getShort();
+            if(version < 1 || version > VERSION) {
+                throw new InvalidSnapshotException("Unsupported snapshot version " + version);
+            }
+            int headerSize = version == 1 ? VERSION_1_HEADER_SIZE : HEADER_SIZE;
+            if(channel.size() < headerSize) {
+                throw new InvalidSnapshotException("File is too small to be a snapshot");
+            }
+            buffer.getShort();
+            int rows = buffer.getInt();
+            int columns = buffer.getInt();
+            int nbMines = buffer.getInt();
+            int hitCounter = buffer.getInt();
+            byte statusOrdinal = buffer.get();
+            if(statusOrdinal < 0 || statusOrdinal >= STATUSES.length) {
+                throw new InvalidSnapshotException("Unknown game status " + statusOrdinal);
+            }
+            GameStatus status = STATUSES[statusOrdinal];
+            GenerationMode mode = GenerationMode.IMMEDIATE;
+            int noGuessBudgetMillis = 0;
+            long seed = 0;
+            if(version > 1) {
+                byte modeOrdinal = buffer.get();
+                if(modeOrdinal < 0 || modeOrdinal >= GENERATION_MODES.length) {
+                    throw new InvalidSnapshotException("Unknown generation mode " + modeOrdinal);
+                }
+                mode = GENERATION_MODES[modeOrdinal];
+                buffer.getShort();
+                noGuessBudgetMillis = buffer.getInt();
+                seed = buffer.getLong();
+            }
+            if(rows <= 0 || columns <= 0 || (long) rows * columns > Integer.MAX_VALUE) {
+                throw new InvalidSnapshotException("Invalid board of " + rows + " rows and " + columns + " columns");
+            }
+
+            int size = rows * columns;
+            int wordCount = (int) ((size + 63L) >>> 6);
+            if(channel.size() < headerSize + 3L * wordCount * Long.BYTES) {
+                throw new InvalidSnapshotException("Snapshot is truncated");
+            }
+            buffer.position(headerSize);
+            LongBuffer planes = buffer.asLongBuffer();
+            // The bits of the last word past the last cell must be clear in every plane
+            if((size & 63) != 0) {
+                long padding = -1L << size;
+                for(int plane = 0; plane < 3; plane++) {
+                    if((planes.get((plane + 1) * wordCount - 1) & padding) != 0) {
+                        throw new InvalidSnapshotException("Snapshot holds bits past the last cell of the board");
+                    }
+                }
+            }
+
+            LongBuffer mineWords = planes.duplicate();
+            mineWords.limit(wordCount);
+            BitSet mines = BitSet.valueOf(mineWords);
+            if(mines.cardinality() != nbMines) {
+                throw new InvalidSnapshotException("Snapshot holds " + mines.cardinality() + " mines instead of " + nbMines);
+            }
+            if(nbMines >= size) {
+                throw new InvalidSnapshotException("Snapshot holds a board full of mines");
+            }
+            PlainBitStore revealed = new PlainBitStore(size);
+            for(int wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+                revealed.setWord(wordIndex, planes.get(wordCount + wordIndex));
+            }
+            PlainBitStore flagged = new PlainBitStore(size);
+            for(int wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+                flagged.setWord(wordIndex, planes.get(2 * wordCount + wordIndex));
+            }
+            return new Game(new Board(rows, columns, mines, revealed, flagged), hitCounter, status, seed, mode, noGuessBudgetMillis);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package fr.leward.minesweeper.persistence;
+
+import fr.leward.minesweeper.exception.CellAlreadyRevealedException;
+import fr.leward.minesweeper.exception.CellFlaggedException;
+import fr.leward.minesweeper.exception.GameOverException;
+import fr.leward.minesweeper.exception.InvalidJournalException;
+import fr.leward.minesweeper.exception.OutOfBoardException;
+import fr.leward.minesweeper.game.Game;
+import fr.leward.minesweeper.game.GameStatus;
+import fr.leward.minesweeper.game.GenerationMode;
+import fr.leward.minesweeper.game.MoveType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Rebuild games from a {@link MoveJournal}, either from the seed of the board or from a snapshot.
+ * Moves are applied as fast as the game plays them, and every move is checked against the outcome that was recorded.
+ */
+public class JournalReplayer {
+
+    private static final MoveType[] MOVE_TYPES = MoveType.values();
+    private static final GameStatus[] STATUSES = GameStatus.values();
+    private static final GenerationMode[] GENERATION_MODES = GenerationMode.values();
+
+    private JournalReplayer() {
+    }
+
+    /**
+     * Rebuild a game from the seed of its board, in its generation mode, and all the moves of its journal
+     * @param journal file of the journal
+     * @return the game, in the state reached by its last valid move
+     * @throws IOException if the journal cannot be read
+     * @throws InvalidJournalException if the journal is not valid or a move does not have the recorded outcome
+     */
+    public static Game replay(Path journal) throws IOException {
+        MoveJournal.Header header = readHeader(journal);
+        Game game = new Game(header.rows, header.columns, header.nbMines, header.seed, header.mode, header.noGuessBudgetMillis);
+        game.setNoGuessCandidate(header.noGuessCandidate);
+        apply(journal, header, game);
+        return game;
+    }
+
+    /**
+     * Rebuild a game from a snapshot and the moves of its journal played after the snapshot was taken
+     * @param journal file of the journal
+     * @param snapshot snapshot of the game, see {@link GameSnapshot}
+     * @return the game, in the state reached by its last valid move
+     * @throws IOException if the journal or the snapshot cannot be read
+     * @throws InvalidJournalException if the journal is not valid or a move does not have the recorded outcome
+     */
+    public static Game replay(Path journal, Path snapshot) throws IOException {
+        MoveJournal.Header header = readHeader(journal);
+        Game game = GameSnapshot.load(snapshot);
+        if(header.rows != game.getRows() || header.columns != game.getColumns() || header.nbMines != game.getNbMines()) {
+            throw new InvalidJournalException("The snapshot belongs to another game");
+        }
+        // Layout still to be chosen when the snapshot was taken before the first reveal
+        game.setNoGuessCandidate(header.noGuessCandidate);
+        apply(journal, header, game);
+        return game;
+    }
+
+    /**
+     * Apply the moves of a journal that the game has not played yet
+     */
+    private static void apply(Path journal, MoveJournal.Header header, Game game) throws IOException {
+        try(FileChannel channel = FileChannel.open(journal, READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            CRC32 checksum = new CRC32();
+            for(int position = header.size; isValidRecord(buffer, position, checksum); position += MoveJournal.RECORD_SIZE) {
+                int moveNumber = buffer.getInt(position);
+                if(moveNumber <= game.getHitCounter()) {
+                    // Move already part of the snapshot
+                    continue;
+                }
+                if(moveNumber != game.getHitCounter() + 1) {
+                    throw new InvalidJournalException("Move " + (game.getHitCounter() + 1) + " is missing from the journal");
+                }
+                MoveType type = MOVE_TYPES[buffer.get(position + 4)];
+                GameStatus status = STATUSES[buffer.get(position + 5)];
+                int row = buffer.getInt(position + 8);
+                int column = buffer.getInt(position + 12);
+                int revealedCells = buffer.getInt(position + 16);
+
+                int replayedRevealedCells;
+                try {
+                    switch (type) {
+                        case REVEAL:
+                            replayedRevealedCells = game.revealCell(row, column);
+                            break;
+                        case FLAG:
+                            replayedRevealedCells = game.flagCell(row, column) ? 0 : -1;
+                            break;
+                        case UNFLAG:
+                            replayedRevealedCells = game.unflagCell(row, column) ? 0 : -1;
+                            break;
+                        case CHORD:
+                            replayedRevealedCells = game.chordCell(row, column);
+                            break;
+                        default:
+                            throw new InvalidJournalException("Unknown move type " + type);
+                    }
+                }
+                catch (OutOfBoardException | CellAlreadyRevealedException | CellFlaggedException | GameOverException e) {
+                    throw new InvalidJournalException("Move " + moveNumber + " was rejected by the game: " + e.getMessage());
+                }
+                if(replayedRevealedCells != revealedCells || game.getStatus() != status) {
+                    throw new InvalidJournalException("Move " + moveNumber + " does not have the recorded outcome");
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of complete records with a valid checksum at the beginning of the journal
+     */
+    static int countValidRecords(Path journal, int headerSize) throws IOException {
+        try(FileChannel channel = FileChannel.open(journal, READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32 checksum = new CRC32();
+            int count = 0;
+            while(isValidRecord(buffer, headerSize + count * MoveJournal.RECORD_SIZE, checksum)) {
+                count++;
+            }
+            return count;
+        }
+    }
+
+    private static boolean isValidRecord(ByteBuffer buffer, int position, CRC32 checksum) {
+        if(position + MoveJournal.RECORD_SIZE > buffer.limit()) {
+            return false;
+        }
+        ByteBuffer record = buffer.duplicate();
+        record.position(position).limit(position + MoveJournal.CHECKSUM_OFFSET);
+        checksum.reset();
+        checksum.update(record);
+        int expected = buffer.order(ByteOrder.LITTLE_ENDIAN).getInt(position + MoveJournal.CHECKSUM_OFFSET);
+        return (int) checksum.getValue() == expected;
+    }
+
+    static MoveJournal.Header readHeader(Path journal) throws IOException {
+        try(FileChannel channel = FileChannel.open(journal, READ)) {
+            ByteBuffer header = ByteBuffer.allocate(MoveJournal.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.limit(MoveJournal.VERSION_2_HEADER_SIZE);
+            readFully(channel, header);
+            if(header.getInt(0) != MoveJournal.MAGIC) {
+                throw new InvalidJournalException("File is not a journal");
+            }
+            short version = header.getShort(4);
+            if(version < 1 || version > MoveJournal.VERSION) {
+                throw new InvalidJournalException("Unsupported journal version " + version);
+            }
+            int size = version < 3 ? MoveJournal.VERSION_2_HEADER_SIZE : MoveJournal.HEADER_SIZE;
+            header.limit(size);
+            readFully(channel, header);
+            header.position(6);
+            short mode = header.getShort();
+            if(mode < 0 || mode >= GENERATION_MODES.length) {
+                throw new InvalidJournalException("Unknown generation mode " + mode);
+            }
+            int rows = header.getInt();
+            int columns = header.getInt();
+            int nbMines = header.getInt();
+            int noGuessBudgetMillis = header.getInt();
+            long seed = header.getLong();
+            int noGuessCandidate = Game.NO_GUESS_PENDING;
+            if(version >= 3) {
+                noGuessCandidate = header.getInt();
+                if(noGuessCandidate < Game.NO_GUESS_PENDING) {
+                    throw new InvalidJournalException("Invalid no-guess candidate " + noGuessCandidate);
+                }
+            }
+            return new MoveJournal.Header(rows, columns, nbMines, seed, GENERATION_MODES[mode], noGuessBudgetMillis, noGuessCandidate, size);
+        }
+    }
+
+    /**
+     * Read the bytes of the file up to the limit of the buffer
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // Read the whole header
+        }
+        if(buffer.hasRemaining()) {
+            throw new InvalidJournalException("File is too small to be a journal");
+        }
+    }
+}
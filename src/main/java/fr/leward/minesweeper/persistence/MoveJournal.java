@@ -0,0 +1,245 @@
+package fr.leward.minesweeper.persistence;
+
+import fr.leward.minesweeper.exception.InvalidJournalException;
+import fr.leward.minesweeper.game.Game;
+import fr.leward.minesweeper.game.GenerationMode;
+import fr.leward.minesweeper.game.MoveListener;
+import fr.leward.minesweeper.game.MoveType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Append-only journal of the moves of a game.
+ *
+ * The file is little-endian: a 40 bytes header followed by fixed size records of 32 bytes.
+ * <pre>
+ * header                               record
+ * offset  size  content                offset  size  content
+ *      0     4  magic number "MSWJ"         0     4  move number, the hit counter after the move
+ *      4     2  format version              4     1  move type
+ *      6     2  generation mode             5     1  status of the game after the move
+ *      8     4  rows                        6     2  reserved, 0
+ *     12     4  columns                     8     4  row
+ *     16     4  number of mines            12     4  column
+ *     20     4  no-guess budget, in ms     16     4  number of revealed cells
+ *     24     8  seed of the mine layout    20     8  timestamp, in milliseconds since the epoch
+ *     32     4  no-guess candidate         28     4  CRC32 of the first 28 bytes of the record
+ *     36     4  reserved, 0
+ * </pre>
+ * The generation mode is the ordinal of the {@link GenerationMode} of the game. Version 1 journals, which did not
+ * record it, hold 0 in these fields and are replayed in {@link GenerationMode#IMMEDIATE} mode.
+ *
+ * The no-guess candidate is the layout chosen in {@link GenerationMode#NO_GUESS} mode, see {@link Game#getNoGuessCandidate()}.
+ * It is only known once the first cell is revealed, and is then written over the header. Replaying it gives the same
+ * layout whatever the time the search would take on the replaying machine. Version 1 and 2 journals have a 32 bytes
+ * header without it, and search the layout again within the budget.
+ *
+ * Records are gathered in batches before being written, see {@link FsyncPolicy}. A record torn by a crash
+ * fails its checksum and marks the end of the journal. Games are rebuilt with {@link JournalReplayer}.
+ */
+public class MoveJournal implements MoveListener, Closeable {
+
+    static final int MAGIC = 0x4A57534D; // "MSWJ" in little-endian
+    static final short VERSION = 3;
+    static final int HEADER_SIZE = 40;
+    static final int VERSION_2_HEADER_SIZE = 32;
+    static final int NO_GUESS_CANDIDATE_OFFSET = 32;
+    static final int RECORD_SIZE = 32;
+    static final int CHECKSUM_OFFSET = 28;
+
+    private final FileChannel channel;
+    private final Game game;
+    private final FsyncPolicy fsyncPolicy;
+    private final ByteBuffer batch;
+    private final CRC32 checksum = new CRC32();
+    // False until the no-guess candidate of the game is written in the header, when it has to be
+    private boolean candidateRecorded;
+
+    private MoveJournal(FileChannel channel, Game game, int batchSize, FsyncPolicy fsyncPolicy, boolean candidateRecorded) {
+        this.channel = channel;
+        this.game = game;
+        this.fsyncPolicy = fsyncPolicy;
+        this.candidateRecorded = candidateRecorded;
+        this.batch = ByteBuffer.allocateDirect(batchSize * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Create a new journal for a game that has not been played yet, and subscribe it to the moves of the game
+     * @param path file of the journal, replaced if it exists
+     * @param game game to record, generated from its seed in its generation mode
+     * @param batchSize number of records written at once
+     * @param fsyncPolicy when the records are forced to the storage device
+     * @return the journal
+     * @throws IOException if the file cannot be written
+     */
+    public static MoveJournal create(Path path, Game game, int batchSize, FsyncPolicy fsyncPolicy) throws IOException {
+        FileChannel channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC);
+        header.putShort(VERSION);
+        header.putShort((short) game.getGenerationMode().ordinal());
+        header.putInt(game.getRows());
+        header.putInt(game.getColumns());
+        header.putInt(game.getNbMines());
+        header.putInt((int) Math.min(Integer.MAX_VALUE, game.getNoGuessBudgetMillis()));
+        header.putLong(game.getSeed());
+        header.putInt(game.getNoGuessCandidate());
+        header.putInt(0);
+        header.flip();
+        while(header.hasRemaining()) {
+            channel.write(header);
+        }
+        if(fsyncPolicy != FsyncPolicy.NEVER) {
+            channel.force(true);
+        }
+        return attach(new MoveJournal(channel, game, batchSize, fsyncPolicy, isCandidateKnown(game.getGenerationMode(), game.getNoGuessCandidate())));
+    }
+
+    /**
+     * Continue an existing journal, for instance with a game recovered by {@link JournalReplayer}.
+     * A record torn by a crash at the end of the file is discarded.
+     * @param path file of the journal
+     * @param game game to record, in the state reached by the moves of the journal
+     * @param batchSize number of records written at once
+     * @param fsyncPolicy when the records are forced to the storage device
+     * @return the journal
+     * @throws IOException if the file cannot be read or written
+     * @throws InvalidJournalException if the journal does not belong to a game of the same size
+     */
+    public static MoveJournal resume(Path path, Game game, int batchSize, FsyncPolicy fsyncPolicy) throws IOException {
+        Header header = JournalReplayer.readHeader(path);
+        if(header.rows != game.getRows() || header.columns != game.getColumns() || header.nbMines != game.getNbMines()) {
+            throw new InvalidJournalException("The journal belongs to another game");
+        }
+        FileChannel channel = FileChannel.open(path, WRITE);
+        channel.truncate(header.size + (long) JournalReplayer.countValidRecords(path, header.size) * RECORD_SIZE);
+        channel.position(channel.size());
+        // Older journals have no room for the candidate
+        boolean candidateRecorded = header.size < HEADER_SIZE || isCandidateKnown(header.mode, header.noGuessCandidate);
+        return attach(new MoveJournal(channel, game, batchSize, fsyncPolicy, candidateRecorded));
+    }
+
+    private static boolean isCandidateKnown(GenerationMode mode, int noGuessCandidate) {
+        return mode != GenerationMode.NO_GUESS || noGuessCandidate != Game.NO_GUESS_PENDING;
+    }
+
+    private static MoveJournal attach(MoveJournal journal) {
+        journal.game.addMoveListener(journal);
+        return journal;
+    }
+
+    @Override
+    public void movePlayed(MoveType type, int row, int column, int revealedCells) {
+        if(!candidateRecorded && game.getNoGuessCandidate() != Game.NO_GUESS_PENDING) {
+            try {
+                recordNoGuessCandidate();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        int start = batch.position();
+        batch.putInt(game.getHitCounter());
+        batch.put((byte) type.ordinal());
+        batch.put((byte) game.getStatus().ordinal());
+        batch.putShort((short) 0);
+        batch.putInt(row);
+        batch.putInt(column);
+        batch.putInt(revealedCells);
+        batch.putLong(System.currentTimeMillis());
+        ByteBuffer record = batch.duplicate();
+        record.position(start).limit(start + CHECKSUM_OFFSET);
+        checksum.reset();
+        checksum.update(record);
+        batch.putInt((int) checksum.getValue());
+
+        if(!batch.hasRemaining() || fsyncPolicy == FsyncPolicy.EVERY_MOVE) {
+            try {
+                flush();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Write the no-guess candidate chosen by the first reveal in the header, before the record of the move
+     */
+    private void recordNoGuessCandidate() throws IOException {
+        ByteBuffer candidate = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        candidate.putInt(game.getNoGuessCandidate());
+        candidate.flip();
+        while(candidate.hasRemaining()) {
+            channel.write(candidate, NO_GUESS_CANDIDATE_OFFSET + candidate.position());
+        }
+        if(fsyncPolicy != FsyncPolicy.NEVER) {
+            channel.force(false);
+        }
+        candidateRecorded = true;
+    }
+
+    /**
+     * Write the pending records, and force them to the device unless the policy is {@link FsyncPolicy#NEVER}
+     * @throws IOException if the records cannot be written
+     */
+    public void flush() throws IOException {
+        if(batch.position() == 0) {
+            return;
+        }
+        batch.flip();
+        while(batch.hasRemaining()) {
+            channel.write(batch);
+        }
+        batch.clear();
+        if(fsyncPolicy != FsyncPolicy.NEVER) {
+            channel.force(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            channel.force(false);
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Header of a journal
+     */
+    static class Header {
+        final int rows;
+        final int columns;
+        final int nbMines;
+        final long seed;
+        final GenerationMode mode;
+        final int noGuessBudgetMillis;
+        final int noGuessCandidate;
+        // Offset of the first record
+        final int size;
+
+        Header(int rows, int columns, int nbMines, long seed, GenerationMode mode, int noGuessBudgetMillis, int noGuessCandidate, int size) {
+            this.rows = rows;
+            this.columns = columns;
+            this.nbMines = nbMines;
+            this.seed = seed;
+            this.mode = mode;
+            this.noGuessBudgetMillis = noGuessBudgetMillis;
+            this.noGuessCandidate = noGuessCandidate;
+            this.size = size;
+        }
+    }
+}
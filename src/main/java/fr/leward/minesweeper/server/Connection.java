@@ -0,0 +1,261 @@
+package fr.leward.minesweeper.server;
+
+import fr.leward.minesweeper.cli.FrameWriter;
+import fr.leward.minesweeper.cli.InputReader;
+import fr.leward.minesweeper.exception.InvalidSnapshotException;
+import fr.leward.minesweeper.game.BatchResult;
+import fr.leward.minesweeper.game.Game;
+import fr.leward.minesweeper.game.GameStats;
+import fr.leward.minesweeper.game.MoveBatch;
+import fr.leward.minesweeper.game.MoveType;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Session of a client, served by its own thread. See {@link GameServer} for the protocol.
+ * The requests already received are handled before the responses are written, so pipelined requests
+ * are answered by a single write.
+ */
+class Connection implements Runnable {
+
+    private final Socket socket;
+    private final GameRegistry registry;
+    private final GameServer server;
+
+    // Reused from one request to the next
+    private final long[] arguments = new long[4];
+    private final MoveBatch batch = new MoveBatch(1);
+    private final BatchResult result = new BatchResult();
+
+    Connection(Socket socket, GameRegistry registry, GameServer server) {
+        this.socket = socket;
+        this.registry = registry;
+        this.server = server;
+    }
+
+    @Override
+    public void run() {
+        try(Socket s = socket; InputReader in = new InputReader(s.getInputStream())) {
+            FrameWriter out = new FrameWriter(s.getOutputStream());
+            boolean open = true;
+            String line;
+            while(open && (line = in.readLine()) != null) {
+                open = handle(line, out);
+                while(open && (line = in.pollLine()) != null) {
+                    open = handle(line, out);
+                }
+                out.flush();
+            }
+        }
+        catch (IOException e) {
+            // The client went away, or the server is closing
+        }
+        finally {
+            server.connectionClosed(socket);
+        }
+    }
+
+    /**
+     * Handle a request and append its response.
+     * A request failing unexpectedly is answered with an error, so that the responses of the other requests are still sent.
+     * @return false if the client asked to close the connection
+     */
+    boolean handle(String line, FrameWriter out) {
+        try {
+            return dispatch(line, out);
+        }
+        catch (RuntimeException e) {
+            error(out, "INTERNAL");
+            return true;
+        }
+    }
+
+    private boolean dispatch(String line, FrameWriter out) {
+        int end = line.indexOf(' ');
+        String command = end < 0 ? line.trim() : line.substring(0, end);
+        int nbArguments = end < 0 ? 0 : parseArguments(line, end);
+
+        switch(command.toUpperCase()) {
+            case "NEW":
+                newGame(nbArguments, out);
+                break;
+            case "REVEAL":
+                move(MoveType.REVEAL, nbArguments, out);
+                break;
+            case "FLAG":
+                move(MoveType.FLAG, nbArguments, out);
+                break;
+            case "UNFLAG":
+                move(MoveType.UNFLAG, nbArguments, out);
+                break;
+            case "CHORD":
+                move(MoveType.CHORD, nbArguments, out);
+                break;
+            case "STATUS":
+                status(nbArguments, out);
+                break;
+            case "CLOSE":
+                close(nbArguments, out);
+                break;
+            case "QUIT":
+                out.append("OK").newLine();
+                return false;
+            default:
+                error(out, "INVALID_COMMAND");
+        }
+        return true;
+    }
+
+    private void newGame(int nbArguments, FrameWriter out) {
+        if(nbArguments != 3 && nbArguments != 4) {
+            error(out, "INVALID_ARGUMENTS");
+            return;
+        }
+        long rows = arguments[0];
+        long columns = arguments[1];
+        long nbMines = arguments[2];
+        // Each side is bounded first so that their product cannot overflow
+        if(rows < 1 || columns < 1 || rows > GameServer.MAX_CELLS || columns > GameServer.MAX_CELLS
+                || rows * columns > GameServer.MAX_CELLS || nbMines < 0 || nbMines >= rows * columns) {
+            error(out, "INVALID_ARGUMENTS");
+            return;
+        }
+        long seed = nbArguments == 4 ? arguments[3] : ThreadLocalRandom.current().nextLong();
+        long id = registry.add(new Game((int) rows, (int) columns, (int) nbMines, seed));
+        out.append("OK ").append(Long.toString(id)).newLine();
+    }
+
+    private void move(MoveType type, int nbArguments, FrameWriter out) {
+        if(nbArguments != 3) {
+            error(out, "INVALID_ARGUMENTS");
+            return;
+        }
+        GameSession session = registry.get(arguments[0]);
+        if(session == null) {
+            error(out, "UNKNOWN_GAME");
+            return;
+        }
+        batch.clear();
+        batch.add(type, toCoordinate(arguments[1]), toCoordinate(arguments[2]));
+        synchronized(session) {
+            Game game = loadGame(session, out);
+            if(game == null) {
+                return;
+            }
+            game.playMoves(batch, result);
+        }
+        out.append("OK ").append(result.getStatus(0).name())
+                .append(' ').append(result.getRevealedCells())
+                .append(' ').append(result.getGameStatus().name()).newLine();
+    }
+
+    private void status(int nbArguments, FrameWriter out) {
+        if(nbArguments != 1) {
+            error(out, "INVALID_ARGUMENTS");
+            return;
+        }
+        GameSession session = registry.get(arguments[0]);
+        if(session == null) {
+            error(out, "UNKNOWN_GAME");
+            return;
+        }
+        GameStats stats;
+        synchronized(session) {
+            Game game = loadGame(session, out);
+            if(game == null) {
+                return;
+            }
+            stats = game.getStats();
+        }
+        out.append("OK ").append(stats.getStatus().name())
+                .append(' ').append(stats.getHitCounter())
+                .append(' ').append(stats.getRevealedSafeCells())
+                .append(' ').append(stats.getRemainingSafeCells())
+                .append(' ').append(stats.getFlags()).newLine();
+    }
+
+    private void close(int nbArguments, FrameWriter out) {
+        if(nbArguments != 1) {
+            error(out, "INVALID_ARGUMENTS");
+            return;
+        }
+        try {
+            if(registry.remove(arguments[0])) {
+                out.append("OK").newLine();
+            }
+            else {
+                error(out, "UNKNOWN_GAME");
+            }
+        }
+        catch (IOException e) {
+            error(out, "IO");
+        }
+    }
+
+    /**
+     * @return the game of a session, null if its snapshot could not be read, in which case the error is already answered
+     */
+    private Game loadGame(GameSession session, FrameWriter out) {
+        try {
+            return session.game();
+        }
+        catch (InvalidSnapshotException e) {
+            error(out, "INVALID_SNAPSHOT");
+        }
+        catch (IOException e) {
+            error(out, "IO");
+        }
+        return null;
+    }
+
+    private static void error(FrameWriter out, String reason) {
+        out.append("ERR ").append(reason).newLine();
+    }
+
+    /**
+     * Coordinates that do not fit in an int are outside of any board
+     */
+    private static int toCoordinate(long value) {
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? -1 : (int) value;
+    }
+
+    /**
+     * Parse the integers following the command, separated by spaces
+     * @return the number of integers parsed, -1 if the line holds anything else
+     */
+    private int parseArguments(String line, int position) {
+        int nbArguments = 0;
+        int length = line.length();
+        while(true) {
+            while(position < length && line.charAt(position) == ' ') {
+                position++;
+            }
+            if(position == length) {
+                return nbArguments;
+            }
+            if(nbArguments == arguments.length) {
+                return -1;
+            }
+            boolean negative = line.charAt(position) == '-';
+            if(negative) {
+                position++;
+            }
+            int start = position;
+            long value = 0;
+            while(position < length && line.charAt(position) >= '0' && line.charAt(position) <= '9') {
+                int digit = line.charAt(position) - '0';
+                if(value > (Long.MAX_VALUE - digit) / 10) {
+                    return -1;
+                }
+                value = value * 10 + digit;
+                position++;
+            }
+            if(position == start || (position < length && line.charAt(position) != ' ')) {
+                return -1;
+            }
+            arguments[nbArguments++] = negative ? -value : value;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package fr.leward.minesweeper.server;
+
+import fr.leward.minesweeper.game.Game;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Games hosted by the server, by id. Idle games are evicted to snapshot files in a directory.
+ */
+class GameRegistry {
+
+    private final ConcurrentHashMap<Long, GameSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final LongAdder evictions = new LongAdder();
+    private final Path snapshotDirectory;
+
+    GameRegistry(Path snapshotDirectory) {
+        this.snapshotDirectory = snapshotDirectory;
+    }
+
+    /**
+     * @return the id of the new game
+     */
+    long add(Game game) {
+        long id = nextId.getAndIncrement();
+        sessions.put(id, new GameSession(id, game, snapshotDirectory.resolve(id + ".snapshot")));
+        return id;
+    }
+
+    /**
+     * @return the session of a game, null if there is no such game
+     */
+    GameSession get(long id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * Remove a game, and its snapshot if it was evicted
+     * @return true if the game existed
+     */
+    boolean remove(long id) throws IOException {
+        GameSession session = sessions.remove(id);
+        if(session == null) {
+            return false;
+        }
+        synchronized(session) {
+            session.discard();
+        }
+        return true;
+    }
+
+    /**
+     * Evict the games that have not been used for a while
+     * @param idleNanos time since the last use after which a game is evicted
+     * @return the number of evicted games
+     */
+    int evictIdle(long idleNanos) {
+        long idleSince = System.nanoTime() - idleNanos;
+        int evicted = 0;
+        for(GameSession session : sessions.values()) {
+            // Checked without the lock first, so that games in use do not block the eviction
+            if(!session.isLoaded() || session.getLastAccessNanos() - idleSince > 0) {
+                continue;
+            }
+            synchronized(session) {
+                try {
+                    if(sessions.containsKey(session.getId()) && session.evictIfIdle(idleSince)) {
+                        evicted++;
+                        evictions.increment();
+                    }
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return evicted;
+    }
+
+    int size() {
+        return sessions.size();
+    }
+
+    int loadedCount() {
+        int loaded = 0;
+        for(GameSession session : sessions.values()) {
+            if(session.isLoaded()) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    Path getSnapshotDirectory() {
+        return snapshotDirectory;
+    }
+
+    long getEvictions() {
+        return evictions.sum();
+    }
+}
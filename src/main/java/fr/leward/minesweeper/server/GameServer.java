@@ -0,0 +1,197 @@
+package fr.leward.minesweeper.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TCP server hosting many games on the loopback interface.
+ * Each connection is served by its own thread: a virtual thread when the JVM provides them, otherwise a pooled platform thread.
+ * Games that have not been used for a while are written to snapshot files and loaded back on their next request.
+ *
+ * The protocol is line based: every request gets a response line, in order, so requests can be pipelined.
+ * Responses start with {@code OK}, or with {@code ERR} followed by the reason of the failure,
+ * {@code ERR INTERNAL} for a request that failed unexpectedly.
+ * <ul>
+ *     <li>{@code NEW <rows> <columns> <mines> [seed]}: {@code OK <game>}</li>
+ *     <li>{@code REVEAL|FLAG|UNFLAG|CHORD <game> <row> <column>}: {@code OK <move status> <revealed cells> <game status>}</li>
+ *     <li>{@code STATUS <game>}: {@code OK <game status> <moves> <revealed safe cells> <remaining safe cells> <flags>}</li>
+ *     <li>{@code CLOSE <game>}: {@code OK}, the game is discarded</li>
+ *     <li>{@code QUIT}: {@code OK}, the connection is closed</li>
+ * </ul>
+ * Games are shared: any connection can play any game knowing its id.
+ */
+public class GameServer implements Closeable {
+
+    /**
+     * Largest board the server accepts
+     */
+    public static final long MAX_CELLS = 1 << 24;
+
+    private final int requestedPort;
+    private final GameRegistry registry;
+    private final long idleTimeoutNanos;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+    private ExecutorService connectionExecutor;
+    private ScheduledExecutorService evictionScheduler;
+    private volatile boolean closed = false;
+
+    /**
+     * @param port port to listen to, 0 to pick a free one
+     * @param snapshotDirectory directory holding the snapshots of the evicted games
+     * @param idleTimeout time after which an unused game is evicted, 0 to never evict games
+     * @param unit unit of the timeout
+     */
+    public GameServer(int port, Path snapshotDirectory, long idleTimeout, TimeUnit unit) {
+        this.requestedPort = port;
+        this.registry = new GameRegistry(snapshotDirectory);
+        this.idleTimeoutNanos = unit.toNanos(idleTimeout);
+    }
+
+    /**
+     * Start listening. The call returns once the server accepts connections.
+     * @return this server
+     * @throws IOException if the port cannot be bound or the snapshot directory cannot be created
+     */
+    public GameServer start() throws IOException {
+        Files.createDirectories(registry.getSnapshotDirectory());
+        serverSocket = new ServerSocket(requestedPort, 1024, InetAddress.getLoopbackAddress());
+        connectionExecutor = newConnectionExecutor();
+        if(idleTimeoutNanos > 0) {
+            long period = Math.max(TimeUnit.MILLISECONDS.toNanos(1), idleTimeoutNanos / 2);
+            evictionScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "game-server-eviction");
+                thread.setDaemon(true);
+                return thread;
+            });
+            evictionScheduler.scheduleAtFixedRate(this::evictIdleGames, period, period, TimeUnit.NANOSECONDS);
+        }
+        acceptor = new Thread(this::acceptConnections, "game-server-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return this;
+    }
+
+    private void acceptConnections() {
+        while(!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                connectionExecutor.execute(new Connection(socket, registry, this));
+            }
+            catch (IOException e) {
+                // The server socket got closed
+            }
+        }
+    }
+
+    void connectionClosed(Socket socket) {
+        connections.remove(socket);
+    }
+
+    /**
+     * @return an executor starting a virtual thread per task when the JVM supports them, a cached thread pool otherwise
+     */
+    private static ExecutorService newConnectionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "game-server-connection-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * @return true if connections are served by virtual threads
+     */
+    public static boolean usesVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        }
+        catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Evict the games that have been idle for longer than the timeout. Called periodically once the server is started,
+     * unless the timeout is 0, in which case a call evicts every game not in use.
+     * @return the number of evicted games
+     */
+    public int evictIdleGames() {
+        try {
+            return registry.evictIdle(idleTimeoutNanos);
+        }
+        catch (UncheckedIOException e) {
+            // The games that could not be written stay in memory, the next run tries again
+            return 0;
+        }
+    }
+
+    /**
+     * @return the port the server listens to
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getGameCount() {
+        return registry.size();
+    }
+
+    public int getLoadedGameCount() {
+        return registry.loadedCount();
+    }
+
+    public long getEvictions() {
+        return registry.getEvictions();
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * Stop accepting connections and close the open ones. Evicted games keep their snapshots.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if(serverSocket != null) {
+            serverSocket.close();
+        }
+        if(evictionScheduler != null) {
+            evictionScheduler.shutdownNow();
+        }
+        for(Socket socket : connections) {
+            socket.close();
+        }
+        if(connectionExecutor != null) {
+            connectionExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package fr.leward.minesweeper.server;
+
+import fr.leward.minesweeper.game.Game;
+import fr.leward.minesweeper.persistence.GameSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Game hosted by the server. An idle game is written to a snapshot and dropped from memory,
+ * then loaded again by the next request that needs it.
+ * Callers synchronize on the session while they use its game.
+ */
+class GameSession {
+
+    private final long id;
+    private final Path snapshotPath;
+    private volatile Game game;
+    private volatile long lastAccessNanos;
+
+    GameSession(long id, Game game, Path snapshotPath) {
+        this.id = id;
+        this.game = game;
+        this.snapshotPath = snapshotPath;
+        this.lastAccessNanos = System.nanoTime();
+    }
+
+    /**
+     * @return the game, loaded from its snapshot if it was evicted
+     * @throws IOException if the snapshot cannot be read
+     */
+    Game game() throws IOException {
+        lastAccessNanos = System.nanoTime();
+        if(game == null) {
+            game = GameSnapshot.load(snapshotPath);
+            Files.delete(snapshotPath);
+        }
+        return game;
+    }
+
+    /**
+     * Write the game to its snapshot and drop it, unless it was used since {@code idleSinceNanos}
+     * @return true if the game got evicted
+     * @throws IOException if the snapshot cannot be written
+     */
+    boolean evictIfIdle(long idleSinceNanos) throws IOException {
+        if(game == null || lastAccessNanos - idleSinceNanos > 0) {
+            return false;
+        }
+        GameSnapshot.save(game, snapshotPath);
+        game = null;
+        return true;
+    }
+
+    /**
+     * Delete the snapshot of an evicted game
+     */
+    void discard() throws IOException {
+        game = null;
+        Files.deleteIfExists(snapshotPath);
+    }
+
+    boolean isLoaded() {
+        return game != null;
+    }
+
+    long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    long getId() {
+        return id;
+    }
+}
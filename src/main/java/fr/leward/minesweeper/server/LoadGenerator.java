@@ -0,0 +1,197 @@
+package fr.leward.minesweeper.server;
+
+import fr.leward.minesweeper.cli.FrameWriter;
+import fr.leward.minesweeper.cli.InputReader;
+import fr.leward.minesweeper.metrics.LogHistogram;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client driving a {@link GameServer} with many connections at once.
+ * Each connection plays its games one after the other with random reveals, sending them by pipelines of a given depth,
+ * until the game ends or every cell could have been revealed.
+ */
+public class LoadGenerator {
+
+    private final int port;
+
+    /**
+     * @param port port of a server listening on the loopback interface
+     */
+    public LoadGenerator(int port) {
+        this.port = port;
+    }
+
+    /**
+     * @param connections number of concurrent connections
+     * @param gamesPerConnection number of games played by each connection
+     * @param rows rows of the games
+     * @param columns columns of the games
+     * @param nbMines mines of the games
+     * @param pipelineDepth number of moves sent before reading their responses
+     * @param seed seed of the layouts and of the moves, a run is reproducible
+     * @return what was played
+     * @throws IOException if a connection fails
+     * @throws InterruptedException
+     */
+    public Report run(int connections, int gamesPerConnection, int rows, int columns, int nbMines, int pipelineDepth, long seed)
+            throws IOException, InterruptedException {
+        if(pipelineDepth < 1) {
+            throw new IllegalArgumentException("The pipeline depth must be at least 1");
+        }
+        Report report = new Report();
+        ExecutorService executor = Executors.newFixedThreadPool(connections);
+        try {
+            List<Future<?>> futures = new ArrayList<>(connections);
+            for(int connection = 0; connection < connections; connection++) {
+                SplittableRandom random = new SplittableRandom(seed + connection);
+                futures.add(executor.submit(() -> {
+                    try {
+                        play(report, random, gamesPerConnection, rows, columns, nbMines, pipelineDepth);
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            }
+            for(Future<?> future : futures) {
+                future.get();
+            }
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw new IllegalStateException(cause);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        return report;
+    }
+
+    private void play(Report report, SplittableRandom random, int games, int rows, int columns, int nbMines, int pipelineDepth)
+            throws IOException {
+        try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            InputReader in = new InputReader(socket.getInputStream())) {
+            socket.setTcpNoDelay(true);
+            FrameWriter out = new FrameWriter(socket.getOutputStream());
+            int maxMoves = rows * columns;
+
+            for(int game = 0; game < games; game++) {
+                out.append("NEW ").append(rows).append(' ').append(columns).append(' ').append(nbMines)
+                        .append(' ').append(Long.toString(random.nextLong())).newLine();
+                out.flush();
+                String id = expectOk(report, in.readLine()).substring(3);
+
+                String gameStatus = "IN_PROGRESS";
+                for(int moves = 0; moves < maxMoves && gameStatus.equals("IN_PROGRESS"); moves += pipelineDepth) {
+                    for(int move = 0; move < pipelineDepth; move++) {
+                        out.append("REVEAL ").append(id).append(' ')
+                                .append(random.nextInt(rows)).append(' ').append(random.nextInt(columns)).newLine();
+                    }
+                    long startTime = System.nanoTime();
+                    out.flush();
+                    for(int move = 0; move < pipelineDepth; move++) {
+                        String response = expectOk(report, in.readLine());
+                        gameStatus = response.substring(response.lastIndexOf(' ') + 1);
+                    }
+                    report.pipelineLatencyMicros.record((System.nanoTime() - startTime) / 1000);
+                    report.requests.add(pipelineDepth);
+                }
+
+                out.append("CLOSE ").append(id).newLine();
+                out.flush();
+                expectOk(report, in.readLine());
+                report.requests.add(2);
+                report.games.increment();
+                if(gameStatus.equals("WON")) {
+                    report.wins.increment();
+                }
+                else if(gameStatus.equals("LOST")) {
+                    report.losses.increment();
+                }
+            }
+
+            out.append("QUIT").newLine();
+            out.flush();
+            in.readLine();
+        }
+    }
+
+    private static String expectOk(Report report, String response) throws IOException {
+        if(response == null) {
+            throw new IOException("Connection closed by the server");
+        }
+        if(!response.startsWith("OK")) {
+            report.errors.increment();
+            throw new IOException("Request failed: " + response);
+        }
+        return response;
+    }
+
+    /**
+     * Counters of a run, updated by all the connections
+     */
+    public static class Report {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder games = new LongAdder();
+        private final LongAdder wins = new LongAdder();
+        private final LongAdder losses = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LogHistogram pipelineLatencyMicros = new LogHistogram();
+
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        public long getGames() {
+            return games.sum();
+        }
+
+        public long getWins() {
+            return wins.sum();
+        }
+
+        public long getLosses() {
+            return losses.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        /**
+         * @return time between sending a pipeline of moves and reading its last response
+         */
+        public LogHistogram getPipelineLatencyMicros() {
+            return pipelineLatencyMicros;
+        }
+
+        @Override
+        public String toString() {
+            return "Report{" +
+                    "requests=" + getRequests() +
+                    ", games=" + getGames() +
+                    ", wins=" + getWins() +
+                    ", losses=" + getLosses() +
+                    ", errors=" + getErrors() +
+                    ", pipelineLatencyP50=" + pipelineLatencyMicros.getValueAtPercentile(50) + "us" +
+                    ", pipelineLatencyP99=" + pipelineLatencyMicros.getValueAtPercentile(99) + "us" +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package fr.leward.minesweeper.simulation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non negative integer values with one bucket per value.
+ * Values above the highest trackable value are counted in the last bucket.
+ * Writers record into a private array and merge it with {@link #add(long[])}, so buckets are only contended once per batch.
+ */
+public class Histogram {
+
+    private final AtomicLongArray counts;
+
+    /**
+     * @param highestTrackableValue highest value with its own bucket
+     */
+    public Histogram(int highestTrackableValue) {
+        this.counts = new AtomicLongArray(highestTrackableValue + 1);
+    }
+
+    /**
+     * @return an empty private array of buckets, to be merged with {@link #add(long[])}
+     */
+    public long[] newRecorder() {
+        return new long[counts.length()];
+    }
+
+    /**
+     * Count a value in a private array of buckets
+     */
+    public static void record(long[] recorder, int value) {
+        recorder[Math.min(value, recorder.length - 1)]++;
+    }
+
+    /**
+     * Merge a private array of buckets in the histogram and clear it
+     * @param recorder array returned by {@link #newRecorder()}
+     */
+    public void add(long[] recorder) {
+        for(int value = 0; value < recorder.length; value++) {
+            if(recorder[value] != 0) {
+                counts.addAndGet(value, recorder[value]);
+                recorder[value] = 0;
+            }
+        }
+    }
+
+    public long getTotalCount() {
+        long total = 0;
+        for(int value = 0; value < counts.length(); value++) {
+            total += counts.get(value);
+        }
+        return total;
+    }
+
+    /**
+     * Compute a percentile from the values recorded so far. It can be called while values are still being recorded.
+     * @param percentile percentile between 0 and 100
+     * @return the lowest value such that at least the given percentage of the values are lower or equal to it,
+     * 0 if no value has been recorded
+     */
+    public int getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[counts.length()];
+        long total = 0;
+        for(int value = 0; value < snapshot.length; value++) {
+            snapshot[value] = counts.get(value);
+            total += snapshot[value];
+        }
+        long threshold = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long cumulated = 0;
+        for(int value = 0; value < snapshot.length; value++) {
+            cumulated += snapshot[value];
+            if(cumulated >= threshold) {
+                return value;
+            }
+        }
+        return 0;
+    }
+
+    public double getMean() {
+        long total = 0;
+        long sum = 0;
+        for(int value = 0; value < counts.length(); value++) {
+            long count = counts.get(value);
+            total += count;
+            sum += count * value;
+        }
+        return total == 0 ? 0 : (double) sum / total;
+    }
+}
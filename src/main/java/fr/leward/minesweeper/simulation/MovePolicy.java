@@ -0,0 +1,27 @@
+package fr.leward.minesweeper.simulation;
+
+import fr.leward.minesweeper.game.Game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Strategy choosing the moves of the games played by a {@link Simulation}.
+ * A simulation creates one policy per worker thread, so a policy can keep state between games without synchronization.
+ */
+public interface MovePolicy {
+
+    /**
+     * Called before the first move of every game
+     * @param game new game
+     */
+    default void newGame(Game game) {
+    }
+
+    /**
+     * Choose the next cell to reveal
+     * @param game game in progress
+     * @param random source of randomness of the worker
+     * @return the index of a hidden cell of the board
+     */
+    int nextMove(Game game, SplittableRandom random);
+}
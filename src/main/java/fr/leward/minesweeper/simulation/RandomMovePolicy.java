@@ -0,0 +1,36 @@
+package fr.leward.minesweeper.simulation;
+
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.game.Game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Reveal a hidden cell chosen uniformly at random
+ */
+public class RandomMovePolicy implements MovePolicy {
+
+    // Random draws before falling back to a scan, which only happens once most of the board is revealed
+    private static final int MAX_DRAWS = 16;
+
+    @Override
+    public int nextMove(Game game, SplittableRandom random) {
+        Board board = game.getBoard();
+        int size = board.getSize();
+        for(int draw = 0; draw < MAX_DRAWS; draw++) {
+            int index = random.nextInt(size);
+            if(!board.isRevealed(index)) {
+                return index;
+            }
+        }
+        // Pick the next hidden cell after a random start, wrapping around the board
+        int start = random.nextInt(size);
+        for(int i = 0; i < size; i++) {
+            int index = start + i < size ? start + i : start + i - size;
+            if(!board.isRevealed(index)) {
+                return index;
+            }
+        }
+        throw new IllegalStateException("Every cell of the board is revealed");
+    }
+}
@@ -0,0 +1,160 @@
+package fr.leward.minesweeper.simulation;
+
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.game.Game;
+import fr.leward.minesweeper.game.GenerationMode;
+import fr.leward.minesweeper.game.GameStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Play many games of a board configuration across several threads to measure how a {@link MovePolicy} performs.
+ *
+ * Games are claimed by the workers in chunks. Each worker reuses a single board, reset in place for every game,
+ * and keeps its own policy and counters, merged into the shared {@link SimulationStats} once per chunk.
+ * The layout of a game only depends on the seed of the simulation and the number of the game,
+ * so a simulation gives the same results whatever the number of threads, as long as the policy is deterministic.
+ */
+public class Simulation {
+
+    static final int CHUNK_SIZE = 64;
+    static final long NO_GUESS_BUDGET_MILLIS = 50;
+
+    private final int rows;
+    private final int columns;
+    private final int nbMines;
+    private final GenerationMode generationMode;
+    private final Supplier<MovePolicy> policyFactory;
+
+    /**
+     * @param rows number of rows of the boards
+     * @param columns number of columns of the boards
+     * @param nbMines number of mines of the boards
+     * @param policyFactory factory of the policy playing the games, called once per worker thread
+     */
+    public Simulation(int rows, int columns, int nbMines, Supplier<MovePolicy> policyFactory) {
+        this(rows, columns, nbMines, GenerationMode.IMMEDIATE, policyFactory);
+    }
+
+    /**
+     * @param rows number of rows of the boards
+     * @param columns number of columns of the boards
+     * @param nbMines number of mines of the boards
+     * @param generationMode how the layouts depend on the first move of the games
+     * @param policyFactory factory of the policy playing the games, called once per worker thread
+     */
+    public Simulation(int rows, int columns, int nbMines, GenerationMode generationMode, Supplier<MovePolicy> policyFactory) {
+        this.rows = rows;
+        this.columns = columns;
+        this.nbMines = nbMines;
+        this.generationMode = generationMode;
+        this.policyFactory = policyFactory;
+    }
+
+    /**
+     * Play the games and wait for them to finish
+     * @param games number of games to play
+     * @param threads number of worker threads
+     * @param seed seed of the simulation
+     * @return the statistics of the games
+     */
+    public SimulationStats run(long games, int threads, long seed) throws InterruptedException {
+        return run(games, threads, seed, stats -> { }, Long.MAX_VALUE);
+    }
+
+    /**
+     * Play the games and wait for them to finish, reporting the statistics of the games finished so far at a fixed rate
+     * @param games number of games to play
+     * @param threads number of worker threads
+     * @param seed seed of the simulation
+     * @param progress listener of the intermediate statistics, called from the calling thread
+     * @param progressIntervalMillis time between two progress reports
+     * @return the statistics of the games
+     */
+    public SimulationStats run(long games, int threads, long seed, Consumer<SimulationStats> progress, long progressIntervalMillis)
+            throws InterruptedException {
+        SimulationStats stats = new SimulationStats(rows * columns);
+        AtomicLong nextGame = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>(threads);
+            for(int thread = 0; thread < threads; thread++) {
+                workers.add(executor.submit(() -> play(games, seed, nextGame, stats)));
+            }
+            for(Future<?> worker : workers) {
+                while(true) {
+                    try {
+                        worker.get(progressIntervalMillis, TimeUnit.MILLISECONDS);
+                        break;
+                    }
+                    catch (TimeoutException e) {
+                        progress.accept(stats);
+                    }
+                    catch (ExecutionException e) {
+                        throw new IllegalStateException("A simulation worker failed", e.getCause());
+                    }
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        return stats;
+    }
+
+    /**
+     * Loop of a worker: claim chunks of games until every game has been played
+     */
+    private void play(long games, long seed, AtomicLong nextGame, SimulationStats stats) {
+        // Every game of the worker is played on the same board, regenerated in place
+        Game game = new Game(rows, columns, nbMines, seed);
+        Board board = game.getBoard();
+        MovePolicy policy = policyFactory.get();
+        long[] movesPerGame = stats.getMovesPerGame().newRecorder();
+        long[] revealedCellsPerGame = stats.getRevealedCellsPerGame().newRecorder();
+
+        long first;
+        while((first = nextGame.getAndAdd(CHUNK_SIZE)) < games) {
+            long last = Math.min(games, first + CHUNK_SIZE);
+            int wins = 0;
+            long moves = 0;
+            long revealedCells = 0;
+            for(long gameNumber = first; gameNumber < last; gameNumber++) {
+                long gameSeed = mix(seed + gameNumber);
+                game.reset(gameSeed, generationMode, NO_GUESS_BUDGET_MILLIS);
+                SplittableRandom random = new SplittableRandom(~gameSeed);
+                policy.newGame(game);
+                while(game.getStatus() == GameStatus.IN_PROGRESS) {
+                    int index = policy.nextMove(game, random);
+                    game.revealCell(index / columns, index % columns);
+                }
+                if(game.getStatus() == GameStatus.WON) {
+                    wins++;
+                }
+                int revealed = board.getRevealedSafeCells() + board.getRevealedMines();
+                moves += game.getHitCounter();
+                revealedCells += revealed;
+                Histogram.record(movesPerGame, game.getHitCounter());
+                Histogram.record(revealedCellsPerGame, revealed);
+            }
+            stats.add((int) (last - first), wins, moves, revealedCells);
+            stats.getMovesPerGame().add(movesPerGame);
+            stats.getRevealedCellsPerGame().add(revealedCellsPerGame);
+        }
+    }
+
+    /**
+     * Finalizer of SplitMix64, spreads consecutive game numbers over unrelated seeds
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,73 @@
+package fr.leward.minesweeper.simulation;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of a {@link Simulation}, updated by the worker threads while the simulation runs.
+ * Every getter can be read at any time and gives the statistics of the games finished so far.
+ */
+public class SimulationStats {
+
+    private final LongAdder games = new LongAdder();
+    private final LongAdder wins = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder revealedCells = new LongAdder();
+    private final Histogram movesPerGame;
+    private final Histogram revealedCellsPerGame;
+
+    SimulationStats(int boardSize) {
+        this.movesPerGame = new Histogram(boardSize);
+        this.revealedCellsPerGame = new Histogram(boardSize);
+    }
+
+    void add(int games, int wins, long moves, long revealedCells) {
+        this.games.add(games);
+        this.wins.add(wins);
+        this.moves.add(moves);
+        this.revealedCells.add(revealedCells);
+    }
+
+    public long getGames() {
+        return games.sum();
+    }
+
+    public long getWins() {
+        return wins.sum();
+    }
+
+    public double getWinRate() {
+        long games = getGames();
+        return games == 0 ? 0 : (double) getWins() / games;
+    }
+
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    public long getRevealedCells() {
+        return revealedCells.sum();
+    }
+
+    /**
+     * @return the distribution of the number of moves played per game
+     */
+    public Histogram getMovesPerGame() {
+        return movesPerGame;
+    }
+
+    /**
+     * @return the distribution of the number of cells revealed per game, mine included
+     */
+    public Histogram getRevealedCellsPerGame() {
+        return revealedCellsPerGame;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("games=%d winRate=%.4f moves/game p50=%d p90=%d p99=%d revealed/game p50=%d p90=%d p99=%d",
+                getGames(), getWinRate(),
+                movesPerGame.getValueAtPercentile(50), movesPerGame.getValueAtPercentile(90), movesPerGame.getValueAtPercentile(99),
+                revealedCellsPerGame.getValueAtPercentile(50), revealedCellsPerGame.getValueAtPercentile(90),
+                revealedCellsPerGame.getValueAtPercentile(99));
+    }
+}
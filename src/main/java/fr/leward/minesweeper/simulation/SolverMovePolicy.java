@@ -0,0 +1,24 @@
+package fr.leward.minesweeper.simulation;
+
+import fr.leward.minesweeper.game.Game;
+import fr.leward.minesweeper.solver.Solver;
+
+import java.util.SplittableRandom;
+
+/**
+ * Play like the {@link Solver}: a deduced safe cell when there is one, otherwise the cell the least likely to be a mine
+ */
+public class SolverMovePolicy implements MovePolicy {
+
+    private Solver solver;
+
+    @Override
+    public void newGame(Game game) {
+        solver = Solver.attach(game);
+    }
+
+    @Override
+    public int nextMove(Game game, SplittableRandom random) {
+        return solver.suggestMove();
+    }
+}
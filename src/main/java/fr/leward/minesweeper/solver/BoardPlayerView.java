@@ -0,0 +1,51 @@
+package fr.leward.minesweeper.solver;
+
+import fr.leward.minesweeper.components.Board;
+
+/**
+ * Player view over a board, hiding the content of the cells that are not revealed
+ */
+class BoardPlayerView implements PlayerView {
+
+    private final Board board;
+
+    BoardPlayerView(Board board) {
+        this.board = board;
+    }
+
+    @Override
+    public int getWidth() {
+        return board.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return board.getHeight();
+    }
+
+    @Override
+    public int getNbMines() {
+        return board.getNbMines();
+    }
+
+    @Override
+    public boolean isRevealed(int index) {
+        return board.isRevealed(index);
+    }
+
+    @Override
+    public int countAdjacentMines(int index) {
+        if(!board.isRevealed(index)) {
+            throw new IllegalStateException("Cell " + index + " is not revealed");
+        }
+        return board.countAdjacentMines(index);
+    }
+
+    @Override
+    public boolean isRevealedMine(int index) {
+        if(!board.isRevealed(index)) {
+            throw new IllegalStateException("Cell " + index + " is not revealed");
+        }
+        return board.isMine(index);
+    }
+}
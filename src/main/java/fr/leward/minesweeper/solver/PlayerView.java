@@ -0,0 +1,42 @@
+package fr.leward.minesweeper.solver;
+
+import fr.leward.minesweeper.components.Board;
+
+/**
+ * What a player can see of a board: its dimensions, its number of mines,
+ * which cells are revealed and the number of adjacent mines of the revealed cells.
+ * Cells are designated by their index on the board, {@code row * height + column}.
+ */
+public interface PlayerView {
+
+    /**
+     * @return number of rows of the board
+     */
+    int getWidth();
+
+    /**
+     * @return number of columns of the board
+     */
+    int getHeight();
+
+    int getNbMines();
+
+    boolean isRevealed(int index);
+
+    /**
+     * @param index index of a revealed cell
+     * @return the number of mines adjacent to the cell
+     * @throws IllegalStateException if the cell is not revealed
+     */
+    int countAdjacentMines(int index);
+
+    /**
+     * @param index index of a revealed cell
+     * @return true if the revealed cell is a mine, which only happens on a lost game
+     */
+    boolean isRevealedMine(int index);
+
+    static PlayerView of(Board board) {
+        return new BoardPlayerView(board);
+    }
+}
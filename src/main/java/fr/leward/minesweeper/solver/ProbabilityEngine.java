@@ -0,0 +1,575 @@
+package fr.leward.minesweeper.solver;
+
+import java.util.*;
+
+/**
+ * Compute the mine probability of the cells of the frontier of a board.
+ *
+ * The frontier is made of constraints: a set of unknown cells holding a known number of mines.
+ * Constraints sharing cells are grouped into independent components, whose solutions are counted
+ * by number of mines. Components are memoized, so components that did not change since
+ * the previous computation are not counted again. The counts of the components are then weighted by
+ * the number of ways to place the remaining mines on the unknown cells outside of the frontier.
+ */
+class ProbabilityEngine {
+
+    /**
+     * Components larger than this are not counted exactly, their probabilities are estimated from their constraints
+     */
+    static final int MAX_COMPONENT_SIZE = 48;
+
+    private static final int CACHE_SIZE = 4096;
+
+    private final Map<ComponentKey, Component> cache = new LinkedHashMap<ComponentKey, Component>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ComponentKey, Component> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Result of a computation: the probabilities of the frontier cells and of the cells outside of the frontier
+     */
+    static class Result {
+        final int[] cells;
+        final double[] probabilities;
+        final double floatingProbability;
+
+        Result(int[] cells, double[] probabilities, double floatingProbability) {
+            this.cells = cells;
+            this.probabilities = probabilities;
+            this.floatingProbability = floatingProbability;
+        }
+    }
+
+    /**
+     * @param constraintCells unknown cells of every constraint, in increasing order
+     * @param constraintMines number of mines among the unknown cells of every constraint
+     * @param floatingCells number of unknown cells outside of the frontier
+     * @param remainingMines number of mines that are not known yet
+     * @return the probabilities of the frontier cells and of the floating cells
+     */
+    Result compute(List<int[]> constraintCells, int[] constraintMines, int floatingCells, int remainingMines) {
+        List<Component> components = split(constraintCells, constraintMines);
+
+        // Distribution of the number of mines on the frontier, with and without each component
+        int nbComponents = components.size();
+        double[][] prefix = new double[nbComponents + 1][];
+        double[][] suffix = new double[nbComponents + 1][];
+        prefix[0] = new double[] {1};
+        suffix[nbComponents] = new double[] {1};
+        for(int i = 0; i < nbComponents; i++) {
+            prefix[i + 1] = convolve(prefix[i], components.get(i).solutions);
+        }
+        for(int i = nbComponents - 1; i >= 0; i--) {
+            suffix[i] = convolve(components.get(i).solutions, suffix[i + 1]);
+        }
+        double[] total = prefix[nbComponents];
+        double[] weights = weights(total.length, floatingCells, remainingMines);
+
+        double normalization = 0;
+        double floatingMines = 0;
+        for(int k = 0; k < total.length; k++) {
+            normalization += total[k] * weights[k];
+            if(floatingCells > 0) {
+                floatingMines += total[k] * weights[k] * (remainingMines - k) / floatingCells;
+            }
+        }
+
+        int nbCells = 0;
+        for(Component component : components) {
+            nbCells += component.cells.length;
+        }
+        int[] cells = new int[nbCells];
+        double[] probabilities = new double[nbCells];
+        int position = 0;
+        for(int i = 0; i < nbComponents; i++) {
+            Component component = components.get(i);
+            double[] others = convolve(prefix[i], suffix[i + 1]);
+            for(int c = 0; c < component.cells.length; c++) {
+                double mines = 0;
+                double[] cellMines = component.cellMines[c];
+                for(int k = 0; k < cellMines.length; k++) {
+                    if(cellMines[k] == 0) {
+                        continue;
+                    }
+                    for(int j = 0; j < others.length && k + j < weights.length; j++) {
+                        mines += cellMines[k] * others[j] * weights[k + j];
+                    }
+                }
+                cells[position] = component.cells[c];
+                probabilities[position] = normalization > 0 ? mines / normalization : 0.5;
+                position++;
+            }
+        }
+        double floatingProbability = normalization > 0 ? floatingMines / normalization : 0.5;
+        return new Result(cells, probabilities, floatingProbability);
+    }
+
+    /**
+     * Group the constraints sharing cells into components, reusing the memoized ones
+     */
+    private List<Component> split(List<int[]> constraintCells, int[] constraintMines) {
+        Map<Integer, Integer> localIds = new HashMap<>();
+        for(int[] cells : constraintCells) {
+            for(int cell : cells) {
+                localIds.putIfAbsent(cell, localIds.size());
+            }
+        }
+        int[] parents = new int[localIds.size()];
+        for(int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+        }
+        for(int[] cells : constraintCells) {
+            for(int i = 1; i < cells.length; i++) {
+                union(parents, localIds.get(cells[0]), localIds.get(cells[i]));
+            }
+        }
+
+        Map<Integer, List<Integer>> constraintsByRoot = new LinkedHashMap<>();
+        for(int c = 0; c < constraintCells.size(); c++) {
+            int[] cells = constraintCells.get(c);
+            if(cells.length > 0) {
+                constraintsByRoot.computeIfAbsent(find(parents, localIds.get(cells[0])), root -> new ArrayList<>()).add(c);
+            }
+        }
+
+        List<Component> components = new ArrayList<>(constraintsByRoot.size());
+        for(List<Integer> constraints : constraintsByRoot.values()) {
+            ComponentKey key = new ComponentKey(constraints, constraintCells, constraintMines);
+            Component component = cache.get(key);
+            if(component == null) {
+                component = Component.enumerate(key);
+                cache.put(key, component);
+            }
+            components.add(component);
+        }
+        return components;
+    }
+
+    private static int find(int[] parents, int i) {
+        while(parents[i] != i) {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parents, int a, int b) {
+        int rootA = find(parents, a);
+        int rootB = find(parents, b);
+        if(rootA != rootB) {
+            parents[rootB] = rootA;
+        }
+    }
+
+    private static double[] convolve(double[] a, double[] b) {
+        double[] result = new double[a.length + b.length - 1];
+        for(int i = 0; i < a.length; i++) {
+            if(a[i] == 0) {
+                continue;
+            }
+            for(int j = 0; j < b.length; j++) {
+                result[i + j] += a[i] * b[j];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Relative number of ways to place the mines left by k frontier mines on the floating cells, for every k
+     */
+    private static double[] weights(int length, int floatingCells, int remainingMines) {
+        double[] logWeights = new double[length];
+        double maxLogWeight = Double.NEGATIVE_INFINITY;
+        for(int k = 0; k < length; k++) {
+            int floatingMines = remainingMines - k;
+            if(floatingMines < 0 || floatingMines > floatingCells) {
+                logWeights[k] = Double.NEGATIVE_INFINITY;
+            }
+            else {
+                logWeights[k] = logBinomial(floatingCells, floatingMines);
+                maxLogWeight = Math.max(maxLogWeight, logWeights[k]);
+            }
+        }
+        double[] weights = new double[length];
+        for(int k = 0; k < length; k++) {
+            weights[k] = logWeights[k] == Double.NEGATIVE_INFINITY ? 0 : Math.exp(logWeights[k] - maxLogWeight);
+        }
+        return weights;
+    }
+
+    private static double logBinomial(int n, int k) {
+        return logFactorial(n) - logFactorial(k) - logFactorial(n - k);
+    }
+
+    private static double logFactorial(int n) {
+        if(n < 20) {
+            double result = 0;
+            for(int i = 2; i <= n; i++) {
+                result += Math.log(i);
+            }
+            return result;
+        }
+        // Stirling series
+        double x = n;
+        return x * Math.log(x) - x + 0.5 * Math.log(2 * Math.PI * x) + 1 / (12 * x) - 1 / (360 * x * x * x);
+    }
+
+    /**
+     * Canonical description of a component: its cells and its constraints, in a stable order
+     */
+    static class ComponentKey {
+        final int[] cells;
+        final int[][] constraints;
+        final int[] mines;
+        private final int hashCode;
+
+        ComponentKey(List<Integer> constraintIds, List<int[]> constraintCells, int[] constraintMines) {
+            Integer[] order = constraintIds.toArray(new Integer[0]);
+            Arrays.sort(order, (a, b) -> {
+                int compare = compareCells(constraintCells.get(a), constraintCells.get(b));
+                return compare != 0 ? compare : Integer.compare(constraintMines[a], constraintMines[b]);
+            });
+            constraints = new int[order.length][];
+            mines = new int[order.length];
+            TreeSet<Integer> allCells = new TreeSet<>();
+            for(int i = 0; i < order.length; i++) {
+                constraints[i] = constraintCells.get(order[i]);
+                mines[i] = constraintMines[order[i]];
+                for(int cell : constraints[i]) {
+                    allCells.add(cell);
+                }
+            }
+            cells = allCells.stream().mapToInt(Integer::intValue).toArray();
+            hashCode = 31 * Arrays.deepHashCode(constraints) + Arrays.hashCode(mines);
+        }
+
+        private static int compareCells(int[] a, int[] b) {
+            for(int i = 0; i < Math.min(a.length, b.length); i++) {
+                if(a[i] != b[i]) {
+                    return Integer.compare(a[i], b[i]);
+                }
+            }
+            return Integer.compare(a.length, b.length);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof ComponentKey)) {
+                return false;
+            }
+            ComponentKey other = (ComponentKey) o;
+            return hashCode == other.hashCode && Arrays.equals(mines, other.mines) && Arrays.deepEquals(constraints, other.constraints);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Solutions of a component, counted by number of mines.
+     * Counts are scaled so that the largest one is 1, which does not change the probabilities.
+     */
+    static class Component {
+        final int[] cells;
+        // solutions[k]: number of solutions with k mines
+        final double[] solutions;
+        // cellMines[c][k]: number of solutions with k mines where the cell c holds a mine
+        final double[][] cellMines;
+
+        private Component(int[] cells, double[] solutions, double[][] cellMines) {
+            this.cells = cells;
+            this.solutions = solutions;
+            this.cellMines = cellMines;
+        }
+
+        static Component enumerate(ComponentKey key) {
+            int nbCells = key.cells.length;
+            if(nbCells > MAX_COMPONENT_SIZE) {
+                return estimate(key);
+            }
+            Map<Integer, Integer> localIds = new HashMap<>();
+            for(int i = 0; i < nbCells; i++) {
+                localIds.put(key.cells[i], i);
+            }
+            int nbConstraints = key.constraints.length;
+            List<List<Integer>> constraintsOfCell = new ArrayList<>();
+            for(int i = 0; i < nbCells; i++) {
+                constraintsOfCell.add(new ArrayList<>());
+            }
+            int[][] localConstraints = new int[nbConstraints][];
+            for(int c = 0; c < nbConstraints; c++) {
+                localConstraints[c] = new int[key.constraints[c].length];
+                for(int i = 0; i < key.constraints[c].length; i++) {
+                    int cell = localIds.get(key.constraints[c][i]);
+                    localConstraints[c][i] = cell;
+                    constraintsOfCell.get(cell).add(c);
+                }
+            }
+
+            // Visit the cells in breadth-first order through the constraints, so that constraints get closed early
+            int[] order = new int[nbCells];
+            boolean[] visited = new boolean[nbCells];
+            int head = 0;
+            int tail = 0;
+            order[tail++] = 0;
+            visited[0] = true;
+            while(head < tail) {
+                int cell = order[head++];
+                for(int c : constraintsOfCell.get(cell)) {
+                    for(int other : localConstraints[c]) {
+                        if(!visited[other]) {
+                            visited[other] = true;
+                            order[tail++] = other;
+                        }
+                    }
+                }
+            }
+
+            int[][] cellConstraints = new int[nbCells][];
+            for(int i = 0; i < nbCells; i++) {
+                cellConstraints[i] = constraintsOfCell.get(order[i]).stream().mapToInt(Integer::intValue).toArray();
+            }
+            Enumeration enumeration = new Enumeration(order, cellConstraints, key.mines, localConstraints);
+            enumeration.run();
+
+            double max = 0;
+            for(double count : enumeration.solutions) {
+                max = Math.max(max, count);
+            }
+            double scale = max > 0 ? 1 / max : 1;
+            for(int k = 0; k <= nbCells; k++) {
+                enumeration.solutions[k] *= scale;
+                for(int i = 0; i < nbCells; i++) {
+                    enumeration.cellMines[i][k] *= scale;
+                }
+            }
+            return new Component(key.cells, enumeration.solutions, enumeration.cellMines);
+        }
+
+        /**
+         * Rough estimation for components too large to be counted: every cell gets the highest density
+         * of its constraints, and the component is considered to hold the rounded sum of those densities
+         */
+        private static Component estimate(ComponentKey key) {
+            int nbCells = key.cells.length;
+            double[] density = new double[nbCells];
+            for(int c = 0; c < key.constraints.length; c++) {
+                for(int cell : key.constraints[c]) {
+                    int i = Arrays.binarySearch(key.cells, cell);
+                    density[i] = Math.max(density[i], (double) key.mines[c] / key.constraints[c].length);
+                }
+            }
+            double expectedMines = 0;
+            for(double d : density) {
+                expectedMines += d;
+            }
+            int k = (int) Math.round(expectedMines);
+            double[] solutions = new double[k + 1];
+            solutions[k] = 1;
+            double[][] cellMines = new double[nbCells][k + 1];
+            for(int i = 0; i < nbCells; i++) {
+                cellMines[i][k] = density[i];
+            }
+            return new Component(key.cells, solutions, cellMines);
+        }
+    }
+
+    /**
+     * Count of the assignments satisfying every constraint of a component, by a dynamic program over its cells
+     * in visiting order.
+     *
+     * Once the first cells are assigned, the next ones only depend on the number of mines still needed by the
+     * constraints that are partly assigned, the open constraints. Partial assignments are therefore grouped into states
+     * holding these numbers, counted by number of mines. The cost grows with the number of states, which stays small
+     * when the cells are visited in breadth-first order, rather than with the number of solutions.
+     * A forward pass counts the ways to reach each state and a backward pass the ways to complete it,
+     * which gives the number of solutions where each cell holds a mine.
+     */
+    private static class Enumeration {
+        final double[] solutions;
+        final double[][] cellMines;
+
+        private final int[] order;
+        private final List<List<State>> layers;
+
+        Enumeration(int[] order, int[][] cellConstraints, int[] needed, int[][] constraints) {
+            int nbCells = order.length;
+            int nbConstraints = constraints.length;
+            this.order = order;
+            this.solutions = new double[nbCells + 1];
+            this.cellMines = new double[nbCells][nbCells + 1];
+
+            // Constraints are open from the assignment of their first cell to the assignment of their last cell
+            int[] position = new int[nbCells];
+            for(int p = 0; p < nbCells; p++) {
+                position[order[p]] = p;
+            }
+            int[] first = new int[nbConstraints];
+            int[] last = new int[nbConstraints];
+            int[] unassigned = new int[nbConstraints];
+            for(int c = 0; c < nbConstraints; c++) {
+                first[c] = nbCells;
+                last[c] = -1;
+                for(int cell : constraints[c]) {
+                    first[c] = Math.min(first[c], position[cell]);
+                    last[c] = Math.max(last[c], position[cell]);
+                }
+                unassigned[c] = constraints[c].length;
+            }
+            int[][] open = new int[nbCells + 1][];
+            for(int p = 0; p <= nbCells; p++) {
+                int count = 0;
+                int[] layerOpen = new int[nbConstraints];
+                for(int c = 0; c < nbConstraints; c++) {
+                    if(first[c] < p && last[c] >= p) {
+                        layerOpen[count++] = c;
+                    }
+                }
+                open[p] = Arrays.copyOf(layerOpen, count);
+            }
+
+            layers = new ArrayList<>(nbCells + 1);
+            List<State> initial = new ArrayList<>();
+            initial.add(new State(new byte[0], new double[] {1}));
+            layers.add(initial);
+            int[] slot = new int[nbConstraints];
+            Arrays.fill(slot, -1);
+            int[] remaining = new int[nbConstraints];
+
+            for(int p = 0; p < nbCells; p++) {
+                int[] constraintsOfCell = cellConstraints[p];
+                for(int i = 0; i < open[p].length; i++) {
+                    slot[open[p][i]] = i;
+                }
+                Map<State, State> next = new HashMap<>();
+                List<State> nextLayer = new ArrayList<>();
+                for(State state : layers.get(p)) {
+                    for(int mine = 0; mine <= 1; mine++) {
+                        // Mines still needed by the constraints of the cell, which must fit in their unassigned cells
+                        boolean valid = true;
+                        for(int c : constraintsOfCell) {
+                            int current = slot[c] >= 0 ? state.needed[slot[c]] : needed[c];
+                            remaining[c] = current - mine;
+                            valid &= remaining[c] >= 0 && remaining[c] <= unassigned[c] - 1;
+                        }
+                        if(!valid) {
+                            continue;
+                        }
+                        byte[] nextNeeded = new byte[open[p + 1].length];
+                        for(int i = 0; i < nextNeeded.length; i++) {
+                            int c = open[p + 1][i];
+                            nextNeeded[i] = (byte) (contains(constraintsOfCell, c) ? remaining[c] : state.needed[slot[c]]);
+                        }
+                        State successor = new State(nextNeeded, new double[p + 2]);
+                        State existing = next.putIfAbsent(successor, successor);
+                        if(existing == null) {
+                            successor.index = nextLayer.size();
+                            nextLayer.add(successor);
+                        }
+                        else {
+                            successor = existing;
+                        }
+                        state.successors[mine] = successor.index;
+                        for(int k = 0; k < state.forward.length; k++) {
+                            successor.forward[k + mine] += state.forward[k];
+                        }
+                    }
+                }
+                for(int c : open[p]) {
+                    slot[c] = -1;
+                }
+                for(int c : constraintsOfCell) {
+                    unassigned[c]--;
+                }
+                layers.add(nextLayer);
+            }
+        }
+
+        private static boolean contains(int[] values, int value) {
+            for(int v : values) {
+                if(v == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void run() {
+            int nbCells = order.length;
+            List<State> end = layers.get(nbCells);
+            if(end.isEmpty()) {
+                return;
+            }
+            // Every constraint is closed after the last cell, leaving a single state
+            State complete = end.get(0);
+            System.arraycopy(complete.forward, 0, solutions, 0, complete.forward.length);
+            complete.backward = new double[] {1};
+
+            for(int p = nbCells - 1; p >= 0; p--) {
+                List<State> successors = layers.get(p + 1);
+                double[] mines = cellMines[order[p]];
+                for(State state : layers.get(p)) {
+                    state.backward = new double[nbCells - p + 1];
+                    for(int mine = 0; mine <= 1; mine++) {
+                        if(state.successors[mine] < 0) {
+                            continue;
+                        }
+                        double[] completions = successors.get(state.successors[mine]).backward;
+                        for(int k = 0; k < completions.length; k++) {
+                            state.backward[k + mine] += completions[k];
+                        }
+                        if(mine == 1) {
+                            for(int k1 = 0; k1 < state.forward.length; k1++) {
+                                if(state.forward[k1] == 0) {
+                                    continue;
+                                }
+                                for(int k2 = 0; k2 < completions.length; k2++) {
+                                    mines[k1 + 1 + k2] += state.forward[k1] * completions[k2];
+                                }
+                            }
+                        }
+                    }
+                }
+                // Completions of the next layer are not needed anymore
+                for(State successor : successors) {
+                    successor.backward = null;
+                }
+            }
+        }
+
+        /**
+         * Mines still needed by the open constraints after some cells are assigned
+         */
+        private static final class State {
+            final byte[] needed;
+            private final int hashCode;
+            // forward[k]: number of assignments of the previous cells with k mines reaching the state
+            final double[] forward;
+            // backward[k]: number of assignments of the next cells with k mines completing the state
+            double[] backward;
+            // Index of the state reached in the next layer when the cell is safe, or holds a mine, -1 if impossible
+            final int[] successors = {-1, -1};
+            int index;
+
+            State(byte[] needed, double[] forward) {
+                this.needed = needed;
+                this.forward = forward;
+                this.hashCode = Arrays.hashCode(needed);
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                return o instanceof State && Arrays.equals(needed, ((State) o).needed);
+            }
+
+            @Override
+            public int hashCode() {
+                return hashCode;
+            }
+        }
+    }
+}
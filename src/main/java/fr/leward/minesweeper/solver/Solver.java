@@ -0,0 +1,374 @@
+package fr.leward.minesweeper.solver;
+
+import fr.leward.minesweeper.components.Neighbourhood;
+import fr.leward.minesweeper.game.Game;
+import fr.leward.minesweeper.game.RevealListener;
+import fr.leward.minesweeper.util.IntQueue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A minesweeper solver reasoning on what a player sees of a board.
+ *
+ * Deductions are made incrementally: the solver listens to the revealed cells and only re-evaluates
+ * the numbers around them. Each number is first checked on its own (all its unknown neighbours are
+ * mines, or all are safe), then against the numbers nearby whose unknown neighbours are a subset of its own.
+ * When no safe cell can be deduced, the probability of every unknown cell to hold a mine is computed by
+ * enumerating the solutions of the frontier, see {@link ProbabilityEngine}.
+ */
+public class Solver implements RevealListener {
+
+    private final PlayerView view;
+    private final int width;
+    private final int height;
+
+    // Hidden cells deduced to be mines or to be safe
+    private final BitSet knownMines = new BitSet();
+    private final BitSet knownSafe = new BitSet();
+    // Revealed numbers that still have unknown neighbours
+    private final BitSet activeNumbers = new BitSet();
+
+    // Revealed numbers to evaluate again
+    private final IntQueue dirtyNumbers = new IntQueue();
+    private final BitSet dirty = new BitSet();
+
+    private final int[] neighbours = new int[8];
+    private final int[] unknowns = new int[8];
+    private final int[] otherUnknowns = new int[8];
+    private final int[] dirtyCells = new int[8];
+    private final int[] nbUnknowns = new int[1];
+    private final int[] nbOtherUnknowns = new int[1];
+    private final ProbabilityEngine probabilityEngine = new ProbabilityEngine();
+    private final Neighbourhood neighbourhood;
+
+    public Solver(PlayerView view) {
+        this.view = view;
+        this.width = view.getWidth();
+        this.height = view.getHeight();
+        this.neighbourhood = new Neighbourhood(width, height);
+        for(int index = 0; index < width * height; index++) {
+            if(view.isRevealed(index)) {
+                markDirty(index);
+            }
+        }
+    }
+
+    /**
+     * Create a solver following a game: it is notified of every revealed cell
+     * @param game game to solve
+     * @return the solver
+     */
+    public static Solver attach(Game game) {
+        Solver solver = new Solver(PlayerView.of(game.getBoard()));
+        game.addRevealListener(solver);
+        return solver;
+    }
+
+    @Override
+    public void cellRevealed(int index) {
+        knownSafe.clear(index);
+        markDirty(index);
+        int nbNeighbours = neighbours(index, neighbours);
+        for(int i = 0; i < nbNeighbours; i++) {
+            markDirty(neighbours[i]);
+        }
+    }
+
+    private void markDirty(int index) {
+        if(view.isRevealed(index) && !dirty.get(index)) {
+            dirty.set(index);
+            dirtyNumbers.add(index);
+        }
+    }
+
+    /**
+     * Apply the deduction rules until nothing more can be deduced
+     */
+    public void propagate() {
+        do {
+            while(!dirtyNumbers.isEmpty()) {
+                int number = dirtyNumbers.poll();
+                dirty.clear(number);
+                applySingleNumberRule(number);
+            }
+        } while(applySubsetRule());
+    }
+
+    /**
+     * @param index a hidden cell
+     * @return true if the cell is neither revealed nor deduced
+     */
+    private boolean isUnknown(int index) {
+        return !view.isRevealed(index) && !knownMines.get(index) && !knownSafe.get(index);
+    }
+
+    /**
+     * Collect the unknown neighbours of a revealed number
+     * @return the number of mines among the unknown neighbours, or -1 if the cell is not a number
+     */
+    private int unknownNeighbours(int number, int[] result, int[] count) {
+        if(view.isRevealedMine(number)) {
+            count[0] = 0;
+            return -1;
+        }
+        int mines = view.countAdjacentMines(number);
+        int nbUnknowns = 0;
+        int nbNeighbours = neighbours(number, neighbours);
+        for(int i = 0; i < nbNeighbours; i++) {
+            int neighbour = neighbours[i];
+            if(knownMines.get(neighbour)) {
+                mines--;
+            }
+            else if(isUnknown(neighbour)) {
+                result[nbUnknowns++] = neighbour;
+            }
+        }
+        count[0] = nbUnknowns;
+        return mines;
+    }
+
+    private void applySingleNumberRule(int number) {
+        int mines = unknownNeighbours(number, unknowns, nbUnknowns);
+        int count = nbUnknowns[0];
+        if(mines < 0 || count == 0) {
+            activeNumbers.clear(number);
+            return;
+        }
+        if(mines == 0) {
+            activeNumbers.clear(number);
+            for(int i = 0; i < count; i++) {
+                markSafe(unknowns[i]);
+            }
+        }
+        else if(mines == count) {
+            activeNumbers.clear(number);
+            for(int i = 0; i < count; i++) {
+                markMine(unknowns[i]);
+            }
+        }
+        else {
+            activeNumbers.set(number);
+        }
+    }
+
+    /**
+     * Compare every active number with the active numbers around it. When the unknown neighbours of a number
+     * are included in the ones of another number, the difference holds the difference of their mines.
+     * @return true if something was deduced
+     */
+    private boolean applySubsetRule() {
+        boolean deduced = false;
+        for(int number = activeNumbers.nextSetBit(0); number >= 0; number = activeNumbers.nextSetBit(number + 1)) {
+            int mines = unknownNeighbours(number, unknowns, nbUnknowns);
+            int count = nbUnknowns[0];
+            if(count == 0) {
+                continue;
+            }
+            int row = number / height;
+            int column = number % height;
+            for(int r = Math.max(0, row - 2); r <= Math.min(width - 1, row + 2); r++) {
+                for(int c = Math.max(0, column - 2); c <= Math.min(height - 1, column + 2); c++) {
+                    int other = r * height + c;
+                    if(other == number || !activeNumbers.get(other)) {
+                        continue;
+                    }
+                    int otherMines = unknownNeighbours(other, otherUnknowns, nbOtherUnknowns);
+                    int otherCount = nbOtherUnknowns[0];
+                    if(otherCount <= count || !isSubset(unknowns, count, otherUnknowns, otherCount)) {
+                        continue;
+                    }
+                    int differenceMines = otherMines - mines;
+                    int differenceCount = otherCount - count;
+                    if(differenceMines != 0 && differenceMines != differenceCount) {
+                        continue;
+                    }
+                    for(int i = 0; i < otherCount; i++) {
+                        int cell = otherUnknowns[i];
+                        if(!contains(unknowns, count, cell)) {
+                            if(differenceMines == 0) {
+                                markSafe(cell);
+                            }
+                            else {
+                                markMine(cell);
+                            }
+                        }
+                    }
+                    deduced = true;
+                    // The unknown neighbours of the number may have changed
+                    mines = unknownNeighbours(number, unknowns, nbUnknowns);
+                    count = nbUnknowns[0];
+                    if(count == 0) {
+                        break;
+                    }
+                }
+                if(count == 0) {
+                    break;
+                }
+            }
+        }
+        return deduced;
+    }
+
+    private static boolean isSubset(int[] subset, int subsetSize, int[] set, int setSize) {
+        for(int i = 0; i < subsetSize; i++) {
+            if(!contains(set, setSize, subset[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] cells, int size, int cell) {
+        for(int i = 0; i < size; i++) {
+            if(cells[i] == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void markSafe(int index) {
+        if(knownSafe.get(index)) {
+            return;
+        }
+        knownSafe.set(index);
+        dirtyNeighbours(index);
+    }
+
+    private void markMine(int index) {
+        if(knownMines.get(index)) {
+            return;
+        }
+        knownMines.set(index);
+        dirtyNeighbours(index);
+    }
+
+    private void dirtyNeighbours(int index) {
+        int nbNeighbours = neighbours(index, dirtyCells);
+        for(int i = 0; i < nbNeighbours; i++) {
+            markDirty(dirtyCells[i]);
+        }
+    }
+
+    private int neighbours(int index, int[] result) {
+        return neighbourhood.neighbours(index, result);
+    }
+
+    /**
+     * @return the index of a hidden cell that is known to be safe, or -1 if none can be deduced
+     */
+    public int nextSafeCell() {
+        propagate();
+        return knownSafe.nextSetBit(0);
+    }
+
+    /**
+     * Suggest the next cell to reveal: a safe cell if one can be deduced, otherwise the cell the least likely to be a mine
+     * @return the index of the cell to reveal, or -1 if every safe cell is revealed
+     */
+    public int suggestMove() {
+        int safeCell = nextSafeCell();
+        if(safeCell >= 0) {
+            return safeCell;
+        }
+        double[] probabilities = computeProbabilities();
+        int best = -1;
+        for(int index = 0; index < probabilities.length; index++) {
+            if(!Double.isNaN(probabilities[index]) && (best < 0 || probabilities[index] < probabilities[best])) {
+                best = index;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Compute the probability of every cell to hold a mine
+     * @return probabilities indexed by cell, NaN for the revealed cells
+     */
+    public double[] computeProbabilities() {
+        propagate();
+        List<int[]> constraintCells = new ArrayList<>();
+        int[] constraintMines = new int[activeNumbers.cardinality()];
+        BitSet frontier = new BitSet();
+        for(int number = activeNumbers.nextSetBit(0); number >= 0; number = activeNumbers.nextSetBit(number + 1)) {
+            constraintMines[constraintCells.size()] = unknownNeighbours(number, unknowns, nbUnknowns);
+            int[] cells = Arrays.copyOf(unknowns, nbUnknowns[0]);
+            Arrays.sort(cells);
+            constraintCells.add(cells);
+            for(int cell : cells) {
+                frontier.set(cell);
+            }
+        }
+
+        int size = width * height;
+        int unknownCells = 0;
+        for(int index = 0; index < size; index++) {
+            if(isUnknown(index)) {
+                unknownCells++;
+            }
+        }
+        int floatingCells = unknownCells - frontier.cardinality();
+        int remainingMines = view.getNbMines() - knownMines.cardinality();
+        ProbabilityEngine.Result result = probabilityEngine.compute(constraintCells, constraintMines, floatingCells, remainingMines);
+
+        double[] probabilities = new double[size];
+        for(int index = 0; index < size; index++) {
+            if(view.isRevealed(index)) {
+                probabilities[index] = Double.NaN;
+            }
+            else if(knownMines.get(index)) {
+                probabilities[index] = 1;
+            }
+            else if(knownSafe.get(index)) {
+                probabilities[index] = 0;
+            }
+            else {
+                probabilities[index] = result.floatingProbability;
+            }
+        }
+        for(int i = 0; i < result.cells.length; i++) {
+            probabilities[result.cells[i]] = result.probabilities[i];
+        }
+        return probabilities;
+    }
+
+    /**
+     * Reveal every cell that can be deduced to be safe
+     * @param game game followed by the solver, see {@link #attach(Game)}
+     * @return the number of moves played
+     */
+    public int playSafeMoves(Game game) {
+        int moves = 0;
+        int safeCell;
+        while(!game.isGameOver() && !game.isGameFinished() && (safeCell = nextSafeCell()) >= 0) {
+            game.revealCell(safeCell / height, safeCell % height);
+            moves++;
+        }
+        return moves;
+    }
+
+    /**
+     * Check that a game can be won from a first move without ever guessing
+     * @param game a new game, it is played by this method
+     * @param row row of the first move
+     * @param column column of the first move
+     * @return true if the game was won with deductions only
+     */
+    public static boolean solvesWithoutGuessing(Game game, int row, int column) {
+        Solver solver = attach(game);
+        game.revealCell(row, column);
+        solver.playSafeMoves(game);
+        return game.isGameFinished();
+    }
+
+    public boolean isKnownMine(int index) {
+        return knownMines.get(index);
+    }
+
+    public boolean isKnownSafe(int index) {
+        return knownSafe.get(index);
+    }
+}
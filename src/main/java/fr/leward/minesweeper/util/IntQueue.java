@@ -0,0 +1,85 @@
+package fr.leward.minesweeper.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A FIFO queue of primitive ints backed by a growable ring buffer.
+ * It is meant to be reused between operations to avoid boxing and allocation on hot paths.
+ */
+public class IntQueue {
+
+    private int[] elements;
+    private int head = 0;
+    private int size = 0;
+
+    public IntQueue() {
+        this(16);
+    }
+
+    /**
+     * @param initialCapacity initial capacity of the queue, rounded up to a power of two
+     */
+    public IntQueue(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, initialCapacity - 1)) << 1;
+        elements = new int[capacity];
+    }
+
+    public void add(int value) {
+        if(size == elements.length) {
+            grow();
+        }
+        elements[(head + size) & (elements.length - 1)] = value;
+        size++;
+    }
+
+    /**
+     * Remove and return the head of the queue
+     * @return the head of the queue
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public int poll() {
+        if(size == 0) {
+            throw new NoSuchElementException();
+        }
+        int value = elements[head];
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        return value;
+    }
+
+    /**
+     * Return the head of the queue without removing it
+     * @return the head of the queue
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public int peek() {
+        if(size == 0) {
+            throw new NoSuchElementException();
+        }
+        return elements[head];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Double the capacity of the buffer, unwrapping its content at the beginning of the new array
+     */
+    private void grow() {
+        int[] grown = Arrays.copyOfRange(elements, head, head + elements.length * 2);
+        System.arraycopy(elements, 0, grown, elements.length - head, head);
+        elements = grown;
+        head = 0;
+    }
+}
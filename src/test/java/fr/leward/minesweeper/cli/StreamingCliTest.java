@@ -0,0 +1,94 @@
+package fr.leward.minesweeper.cli;
+
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.game.Game;
+import fr.leward.minesweeper.game.GameStatus;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+public class StreamingCliTest {
+
+    private static InputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Game gameWithMineAtOrigin() {
+        BitSet mines = new BitSet();
+        mines.set(0);
+        return new Game(new Board(3, 4, mines));
+    }
+
+    @Test
+    public void scriptShouldAnswerEachMoveAndRenderTheResult() throws IOException {
+        Game game = gameWithMineAtOrigin();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        String script = "# comment\n"
+                + "f 0 0\n"
+                + "r 0 1\n"
+                + "\n"
+                + "0 1\n"
+                + "r 5 5\n"
+                + "x\n"
+                + "r 2 3\n";
+
+        GameStatus status = new StreamingCli(game, new InputReader(input(script)), new FrameWriter(output), 10, 10, true).run();
+
+        assertEquals(GameStatus.WON, status);
+        assertEquals("f 0 0 APPLIED\n"
+                + "r 0 1 APPLIED\n"
+                + "r 0 1 ALREADY_REVEALED\n"
+                + "r 5 5 OUT_OF_BOARD\n"
+                + "Invalid command: x\n"
+                + "r 2 3 APPLIED\n"
+                + "F100\n"
+                + "1100\n"
+                + "0000\n"
+                + "You won!!!\n", new String(output.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void scriptShouldStopAtTheEndOfTheGame() throws IOException {
+        Game game = gameWithMineAtOrigin();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        GameStatus status = new StreamingCli(game, new InputReader(input("r 0 0")), new FrameWriter(output), 2, 2, true).run();
+
+        assertEquals(GameStatus.LOST, status);
+        assertEquals("r 0 0 APPLIED\nX?\n??\nThe game is over\n", new String(output.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void frameShouldOnlyHoldTheViewport() throws IOException {
+        Game game = new Game(1000, 1000, 1000, 42L);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        new StreamingCli(game, new InputReader(input("d 500\ns 10\nq\n")), new FrameWriter(output), 5, 8, false).run();
+
+        String frames = new String(output.toByteArray(), StandardCharsets.UTF_8);
+        String lastFrame = frames.substring(frames.lastIndexOf("\u001b[H"));
+        assertTrue(lastFrame.startsWith("\u001b[H????????\n????????\n????????\n????????\n????????\nRows 10-14 of 1000, columns 500-507 of 1000"));
+        // The commands available at once share a single frame, after the initial one
+        assertEquals(2, frames.split("Rows ", -1).length - 1);
+    }
+
+    @Test
+    public void pollLineShouldNotWaitForAnIncompleteLine() throws IOException {
+        InputReader reader = new InputReader(input("r 1 2\r\nr 3"), 4);
+
+        assertEquals("r 1 2", reader.pollLine());
+        // The last line is not terminated, only a blocking read can tell that the stream ended
+        assertNull(reader.pollLine());
+        assertEquals("r 3", reader.readLine());
+        assertNull(reader.readLine());
+        assertTrue(reader.isFinished());
+    }
+
+}
@@ -0,0 +1,39 @@
+package fr.leward.minesweeper.cli.renderer;
+
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.game.Game;
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+public class IncrementalBoardRendererTest {
+
+    @Test
+    public void renderShouldMatchTheFullRenderer() {
+        Game game = new Game(6, 7, 5, 42L);
+        IncrementalBoardRenderer renderer = new IncrementalBoardRenderer(game);
+        assertEquals(new BoardRenderer().renderBoardAsString(game.getBoard()), renderer.renderBoardAsString());
+
+        game.revealCell(3, 3);
+        assertEquals(new BoardRenderer().renderBoardAsString(game.getBoard()), renderer.renderBoardAsString());
+    }
+
+    @Test
+    public void diffShouldOnlyContainTheRevealedCells() {
+        BitSet mines = new BitSet();
+        mines.set(0);
+        Game game = new Game(new Board(3, 4, mines));
+        IncrementalBoardRenderer renderer = new IncrementalBoardRenderer(game, 1);
+
+        game.revealCell(0, 1);
+        assertEquals("\u001b[1;2H1\u001b[4;1H", renderer.renderAnsiDiff());
+        assertEquals("", renderer.renderAnsiDiff());
+
+        game.revealCell(2, 3);
+        // Consecutive cells of a row share a single cursor move
+        assertEquals("\u001b[1;3H00\u001b[2;1H1100\u001b[3;1H0000\u001b[4;1H", renderer.renderAnsiDiff());
+    }
+
+}
@@ -0,0 +1,61 @@
+package fr.leward.minesweeper.cli.renderer;
+
+import fr.leward.minesweeper.cli.FrameWriter;
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.game.Game;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+public class ViewportRendererTest {
+
+    private static String render(ViewportRenderer viewport) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        FrameWriter out = new FrameWriter(output);
+        viewport.render(out);
+        out.flush();
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void windowCoveringTheBoardShouldMatchTheFullRenderer() throws IOException {
+        Game game = new Game(6, 7, 5, 42L);
+        game.revealCell(3, 3);
+        ViewportRenderer viewport = new ViewportRenderer(game.getBoard(), 100, 100);
+
+        assertEquals(6, viewport.getRows());
+        assertEquals(7, viewport.getColumns());
+        assertEquals(new BoardRenderer().renderBoardAsString(game.getBoard()), render(viewport));
+    }
+
+    @Test
+    public void scrollShouldStayInsideTheBoard() throws IOException {
+        BitSet mines = new BitSet();
+        mines.set(0);
+        Game game = new Game(new Board(3, 4, mines));
+        game.revealCell(2, 3);
+        game.flagCell(0, 0);
+        ViewportRenderer viewport = new ViewportRenderer(game.getBoard(), 2, 2);
+
+        assertEquals("F1\n11\n", render(viewport));
+
+        viewport.scroll(10, 1);
+        assertEquals(1, viewport.getTop());
+        assertEquals(1, viewport.getLeft());
+        assertEquals("10\n00\n", render(viewport));
+
+        viewport.ensureVisible(0, 3);
+        assertEquals(0, viewport.getTop());
+        assertEquals(2, viewport.getLeft());
+
+        viewport.centerOn(-5, -5);
+        assertEquals(0, viewport.getTop());
+        assertEquals(0, viewport.getLeft());
+    }
+
+}
@@ -0,0 +1,77 @@
+package fr.leward.minesweeper.components;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class AdjacencyKernelTest {
+
+    private static BitSet randomMines(int size, double density, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        BitSet mines = new BitSet(size);
+        for(int index = 0; index < size; index++) {
+            if(random.nextDouble() < density) {
+                mines.set(index);
+            }
+        }
+        return mines;
+    }
+
+    @Test
+    public void kernelShouldMatchTheScalarCountAndTheBoard() {
+        // Heights around the word boundaries, so that rows start anywhere inside a word
+        int[] heights = {1, 2, 3, 7, 8, 9, 63, 64, 65, 127, 128, 129, 200};
+        int[] widths = {1, 2, 3, 17};
+        double[] densities = {0, 0.01, 0.2, 0.5, 1};
+        long seed = 0;
+        for(int width : widths) {
+            for(int height : heights) {
+                for(double density : densities) {
+                    BitSet mines = randomMines(width * height, density, seed++);
+                    byte[] kernel = new byte[width * height];
+                    byte[] scalar = new byte[width * height];
+                    AdjacencyKernel.countAdjacentMines(mines.toLongArray(), width, height, kernel);
+                    AdjacencyKernel.countAdjacentMinesScalar(mines.toLongArray(), width, height, scalar);
+                    assertArrayEquals(width + "x" + height + " at " + density, scalar, kernel);
+
+                    if(mines.cardinality() == width * height) {
+                        // A board needs at least one safe cell
+                        continue;
+                    }
+                    Board board = new Board(width, height, mines);
+                    for(int index = 0; index < width * height; index++) {
+                        assertEquals(scalar[index], board.countAdjacentMines(index));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void kernelShouldOverwriteTheWholeGrid() {
+        byte[] counts = new byte[5 * 70];
+        Arrays.fill(counts, (byte) 42);
+        AdjacencyKernel.countAdjacentMines(new long[0], 5, 70, counts);
+        assertArrayEquals(new byte[5 * 70], counts);
+    }
+
+    @Test
+    public void movingAMineShouldKeepTheCountsOfADenseBoardExact() {
+        Board board = new Board(20, 70, 400, new RandomMineLayoutGenerator(3L));
+        BitSet mines = BitSet.valueOf(board.getMineWords());
+        int from = mines.nextSetBit(0);
+        int to = mines.nextClearBit(0);
+        board.moveMine(from / 70, from % 70, to / 70, to % 70);
+
+        byte[] expected = new byte[20 * 70];
+        AdjacencyKernel.countAdjacentMinesScalar(board.getMineWords(), 20, 70, expected);
+        for(int index = 0; index < expected.length; index++) {
+            assertEquals(expected[index], board.countAdjacentMines(index));
+        }
+    }
+
+}
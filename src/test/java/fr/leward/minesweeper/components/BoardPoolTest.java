@@ -0,0 +1,57 @@
+package fr.leward.minesweeper.components;
+
+import fr.leward.minesweeper.exception.TooManyMinesException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BoardPoolTest {
+
+    @Test
+    public void acquireShouldReuseABoardOfTheSameSize() {
+        BoardPool pool = new BoardPool(2);
+        Board board = pool.acquire(10, 20, 30, 1L);
+        board.reveal(0);
+        board.flag(1);
+        assertTrue(pool.release(board));
+        assertEquals(1, pool.size());
+
+        assertNotSame(board, pool.acquire(20, 10, 30, 1L));
+        Board recycled = pool.acquire(10, 20, 50, 2L);
+
+        assertSame(board, recycled);
+        assertEquals(0, pool.size());
+        assertEquals(50, recycled.getNbMines());
+        assertEquals(0, recycled.getFlags());
+        assertEquals(0, recycled.getRevealedSafeCells() + recycled.getRevealedMines());
+        Board expected = new Board(10, 20, 50, new RandomMineLayoutGenerator(2L));
+        for(int index = 0; index < expected.getSize(); index++) {
+            assertEquals(expected.isMine(index), recycled.isMine(index));
+            assertEquals(expected.countAdjacentMines(index), recycled.countAdjacentMines(index));
+            assertFalse(recycled.isRevealed(index));
+            assertFalse(recycled.isFlagged(index));
+        }
+    }
+
+    @Test
+    public void releaseShouldStopAtTheCapacity() {
+        BoardPool pool = new BoardPool(2);
+        Board first = new Board(3, 3, 1);
+        assertTrue(pool.release(first));
+        assertFalse(pool.release(first));
+        assertTrue(pool.release(new Board(3, 3, 1)));
+        assertFalse(pool.release(new Board(3, 3, 1)));
+        assertEquals(2, pool.size());
+
+        pool.clear();
+        assertEquals(0, pool.size());
+    }
+
+    @Test(expected = TooManyMinesException.class)
+    public void acquireWithTooManyMinesShouldFail() {
+        BoardPool pool = new BoardPool(1);
+        pool.release(new Board(3, 3, 1));
+        pool.acquire(3, 3, 9, 1L);
+    }
+
+}
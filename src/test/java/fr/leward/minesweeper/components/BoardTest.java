@@ -9,6 +9,7 @@ import fr.leward.minesweeper.components.Board;
 import fr.leward.minesweeper.exception.TooManyMinesException;
 import org.junit.Test;
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,6 +36,38 @@ public class BoardTest {
         new Board(4, 4, 50);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void boardWithTooManyCellsShouldThrowException() {
+        // 2.5 billion cells overflow an int
+        new Board(50_000, 50_000, 10);
+    }
+
+    @Test
+    public void inconsistentLayoutShouldBeRejected() {
+        BitSet pastTheLastCell = new BitSet();
+        pastTheLastCell.set(16);
+        BitSet full = new BitSet();
+        full.set(0, 16);
+        PlainBitStore padded = new PlainBitStore(15);
+        padded.setWord(0, 1L << 20);
+        Runnable[] boards = {
+                () -> new Board(4, 4, pastTheLastCell),
+                () -> new Board(4, 4, full),
+                () -> new Board(4, 4, new BitSet(), new PlainBitStore(15)),
+                () -> new Board(3, 5, new BitSet(), new PlainBitStore(15), padded),
+                () -> new Board(0, 4, new BitSet())
+        };
+        for(int i = 0; i < boards.length; i++) {
+            try {
+                boards[i].run();
+                fail("Board " + i + " was accepted");
+            }
+            catch (IllegalArgumentException | TooManyMinesException e) {
+                // expected
+            }
+        }
+    }
+
     @Test
     public void shouldGetCellsInBoard() {
         Board board = new Board(4, 4, 4);
@@ -112,12 +145,53 @@ public class BoardTest {
 
     @Test
     public void testCountAdjacentMines() {
-        Board boardMock = mock(Board.class);
-        when(boardMock.getAdjacentCells(0, 0)).thenReturn(ImmutableList.copyOf(Lists.newArrayList(new Cell(0,0), new Cell(0,0,true), new Cell(0,0))));
-        when(boardMock.countAdjacentMines(0, 0)).thenCallRealMethod();
-        // Static method Board.countMines is not mocked and mockito does not support testing of static methods
-        // Moreover, countAdjacentMines is a composition of two functions that are already unit tested
-        assertEquals(1, boardMock.countAdjacentMines(0, 0));
+        // Mines at (0,1) and (1,1) on a 3x3 board
+        BitSet mines = new BitSet();
+        mines.set(1);
+        mines.set(4);
+        Board board = new Board(3, 3, mines);
+        assertEquals(2, board.countAdjacentMines(0, 0));
+        assertEquals(1, board.countAdjacentMines(0, 1));
+        assertEquals(1, board.countAdjacentMines(2, 2));
+        assertEquals(1, board.countAdjacentMines(2, 1));
+    }
+
+    @Test
+    public void movingAMineShouldUpdateAdjacentCounts() {
+        // Mine at (0,0) on a 4x4 board, moved to (3,3)
+        BitSet mines = new BitSet();
+        mines.set(0);
+        Board board = new Board(4, 4, mines);
+        assertEquals(1, board.countAdjacentMines(1, 1));
+        assertEquals(0, board.countAdjacentMines(2, 2));
+
+        board.moveMine(0, 0, 3, 3);
+        assertFalse(board.isMine(0, 0));
+        assertTrue(board.isMine(3, 3));
+        assertEquals(0, board.countAdjacentMines(1, 1));
+        assertEquals(1, board.countAdjacentMines(2, 2));
+        assertEquals(1, board.countAdjacentMines(3, 2));
+        assertEquals(0, board.countAdjacentMines(0, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void movingAMissingMineShouldThrowException() {
+        Board board = new Board(4, 4, new BitSet());
+        board.moveMine(0, 0, 3, 3);
+    }
+
+    @Test
+    public void cellsShouldBeViewsOverTheBoard() {
+        BitSet mines = new BitSet();
+        mines.set(4);
+        Board board = new Board(3, 3, mines);
+        assertTrue(board.getCell(1, 1).get().isMine());
+        assertFalse(board.getCell(0, 0).get().isMine());
+
+        board.getCell(2, 1).get().reveal();
+        assertTrue(board.isRevealed(2, 1));
+        assertTrue(board.getCells().get(2, 1).isRevealed());
+        assertEquals(9, board.getCells().size());
     }
 
     private int countMinesOnBoard(Board board) {
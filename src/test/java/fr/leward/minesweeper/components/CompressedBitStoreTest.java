@@ -0,0 +1,206 @@
+package fr.leward.minesweeper.components;
+
+import fr.leward.minesweeper.game.BatchResult;
+import fr.leward.minesweeper.game.Game;
+import fr.leward.minesweeper.game.MoveBatch;
+import fr.leward.minesweeper.game.MoveType;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class CompressedBitStoreTest {
+
+    private static final int SIZE = 5 * 65536 + 1024;
+
+    private static void assertSameBits(PlainBitStore expected, CompressedBitStore actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        int rank = 0;
+        for(int wordIndex = 0; wordIndex < expected.wordCount(); wordIndex++) {
+            assertEquals("word " + wordIndex, expected.word(wordIndex), actual.word(wordIndex));
+            assertEquals("rank of word " + wordIndex, rank, actual.rank(wordIndex << 6));
+            rank += Long.bitCount(expected.word(wordIndex));
+        }
+        assertEquals(rank, actual.rank(actual.size()));
+    }
+
+    @Test
+    public void randomOperationsShouldMatchAPlainStore() {
+        SplittableRandom random = new SplittableRandom(3);
+        PlainBitStore expected = new PlainBitStore(SIZE);
+        CompressedBitStore actual = new CompressedBitStore(SIZE);
+        for(int round = 0; round < 20000; round++) {
+            // Operations gather around a few spots so that tiles go through every container
+            int index = Math.min(SIZE - 1, (random.nextInt(6) * 65536) + (int) Math.abs(random.nextGaussian() * 3000));
+            int wordIndex = index >>> 6;
+            switch(random.nextInt(5)) {
+                case 0:
+                    assertEquals(expected.set(index), actual.set(index));
+                    break;
+                case 1:
+                    assertEquals(expected.clear(index), actual.clear(index));
+                    break;
+                case 2:
+                    long mask = random.nextBoolean() ? random.nextLong() : -1L >>> random.nextInt(64);
+                    assertEquals(expected.orWord(wordIndex, mask), actual.orWord(wordIndex, mask));
+                    break;
+                case 3:
+                    long word = random.nextLong() & random.nextLong();
+                    expected.setWord(wordIndex, word);
+                    actual.setWord(wordIndex, word);
+                    break;
+                default:
+                    assertEquals(expected.get(index), actual.get(index));
+            }
+            if(round % 2000 == 0) {
+                actual.runOptimize();
+            }
+        }
+        assertSameBits(expected, actual);
+        actual.runOptimize();
+        assertSameBits(expected, actual);
+    }
+
+    @Test
+    public void tilesShouldUseTheSmallestContainer() {
+        CompressedBitStore store = new CompressedBitStore(4 * 65536);
+        // A few scattered bits
+        for(int i = 0; i < 100; i++) {
+            store.set(i * 7);
+        }
+        // A long range of consecutive bits
+        for(int wordIndex = 1024; wordIndex < 2000; wordIndex++) {
+            store.orWord(wordIndex, -1L);
+        }
+        // One bit out of two
+        for(int index = 2 * 65536; index < 3 * 65536; index += 2) {
+            store.set(index);
+        }
+
+        store.runOptimize();
+        assertEquals('a', store.containerType(0));
+        assertEquals('r', store.containerType(1));
+        assertEquals('b', store.containerType(2));
+        assertEquals('-', store.containerType(3));
+        assertEquals(100 + 976 * 64 + 32768, store.cardinality());
+        assertTrue(store.getSizeInBytes() < 10000);
+    }
+
+    @Test
+    public void longRangeOnScatteredArrayShouldNotExceedABitmap() {
+        PlainBitStore expected = new PlainBitStore(65536);
+        CompressedBitStore store = new CompressedBitStore(65536);
+        // 4080 isolated bits, as many runs: the range goes beyond what an array or runs can hold
+        for(int index = 0; index < 8160; index += 2) {
+            expected.set(index);
+            store.set(index);
+        }
+        assertEquals('a', store.containerType(0));
+
+        expected.orWord(200, -1L);
+        store.orWord(200, -1L);
+        assertEquals('b', store.containerType(0));
+        assertTrue(store.getSizeInBytes() <= 16 + 4 + 16 + CompressedBitStore.BITMAP_BYTES);
+        assertSameBits(expected, store);
+    }
+
+    @Test
+    public void unionOfSparseStoresShouldStaySparse() {
+        int size = 16 * 65536;
+        PlainBitStore expected = new PlainBitStore(size);
+        CompressedBitStore left = new CompressedBitStore(size);
+        CompressedBitStore right = new CompressedBitStore(size);
+        for(int tile = 0; tile < 16; tile++) {
+            int base = tile << 16;
+            left.set(base + 5);
+            right.set(base + 1000);
+            right.set(base + 5);
+            expected.set(base + 5);
+            expected.set(base + 1000);
+        }
+        long before = left.getSizeInBytes();
+
+        left.union(right);
+        for(int tile = 0; tile < 16; tile++) {
+            assertEquals('a', left.containerType(tile));
+        }
+        assertTrue(left.getSizeInBytes() < 2 * before);
+        assertSameBits(expected, left);
+    }
+
+    @Test
+    public void clearingARunShouldSplitIt() {
+        CompressedBitStore store = new CompressedBitStore(1000);
+        store.orWord(2, -1L);
+        store.orWord(3, -1L);
+        store.runOptimize();
+        assertEquals('r', store.containerType(0));
+
+        assertTrue(store.clear(150));
+        assertFalse(store.get(150));
+        assertTrue(store.get(149));
+        assertTrue(store.get(151));
+        assertEquals(127, store.cardinality());
+        assertEquals(22, store.rank(150));
+        assertEquals(22, store.rank(151));
+    }
+
+    @Test
+    public void unionShouldSetTheBitsOfBothStores() {
+        SplittableRandom random = new SplittableRandom(8);
+        PlainBitStore expected = new PlainBitStore(SIZE);
+        CompressedBitStore left = new CompressedBitStore(SIZE);
+        CompressedBitStore right = new CompressedBitStore(SIZE);
+        for(int i = 0; i < 3000; i++) {
+            int index = random.nextInt(SIZE);
+            expected.set(index);
+            (random.nextBoolean() ? left : right).set(index);
+        }
+        for(int wordIndex = 2000; wordIndex < 3000; wordIndex++) {
+            expected.orWord(wordIndex, -1L);
+            right.orWord(wordIndex, -1L);
+        }
+        right.runOptimize();
+
+        left.union(right);
+        assertSameBits(expected, left);
+    }
+
+    @Test
+    public void gamesShouldPlayTheSameOnACompressedBoard() {
+        SplittableRandom random = new SplittableRandom(12);
+        for(int round = 0; round < 10; round++) {
+            int rows = 50 + random.nextInt(300);
+            int columns = 50 + random.nextInt(300);
+            int nbMines = rows * columns / (8 + random.nextInt(20));
+            long seed = random.nextLong();
+            Game plain = new Game(new Board(rows, columns, nbMines, new RandomMineLayoutGenerator(seed)));
+            Game compressed = new Game(new Board(rows, columns, nbMines, new RandomMineLayoutGenerator(seed),
+                    new CompressedBitStore(rows * columns)));
+            if(random.nextBoolean()) {
+                compressed.getBoard().enableZeroRegionIndex();
+            }
+            MoveBatch batch = new MoveBatch();
+            for(int move = 0; move < 200; move++) {
+                int row = random.nextInt(rows);
+                int column = random.nextInt(columns);
+                MoveType type = random.nextInt(4) == 0 ? MoveType.FLAG : MoveType.REVEAL;
+                if(type == MoveType.FLAG || !plain.getBoard().isMine(row * columns + column)) {
+                    batch.add(type, row, column);
+                }
+            }
+            BatchResult expected = plain.playMoves(batch, new BatchResult());
+            BatchResult actual = compressed.playMoves(batch, new BatchResult());
+            for(int move = 0; move < batch.size(); move++) {
+                assertEquals(expected.getStatus(move), actual.getStatus(move));
+            }
+            assertEquals(plain.getStatus(), compressed.getStatus());
+            assertEquals(plain.getBoard().getRevealedSafeCells(), compressed.getBoard().getRevealedSafeCells());
+            for(int index = 0; index < rows * columns; index++) {
+                assertEquals(plain.getBoard().isRevealed(index), compressed.getBoard().isRevealed(index));
+                assertEquals(plain.getBoard().isFlagged(index), compressed.getBoard().isFlagged(index));
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package fr.leward.minesweeper.components;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NeighbourhoodTest {
+
+    @Test
+    public void neighboursShouldMatchBoundedScan() {
+        int[][] shapes = {{1, 1}, {1, 5}, {5, 1}, {2, 2}, {3, 3}, {4, 7}, {9, 9}};
+        int[] neighbours = new int[8];
+        for(int[] shape : shapes) {
+            int width = shape[0];
+            int height = shape[1];
+            Neighbourhood neighbourhood = new Neighbourhood(width, height);
+            for(int index = 0; index < width * height; index++) {
+                List<Integer> expected = scan(width, height, index);
+
+                int count = neighbourhood.neighbours(index, neighbours);
+                List<Integer> actual = new ArrayList<>();
+                for(int i = 0; i < count; i++) {
+                    actual.add(neighbours[i]);
+                }
+                assertEquals(expected, actual);
+
+                List<Integer> visited = new ArrayList<>();
+                neighbourhood.forEach(index, visited::add);
+                assertEquals(expected, visited);
+
+                assertEquals(expected.size() == 8, neighbourhood.isInterior(index));
+            }
+        }
+    }
+
+    @Test
+    public void countShouldOnlyCountNeighbours() {
+        Neighbourhood neighbourhood = new Neighbourhood(3, 3);
+        PlainBitStore bits = new PlainBitStore(9);
+        bits.set(0);
+        bits.set(4);
+        bits.set(8);
+        assertEquals(2, neighbourhood.count(4, bits));
+        assertEquals(1, neighbourhood.count(0, bits));
+        assertEquals(2, neighbourhood.count(1, bits));
+        assertEquals(2, neighbourhood.count(7, bits));
+    }
+
+    private static List<Integer> scan(int width, int height, int index) {
+        int row = index / height;
+        int column = index % height;
+        List<Integer> neighbours = new ArrayList<>();
+        for(int r = Math.max(0, row - 1); r <= Math.min(width - 1, row + 1); r++) {
+            for(int c = Math.max(0, column - 1); c <= Math.min(height - 1, column + 1); c++) {
+                if(r != row || c != column) {
+                    neighbours.add(r * height + c);
+                }
+            }
+        }
+        return neighbours;
+    }
+}
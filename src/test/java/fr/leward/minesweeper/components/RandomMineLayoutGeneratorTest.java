@@ -0,0 +1,50 @@
+package fr.leward.minesweeper.components;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+public class RandomMineLayoutGeneratorTest {
+
+    @Test
+    public void sparseLayoutShouldHaveTheRightAmountOfMines() {
+        BitSet mines = new BitSet();
+        new RandomMineLayoutGenerator(42).placeMines(mines, 10000, 100);
+        assertEquals(100, mines.cardinality());
+        assertTrue(mines.length() <= 10000);
+    }
+
+    @Test
+    public void denseLayoutShouldHaveTheRightAmountOfMines() {
+        BitSet mines = new BitSet();
+        new RandomMineLayoutGenerator(42).placeMines(mines, 10000, 4000);
+        assertEquals(4000, mines.cardinality());
+
+        mines = new BitSet();
+        new RandomMineLayoutGenerator(42).placeMines(mines, 10000, 9999);
+        assertEquals(9999, mines.cardinality());
+        assertTrue(mines.length() <= 10000);
+    }
+
+    @Test
+    public void sameSeedShouldProduceTheSameBoard() {
+        Board first = new Board(30, 16, 99, new RandomMineLayoutGenerator(1234));
+        Board second = new Board(30, 16, 99, new RandomMineLayoutGenerator(1234));
+        for(int index = 0; index < first.getSize(); index++) {
+            assertEquals(first.isMine(index), second.isMine(index));
+        }
+    }
+
+    @Test
+    public void generatorShouldProduceDifferentLayoutsWhenReused() {
+        RandomMineLayoutGenerator generator = new RandomMineLayoutGenerator(1234);
+        BitSet first = new BitSet();
+        BitSet second = new BitSet();
+        generator.placeMines(first, 480, 99);
+        generator.placeMines(second, 480, 99);
+        assertNotEquals(first, second);
+    }
+
+}
@@ -0,0 +1,135 @@
+package fr.leward.minesweeper.components;
+
+import fr.leward.minesweeper.game.Game;
+import fr.leward.minesweeper.game.GameStatus;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class ZeroRegionIndexTest {
+
+    private static BitSet mines(int... indexes) {
+        BitSet mines = new BitSet();
+        for(int index : indexes) {
+            mines.set(index);
+        }
+        return mines;
+    }
+
+    private static void assertSameRevealedCells(Board expected, Board actual) {
+        for(int index = 0; index < expected.getSize(); index++) {
+            assertEquals("cell " + index, expected.isRevealed(index), actual.isRevealed(index));
+        }
+        assertEquals(expected.getRevealedSafeCells(), actual.getRevealedSafeCells());
+        assertEquals(expected.getRevealedMines(), actual.getRevealedMines());
+    }
+
+    @Test
+    public void regionsShouldHoldTheirEmptyCellsAndTheirBorder() {
+        // 0 0 1 X 1
+        // 0 0 1 1 1
+        // 1 1 0 0 0
+        // X 1 0 0 0
+        Board board = new Board(4, 5, mines(3, 15));
+        board.enableZeroRegionIndex();
+        ZeroRegionIndex index = board.getZeroRegionIndex();
+
+        // The empty cells of the top left corner touch the ones of the bottom right diagonally
+        assertEquals(1, index.getRegionCount());
+        assertEquals(0, index.regionOf(0));
+        assertEquals(0, index.regionOf(19));
+        assertEquals(-1, index.regionOf(2));
+        assertEquals(-1, index.regionOf(3));
+        // Every safe cell but the top right one, whose neighbours all have a number
+        assertEquals(17, index.getRegionSize(0));
+    }
+
+    @Test
+    public void bulkRevealShouldMatchTheFloodFill() {
+        SplittableRandom random = new SplittableRandom(5);
+        for(int round = 0; round < 40; round++) {
+            int width = 1 + random.nextInt(40);
+            int height = 1 + random.nextInt(90);
+            int nbMines = random.nextInt(Math.max(1, width * height / 6));
+            long seed = random.nextLong();
+            Board indexed = new Board(width, height, nbMines, new RandomMineLayoutGenerator(seed));
+            indexed.enableZeroRegionIndex();
+            Board plain = new Board(width, height, nbMines, new RandomMineLayoutGenerator(seed));
+            Game indexedGame = new Game(indexed);
+            Game plainGame = new Game(plain);
+            int[] notified = new int[2];
+            indexedGame.addRevealListener(index -> notified[0]++);
+            plainGame.addRevealListener(index -> notified[1]++);
+
+            while(plainGame.getStatus() == GameStatus.IN_PROGRESS) {
+                int cell = random.nextInt(width * height);
+                if(plain.isRevealed(cell)) {
+                    continue;
+                }
+                int row = cell / height;
+                int column = cell % height;
+                assertEquals(plainGame.revealCell(row, column), indexedGame.revealCell(row, column));
+                assertSameRevealedCells(plain, indexed);
+                assertEquals(notified[1], notified[0]);
+            }
+            assertEquals(plainGame.getStatus(), indexedGame.getStatus());
+        }
+    }
+
+    @Test
+    public void indexShouldFollowTheChangesOfTheLayout() {
+        Board indexed = new Board(6, 6, mines(14));
+        indexed.enableZeroRegionIndex();
+        ZeroRegionIndex before = indexed.getZeroRegionIndex();
+
+        indexed.moveMine(2, 2, 0, 3);
+        assertNotSame(before, indexed.getZeroRegionIndex());
+        Board plain = new Board(6, 6, mines(3));
+        assertEquals(new Game(plain).revealCell(5, 0), new Game(indexed).revealCell(5, 0));
+        assertSameRevealedCells(plain, indexed);
+
+        indexed.reset(new RandomMineLayoutGenerator(4L));
+        plain = new Board(6, 6, 1, new RandomMineLayoutGenerator(4L));
+        int cell = 0;
+        while(plain.isMine(cell) || plain.countAdjacentMines(cell) != 0) {
+            cell++;
+        }
+        assertEquals(new Game(plain).revealCell(cell / 6, cell % 6), new Game(indexed).revealCell(cell / 6, cell % 6));
+        assertSameRevealedCells(plain, indexed);
+    }
+
+    @Test
+    public void flagsShouldStopTheCascade() {
+        Board indexed = new Board(3, 5, mines(0));
+        indexed.enableZeroRegionIndex();
+        Game game = new Game(indexed);
+        game.flagCell(1, 2);
+
+        game.revealCell(2, 4);
+
+        assertFalse(indexed.isRevealed(1, 2));
+        assertTrue(indexed.isRevealed(0, 4));
+        assertEquals(13, indexed.getRevealedSafeCells());
+    }
+
+    @Test
+    public void replayShouldReuseTheIndex() {
+        Board board = new Board(30, 30, 60, new RandomMineLayoutGenerator(9L));
+        board.enableZeroRegionIndex();
+        ZeroRegionIndex index = board.getZeroRegionIndex();
+        assertTrue(index.getRegionCount() > 0);
+
+        int revealed = board.revealRegion(0, null);
+        assertEquals(index.getRegionSize(0), revealed);
+        assertEquals(revealed, board.getRevealedSafeCells());
+
+        board.hideAllCells();
+        assertEquals(0, board.getRevealedSafeCells());
+        assertEquals(revealed, board.revealRegion(0, null));
+        assertSame(index, board.getZeroRegionIndex());
+    }
+
+}
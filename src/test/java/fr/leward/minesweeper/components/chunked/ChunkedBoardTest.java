@@ -0,0 +1,136 @@
+package fr.leward.minesweeper.components.chunked;
+
+import fr.leward.minesweeper.components.Cell;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class ChunkedBoardTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ChunkedBoard newBoard(long seed, double density, int maxLoadedChunks, int maxCascade) throws IOException {
+        return new ChunkedBoard(seed, density, maxLoadedChunks, maxCascade, folder.newFolder().toPath());
+    }
+
+    @Test
+    public void minesShouldOnlyDependOnSeed() throws IOException {
+        ChunkedBoard board = newBoard(7L, 0.2, 4, 100);
+        ChunkedBoard other = newBoard(7L, 0.2, 4, 100);
+        // Explore the chunks in opposite orders, with evictions on the way
+        boolean[] mines = new boolean[31 * 24];
+        int cell = 0;
+        for(int row = -200; row < 200; row += 13) {
+            for(int column = -200; column < 200; column += 17) {
+                mines[cell++] = board.isMine(row, column);
+            }
+        }
+        for(int row = -200 + 30 * 13; row >= -200; row -= 13) {
+            for(int column = -200 + 23 * 17; column >= -200; column -= 17) {
+                assertEquals(mines[--cell], other.isMine(row, column));
+            }
+        }
+    }
+
+    @Test
+    public void adjacentMinesShouldBeCountedAcrossChunks() throws IOException {
+        ChunkedBoard board = newBoard(3L, 0.3, 16, 100);
+        for(int row = -70; row < 70; row++) {
+            for(int column = -70; column < 70; column += 3) {
+                int expected = 0;
+                for(Cell cell : board.getAdjacentCells(row, column)) {
+                    expected += cell.isMine() ? 1 : 0;
+                }
+                assertEquals(expected, board.countAdjacentMines(row, column));
+            }
+        }
+    }
+
+    @Test
+    public void cascadeShouldStopAtLimitAndContinue() throws IOException {
+        ChunkedBoard board = newBoard(1L, 0, 16, 1000);
+        assertEquals(1000, board.reveal(0, 0));
+        assertTrue(board.hasPendingCascade());
+        // The first cascade has crossed the borders of the chunk of the cell
+        assertTrue(board.isRevealed(-1, -1));
+        assertEquals(1000, board.continueCascade());
+        assertEquals(2000, board.getRevealedSafeCells());
+    }
+
+    @Test
+    public void cascadeShouldRevealWholeEmptyRegion() throws IOException {
+        ChunkedBoard board = newBoard(11L, 0.2, 16, Integer.MAX_VALUE);
+        int row = 0;
+        while(board.isMine(row, 0) || board.countAdjacentMines(row, 0) != 0) {
+            row++;
+        }
+        int revealed = board.reveal(row, 0);
+        assertFalse(board.hasPendingCascade());
+        assertEquals(revealed, board.getRevealedSafeCells());
+        assertEquals(0, board.getRevealedMines());
+        assertEquals(0, board.reveal(row, 0));
+    }
+
+    @Test
+    public void evictedChunksShouldKeepRevealedCells() throws IOException {
+        ChunkedBoard board = newBoard(5L, 0.1, 4, 1);
+        for(int chunk = 0; chunk < 20; chunk++) {
+            board.reveal(chunk * 1000, chunk * 1000);
+        }
+        assertEquals(4, board.getLoadedChunks());
+        assertTrue(board.getSpilledChunks() > 0);
+        for(int chunk = 0; chunk < 20; chunk++) {
+            assertTrue(board.isRevealed(chunk * 1000, chunk * 1000));
+            assertFalse(board.isRevealed(chunk * 1000 + 1, chunk * 1000 + 1));
+        }
+    }
+
+    @Test
+    public void chunkInPlayShouldStayLoaded() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        ChunkedBoard board = new ChunkedBoard(5L, 0.1, 4, 1, directory);
+        for(int chunk = 1; chunk <= 3; chunk++) {
+            board.reveal(chunk * 1000 + 32, chunk * 1000 + 32);
+        }
+        board.reveal(32, 32);
+        for(int chunk = 1; chunk <= 3; chunk++) {
+            board.isRevealed(chunk * 1000 + 32, chunk * 1000 + 32);
+        }
+        // Playing again in the first chunk makes it the most recently used one
+        board.isMine(32, 33);
+
+        board.reveal(5032, 5032);
+        assertFalse(Files.exists(directory.resolve("0_0.chunk")));
+        assertTrue(Files.exists(directory.resolve("16_16.chunk")));
+    }
+
+    @Test
+    public void reloadedChunksShouldDeleteTheirSpillFile() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        ChunkedBoard board = new ChunkedBoard(5L, 0.1, 4, 1, directory);
+        for(int round = 0; round < 3; round++) {
+            for(int chunk = 0; chunk < 20; chunk++) {
+                board.reveal(chunk * 1000 + round, chunk * 1000);
+            }
+        }
+        try(Stream<Path> files = Files.list(directory)) {
+            assertEquals(board.getSpilledChunks(), files.count());
+        }
+        assertEquals(16, board.getSpilledChunks());
+    }
+
+    @Test
+    public void untouchedChunksShouldNotBeCreated() throws IOException {
+        ChunkedBoard board = newBoard(5L, 0.1, 4, 1);
+        assertFalse(board.isRevealed(123456, -654321));
+        assertEquals(0, board.getLoadedChunks());
+    }
+}
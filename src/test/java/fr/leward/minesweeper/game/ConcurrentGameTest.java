@@ -0,0 +1,89 @@
+package fr.leward.minesweeper.game;
+
+import fr.leward.minesweeper.components.AtomicBitStore;
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.components.PlainBitStore;
+import fr.leward.minesweeper.exception.CellAlreadyRevealedException;
+import fr.leward.minesweeper.exception.GameOverException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentGameTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void boardShouldBeThreadSafe() {
+        new ConcurrentGame(new Board(4, 4, new BitSet(), new PlainBitStore(16)));
+    }
+
+    @Test
+    public void concurrentCascadesShouldRevealEachCellOnce() throws Exception {
+        int rows = 300;
+        int columns = 300;
+        // A few mines scattered so that threads run into each other's regions
+        BitSet mines = new BitSet();
+        for(int index = 1234; index < rows * columns; index += 7919) {
+            mines.set(index);
+        }
+        ConcurrentGame game = new ConcurrentGame(new Board(rows, columns, mines, new AtomicBitStore(rows * columns)));
+        AtomicIntegerArray reveals = new AtomicIntegerArray(rows * columns);
+        game.addRevealListener(reveals::incrementAndGet);
+
+        int nbThreads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for(int t = 0; t < nbThreads; t++) {
+            int offset = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                int revealedCells = 0;
+                // Every thread tries every safe cell, in a different order
+                for(int i = 0; i < rows * columns; i++) {
+                    int index = (i * 31 + offset * 977) % (rows * columns);
+                    if(mines.get(index)) {
+                        continue;
+                    }
+                    try {
+                        revealedCells += game.revealCell(index / columns, index % columns);
+                    }
+                    catch (CellAlreadyRevealedException | GameOverException e) {
+                        // Another thread got there first
+                    }
+                }
+                return revealedCells;
+            }));
+        }
+        start.countDown();
+        int totalRevealed = 0;
+        for(Future<Integer> future : futures) {
+            totalRevealed += future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        int safeCells = rows * columns - mines.cardinality();
+        assertEquals(safeCells, totalRevealed);
+        assertEquals(safeCells, game.getBoard().getRevealedSafeCells());
+        for(int index = 0; index < rows * columns; index++) {
+            assertEquals(mines.get(index) ? 0 : 1, reveals.get(index));
+        }
+        assertEquals(GameStatus.WON, game.getStatus());
+    }
+
+    @Test
+    public void revealingAMineShouldEndTheGame() {
+        BitSet mines = new BitSet();
+        mines.set(5);
+        ConcurrentGame game = new ConcurrentGame(new Board(4, 4, mines, new AtomicBitStore(16)));
+        game.revealCell(1, 1);
+        assertTrue(game.isGameOver());
+        assertEquals(1, game.getHitCounter());
+    }
+
+}
@@ -1,17 +1,14 @@
 package fr.leward.minesweeper.game;
 
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableTable;
 import fr.leward.minesweeper.components.Board;
-import fr.leward.minesweeper.components.Cell;
 import fr.leward.minesweeper.exception.CellAlreadyRevealedException;
+import fr.leward.minesweeper.exception.CellFlaggedException;
 import fr.leward.minesweeper.exception.OutOfBoardException;
 import org.junit.Test;
 
-import java.util.Optional;
+import java.util.BitSet;
 
 import static org.junit.Assert.*;
-import static org.mockito.Mockito.*;
 
 public class GameTest {
 
@@ -31,37 +28,52 @@ public class GameTest {
     @Test
     public void revealingACellWithNoSurroundingMineShouldRevealSurroundingCells() {
         Game game = new Game(9, 9, 1);
-        Board mockedBoard = mock(Board.class);
-        game.setBoard(mockedBoard);
+        // Single mine in the top-left corner
+        game.setBoard(new Board(9, 9, mines(0)));
 
-        Cell cell_5_5 = new Cell(5, 5, false);
-        Cell dummyCell = new Cell(4, 4, false);
+        int revealedCells = game.revealCell(5, 5);
+        assertEquals(80, revealedCells);
+        assertTrue(game.getBoard().isRevealed(4, 4));
+        assertTrue(game.getBoard().isRevealed(0, 1));
+        assertFalse(game.getBoard().isRevealed(0, 0));
+        assertTrue(game.isGameFinished());
+        assertFalse(game.isGameOver());
+    }
+
+    @Test
+    public void cascadeShouldStopOnCellsWithAdjacentMines() {
+        Game game = new Game(5, 5, 1);
+        // Mine in the middle column, so the left two columns are split from the right two by numbers
+        game.setBoard(new Board(5, 5, mines(2, 7, 12, 17, 22)));
+
+        assertEquals(10, game.revealCell(0, 0));
+        assertTrue(game.getBoard().isRevealed(4, 1));
+        assertFalse(game.getBoard().isRevealed(0, 3));
+        assertFalse(game.isGameFinished());
+    }
+
+    @Test
+    public void cascadeShouldOnlyCountOneHit() {
+        Game game = new Game(9, 9, 1);
+        game.setBoard(new Board(9, 9, mines(0)));
+
+        game.revealCell(8, 8);
+        assertEquals(1, game.getHitCounter());
+    }
 
-        when(mockedBoard.getCell(5, 5)).thenReturn(Optional.of(cell_5_5));
-        when(mockedBoard.getCell(4, 4)).thenReturn(Optional.of(dummyCell));
-        when(mockedBoard.countAdjacentMines(5, 5)).thenReturn(0);
-        when(mockedBoard.countAdjacentMines(4, 4)).thenReturn(1);
-        when(mockedBoard.getAdjacentCells(5, 5)).thenReturn(ImmutableList.of(dummyCell)); // List reduced to one neighbours to avoid over complexity in the test
-        when(mockedBoard.getCells()).thenReturn((ImmutableTable) ImmutableTable.builder()
-                        .put(5, 5, cell_5_5)
-                        .put(4, 4, dummyCell)
-                        .build()
-        );
+    @Test
+    public void revealingALargeEmptyRegionShouldNotOverflowTheStack() {
+        Game game = new Game(2, 2, 1);
+        game.setBoard(new Board(2000, 2000, new BitSet()));
 
-        game.revealCell(5, 5);
-        assertTrue(dummyCell.isRevealed());
-        assertTrue(cell_5_5.isRevealed());
+        assertEquals(2000 * 2000, game.revealCell(1000, 1000));
+        assertTrue(game.isGameFinished());
     }
 
     @Test
     public void testRevealAMine() {
         Game game = new Game(5, 5, 2);
-        Board mockedBoard = mock(Board.class);
-        game.setBoard(mockedBoard);
-
-        Cell cell = new Cell(3, 3, true);
-        when(mockedBoard.getCell(3, 3)).thenReturn(Optional.of(cell));
-        when(mockedBoard.getCells()).thenReturn(ImmutableTable.of(3, 3, cell));
+        game.setBoard(new Board(5, 5, mines(18)));
 
         game.revealCell(3, 3);
         assertTrue(game.isGameOver());
@@ -70,29 +82,226 @@ public class GameTest {
     @Test
     public void testGameFinished() {
         Game game = new Game(5, 5, 2);
-        Board mockedBoard = mock(Board.class);
-        game.setBoard(mockedBoard);
+        // Mines on the whole middle column, the right side stays hidden after the first move
+        game.setBoard(new Board(5, 5, mines(2, 7, 12, 17, 22)));
 
-        Cell dummyCell = new Cell(0, 0, false);
-        when(mockedBoard.getCells()).thenReturn(ImmutableTable.of(0, 0, dummyCell));
+        game.revealCell(0, 0);
+        assertFalse(game.isGameFinished());
+        assertEquals(GameStatus.IN_PROGRESS, game.getStatus());
 
-        assertFalse(game.determineIfGameIsFinished());
+        game.revealCell(0, 4);
+        assertTrue(game.isGameFinished());
+        assertEquals(GameStatus.WON, game.getStatus());
+    }
 
-        dummyCell.reveal();
-        assertTrue(game.determineIfGameIsFinished());
+    @Test
+    public void statsShouldFollowTheMoves() {
+        Game game = new Game(5, 5, 2);
+        game.setBoard(new Board(5, 5, mines(2, 7, 12, 17, 22)));
+
+        game.revealCell(0, 0);
+        game.revealCell(2, 2);
+        GameStats stats = game.getStats();
+        assertEquals(GameStatus.LOST, stats.getStatus());
+        assertEquals(2, stats.getHitCounter());
+        assertEquals(10, stats.getRevealedSafeCells());
+        assertEquals(1, stats.getRevealedMines());
+        assertEquals(10, stats.getRemainingSafeCells());
     }
 
     @Test(expected = CellAlreadyRevealedException.class)
     public void revealAlreadyRevealedCell() {
         Game game = new Game(5, 5, 2);
-        Board mockedBoard = mock(Board.class);
-        game.setBoard(mockedBoard);
+        game.setBoard(new Board(5, 5, mines(24)));
+
+        game.revealCell(0, 0);
+        game.revealCell(0, 0);
+    }
+
+    @Test(expected = CellFlaggedException.class)
+    public void revealFlaggedCell() {
+        Game game = new Game(5, 5, 2);
+        game.setBoard(new Board(5, 5, mines(24)));
+
+        game.flagCell(0, 0);
+        game.revealCell(0, 0);
+    }
+
+    @Test
+    public void cascadeShouldSkipFlaggedCells() {
+        Game game = new Game(5, 5, 5);
+        game.setBoard(new Board(5, 5, mines(2, 7, 12, 17, 22)));
+
+        assertTrue(game.flagCell(4, 0));
+        assertFalse(game.flagCell(4, 0));
+        assertEquals(9, game.revealCell(0, 0));
+        assertFalse(game.getBoard().isRevealed(4, 0));
+        assertEquals(1, game.getStats().getFlags());
+        assertEquals(2, game.getHitCounter());
+
+        assertTrue(game.unflagCell(4, 0));
+        assertFalse(game.unflagCell(4, 0));
+        assertEquals(0, game.getStats().getFlags());
+    }
+
+    @Test
+    public void chordOnSatisfiedNumberShouldRevealNeighbours() {
+        Game game = new Game(3, 3, 1);
+        game.setBoard(new Board(3, 3, mines(0)));
+
+        game.revealCell(1, 1);
+        game.flagCell(0, 0);
+        assertEquals(7, game.chordCell(1, 1));
+        assertEquals(GameStatus.WON, game.getStatus());
+        assertEquals(3, game.getHitCounter());
+    }
+
+    @Test
+    public void chordShouldCascadeThroughEmptyNeighbours() {
+        Game game = new Game(5, 5, 1);
+        game.setBoard(new Board(5, 5, mines(0)));
+
+        game.revealCell(0, 1);
+        game.flagCell(0, 0);
+        // (1,1) is a number, the rest of the board is reached through the empty cells next to it
+        assertEquals(23, game.chordCell(0, 1));
+        assertEquals(GameStatus.WON, game.getStatus());
+    }
+
+    @Test
+    public void chordWithWrongFlagShouldLoseGame() {
+        Game game = new Game(3, 3, 1);
+        game.setBoard(new Board(3, 3, mines(0)));
+
+        game.revealCell(1, 1);
+        game.flagCell(0, 1);
+        assertEquals(7, game.chordCell(1, 1));
+        assertEquals(GameStatus.LOST, game.getStatus());
+    }
+
+    @Test
+    public void chordOnUnsatisfiedNumberShouldNotCount() {
+        Game game = new Game(3, 3, 1);
+        game.setBoard(new Board(3, 3, mines(0)));
+
+        game.revealCell(1, 1);
+        assertEquals(0, game.chordCell(1, 1));
+        assertEquals(0, game.chordCell(2, 2));
+        assertEquals(1, game.getHitCounter());
+        assertEquals(1, game.getBoard().getRevealedSafeCells());
+    }
+
+    @Test
+    public void batchShouldReportEveryMoveWithoutThrowing() {
+        Game game = new Game(5, 5, 5);
+        game.setBoard(new Board(5, 5, mines(2, 7, 12, 17, 22)));
+
+        MoveBatch batch = new MoveBatch(2)
+                .flag(4, 0)
+                .reveal(0, 0)
+                .reveal(0, 0)
+                .reveal(4, 0)
+                .flag(4, 0)
+                .reveal(9, 9)
+                .chord(1, 1)
+                .reveal(0, 2)
+                .reveal(0, 3);
+        BatchResult result = game.playMoves(batch);
+
+        assertEquals(9, result.size());
+        assertEquals(MoveStatus.APPLIED, result.getStatus(0));
+        assertEquals(MoveStatus.APPLIED, result.getStatus(1));
+        assertEquals(MoveStatus.ALREADY_REVEALED, result.getStatus(2));
+        assertEquals(MoveStatus.FLAGGED, result.getStatus(3));
+        assertEquals(MoveStatus.NO_EFFECT, result.getStatus(4));
+        assertEquals(MoveStatus.OUT_OF_BOARD, result.getStatus(5));
+        assertEquals(MoveStatus.NO_EFFECT, result.getStatus(6));
+        assertEquals(MoveStatus.APPLIED, result.getStatus(7));
+        assertEquals(MoveStatus.GAME_OVER, result.getStatus(8));
+        assertEquals(3, result.getAppliedMoves());
+        assertEquals(10, result.getRevealedCells());
+        assertEquals(GameStatus.LOST, result.getGameStatus());
+        assertEquals(3, game.getHitCounter());
+    }
 
-        Cell dummyCell = new Cell(0, 0, false);
-        dummyCell.reveal();
-        when(mockedBoard.getCell(0, 0)).thenReturn(Optional.of(dummyCell));
+    @Test
+    public void batchResultShouldBeReusable() {
+        Game game = new Game(3, 3, 1);
+        game.setBoard(new Board(3, 3, mines(0)));
+
+        MoveBatch batch = new MoveBatch();
+        BatchResult result = new BatchResult();
+        game.playMoves(batch.reveal(1, 1).flag(0, 0), result);
+        assertEquals(2, result.getAppliedMoves());
+
+        batch.clear();
+        game.playMoves(batch.chord(1, 1), result);
+        assertEquals(1, result.size());
+        assertEquals(7, result.getRevealedCells());
+        assertEquals(GameStatus.WON, result.getGameStatus());
+    }
+
+    @Test
+    public void resetShouldStartANewGameOnTheSameBoard() {
+        Game game = new Game(9, 9, 10, 1L);
+        Board board = game.getBoard();
+        int[] revealedByListener = new int[1];
+        game.addRevealListener(index -> revealedByListener[0]++);
+        game.flagCell(0, 0);
+        game.revealCell(4, 4);
+
+        game.reset(2L);
+
+        Game expected = new Game(9, 9, 10, 2L);
+        assertSame(board, game.getBoard());
+        assertEquals(0, game.getHitCounter());
+        assertEquals(GameStatus.IN_PROGRESS, game.getStatus());
+        assertEquals(0, board.getFlags());
+        assertEquals(0, board.getRevealedSafeCells() + board.getRevealedMines());
+        for(int index = 0; index < board.getSize(); index++) {
+            assertEquals(expected.getBoard().isMine(index), board.isMine(index));
+            assertEquals(expected.getBoard().countAdjacentMines(index), board.countAdjacentMines(index));
+        }
+
+        // Listeners of the previous game are not notified anymore
+        int revealedBeforeReset = revealedByListener[0];
+        game.revealCell(4, 4);
+        assertEquals(revealedBeforeReset, revealedByListener[0]);
+    }
 
+    @Test
+    public void resetShouldRestoreTheFirstClickSafety() {
+        Game game = new Game(9, 9, 70, 1L, GenerationMode.FIRST_CLICK_SAFE);
         game.revealCell(0, 0);
+
+        for(long seed = 0; seed < 20; seed++) {
+            game.reset(seed, GenerationMode.FIRST_CLICK_SAFE, 0);
+            game.revealCell(8, 8);
+            assertEquals(GameStatus.IN_PROGRESS, game.getStatus());
+        }
+    }
+
+    @Test
+    public void pooledGameShouldReuseTheReleasedBoard() {
+        Game first = Game.fromPool(16, 16, 40, 3L);
+        first.revealCell(8, 8);
+        assertTrue(first.release());
+
+        Game second = Game.fromPool(16, 16, 40, 4L);
+        assertSame(first.getBoard(), second.getBoard());
+        assertEquals(0, second.getBoard().getRevealedSafeCells() + second.getBoard().getRevealedMines());
+        Board expected = new Game(16, 16, 40, 4L).getBoard();
+        for(int index = 0; index < expected.getSize(); index++) {
+            assertEquals(expected.isMine(index), second.getBoard().isMine(index));
+        }
+    }
+
+    private static BitSet mines(int... indexes) {
+        BitSet mines = new BitSet();
+        for(int index : indexes) {
+            mines.set(index);
+        }
+        return mines;
     }
 
 }
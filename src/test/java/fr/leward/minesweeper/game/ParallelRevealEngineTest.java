@@ -0,0 +1,64 @@
+package fr.leward.minesweeper.game;
+
+import fr.leward.minesweeper.components.AtomicBitStore;
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.components.RandomMineLayoutGenerator;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelRevealEngineTest {
+
+    @Test
+    public void parallelCascadeShouldRevealTheSameCellsAsTheSequentialOne() {
+        int rows = 700;
+        int columns = 500;
+        BitSet mines = new BitSet();
+        new RandomMineLayoutGenerator(7).placeMines(mines, rows * columns, rows * columns / 100);
+        int start = firstEmptyCell(new Board(rows, columns, mines));
+
+        Game sequential = new Game(new Board(rows, columns, mines));
+        int sequentialRevealed = sequential.revealCell(start / columns, start % columns);
+
+        Board board = new Board(rows, columns, mines, new AtomicBitStore(rows * columns));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        int parallelRevealed = 1 + new ParallelRevealEngine(board, pool, 100, 32).cascade(revealed(board, start), RevealListener.NONE);
+        pool.shutdown();
+
+        assertTrue(sequentialRevealed > 10000);
+        assertEquals(sequentialRevealed, parallelRevealed);
+        assertEquals(sequentialRevealed, board.getRevealedSafeCells());
+        for(int index = 0; index < rows * columns; index++) {
+            assertEquals(sequential.getBoard().isRevealed(index), board.isRevealed(index));
+        }
+    }
+
+    @Test
+    public void smallCascadesShouldStaySequential() {
+        ConcurrentGame game = new ConcurrentGame(new Board(50, 50, new BitSet(), new AtomicBitStore(2500)));
+        ForkJoinPool pool = new ForkJoinPool(2);
+        game.enableParallelCascade(pool, 10000);
+        assertEquals(2500, game.revealCell(10, 10));
+        assertEquals(0, pool.getStealCount());
+        assertTrue(game.isGameFinished());
+        pool.shutdown();
+    }
+
+    private static int revealed(Board board, int index) {
+        board.reveal(index);
+        return index;
+    }
+
+    private static int firstEmptyCell(Board board) {
+        for(int index = 0; index < board.getSize(); index++) {
+            if(!board.isMine(index) && board.countAdjacentMines(index) == 0) {
+                return index;
+            }
+        }
+        throw new IllegalStateException("No empty cell");
+    }
+
+}
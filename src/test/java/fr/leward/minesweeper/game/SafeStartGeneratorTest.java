@@ -0,0 +1,87 @@
+package fr.leward.minesweeper.game;
+
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.solver.Solver;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class SafeStartGeneratorTest {
+
+    @Test
+    public void firstClickShouldOpenSafeZone() {
+        for(long seed = 0; seed < 200; seed++) {
+            Game game = new Game(16, 30, 99, seed, GenerationMode.FIRST_CLICK_SAFE);
+            game.revealCell(8, 15);
+            Board board = game.getBoard();
+
+            assertEquals(GameStatus.IN_PROGRESS, game.getStatus());
+            assertEquals(0, board.countAdjacentMines(8, 15));
+            assertEquals(99, countMines(board));
+        }
+    }
+
+    @Test
+    public void firstClickShouldBeSafeOnDenseBoard() {
+        Game game = new Game(3, 3, 8, 1L, GenerationMode.FIRST_CLICK_SAFE);
+        game.revealCell(1, 1);
+        assertEquals(GameStatus.WON, game.getStatus());
+    }
+
+    @Test
+    public void flagsShouldSurviveLayoutChange() {
+        Game game = new Game(16, 30, 99, 3L, GenerationMode.NO_GUESS, 10_000);
+        game.flagCell(0, 0);
+        game.revealCell(8, 15);
+        assertTrue(game.getBoard().isFlagged(0, 0));
+        assertEquals(1, game.getBoard().getFlags());
+    }
+
+    @Test
+    public void noGuessLayoutShouldBeSolvableAndDeterministic() {
+        Game game = new Game(16, 30, 99, 42L, GenerationMode.NO_GUESS, 10_000);
+        Solver solver = Solver.attach(game);
+        game.revealCell(8, 15);
+        solver.playSafeMoves(game);
+        assertEquals(GameStatus.WON, game.getStatus());
+
+        Game other = new Game(16, 30, 99, 42L, GenerationMode.NO_GUESS, 10_000);
+        other.revealCell(8, 15);
+        assertArrayEquals(game.getBoard().getMineWords(), other.getBoard().getMineWords());
+    }
+
+    @Test
+    public void noGuessLayoutShouldNotDependOnTheNumberOfThreads() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for(long seed = 0; seed < 10; seed++) {
+                Game game = new Game(16, 30, 99, seed, GenerationMode.NO_GUESS, 10_000);
+                game.revealCell(8, 15);
+                // Waves evaluated by the threads of another pool
+                Game other = new Game(16, 30, 99, seed, GenerationMode.NO_GUESS, 10_000);
+                pool.submit(() -> other.revealCell(8, 15)).get();
+                assertArrayEquals(game.getBoard().getMineWords(), other.getBoard().getMineWords());
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void exhaustedBudgetShouldFallBackToFirstClickSafe() {
+        Game game = new Game(16, 30, 99, 42L, GenerationMode.NO_GUESS, 0);
+        game.revealCell(8, 15);
+        assertEquals(0, game.getBoard().countAdjacentMines(8, 15));
+    }
+
+    private static int countMines(Board board) {
+        int count = 0;
+        for(long word : board.getMineWords()) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
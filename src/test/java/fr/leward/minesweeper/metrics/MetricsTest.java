@@ -0,0 +1,102 @@
+package fr.leward.minesweeper.metrics;
+
+import fr.leward.minesweeper.game.Game;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.management.ObjectName;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void disableMetrics() {
+        Metrics.disable();
+    }
+
+    @Test
+    public void histogramShouldKeepRelativeErrorBounded() {
+        LogHistogram histogram = new LogHistogram();
+        for(long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(1_000_000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_000.5, histogram.getMean(), 0.001);
+        assertEquals(500_000, histogram.getValueAtPercentile(50), 500_000 / 32);
+        assertEquals(990_000, histogram.getValueAtPercentile(99), 990_000 / 32);
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void bucketsShouldCoverEveryLong() {
+        long[] values = {0, 1, 63, 64, 65, 127, 128, 1000, 1L << 40, Long.MAX_VALUE};
+        for(long value : values) {
+            int index = LogHistogram.indexOf(value);
+            assertTrue(index < LogHistogram.BUCKETS);
+            assertTrue(LogHistogram.highestValueOf(index) >= value);
+            if(index > 0) {
+                assertTrue(LogHistogram.highestValueOf(index - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    public void disabledMetricsShouldRecordNothing() {
+        assertSame(Metrics.NOOP, Metrics.global());
+        Game game = new Game(9, 9, 10, 1L);
+        game.revealCell(0, 0);
+        assertEquals(0, Metrics.NOOP.getRevealLatency().getCount());
+        assertEquals(0, Metrics.NOOP.getGenerationLatency().getCount());
+        assertEquals(0, Metrics.NOOP.startTimer());
+    }
+
+    @Test
+    public void enabledMetricsShouldRecordGamesCreatedAfterwards() {
+        Metrics metrics = Metrics.enable();
+        Game game = new Game(9, 9, 1, 1L);
+        int revealedCells = game.revealCell(0, 0);
+
+        assertEquals(1, metrics.getGenerationLatency().getCount());
+        assertEquals(1, metrics.getRevealLatency().getCount());
+        assertEquals(revealedCells, metrics.getCascadeSize().getMax());
+    }
+
+    @Test
+    public void metricsShouldBeExposedThroughJmx() throws Exception {
+        Metrics metrics = new Metrics();
+        metrics.getCascadeSize().record(42);
+        MetricsMXBeanImpl.register(metrics);
+
+        Object max = ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(MetricsMXBeanImpl.OBJECT_NAME), "CascadeSizeMax");
+        assertEquals(42L, max);
+    }
+
+    @Test
+    public void reporterShouldAppendCsvLines() throws IOException {
+        Metrics metrics = new Metrics();
+        metrics.getRevealLatency().record(1500);
+        Path path = folder.getRoot().toPath().resolve("metrics.csv");
+        try(MetricsReporter reporter = MetricsReporter.csv(metrics, path, 1, TimeUnit.HOURS)) {
+            reporter.report();
+        }
+
+        List<String> lines = Files.readAllLines(path);
+        assertEquals(MetricsReporter.CSV_HEADER, lines.get(0));
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(1).contains(",reveal.latency.ns,1,1500.0,"));
+    }
+}
@@ -0,0 +1,157 @@
+package fr.leward.minesweeper.persistence;
+
+import fr.leward.minesweeper.exception.InvalidSnapshotException;
+import fr.leward.minesweeper.game.Game;
+import fr.leward.minesweeper.game.GameStatus;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class GameSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void savedGameShouldBeRestored() throws IOException {
+        Game game = new Game(37, 41, 150, 99L);
+        int firstSafeCell = 0;
+        while(game.getBoard().isMine(firstSafeCell)) {
+            firstSafeCell++;
+        }
+        game.revealCell(firstSafeCell / 41, firstSafeCell % 41);
+
+        Path path = folder.newFile().toPath();
+        GameSnapshot.save(game, path);
+        Game restored = GameSnapshot.load(path);
+
+        assertEquals(37, restored.getRows());
+        assertEquals(41, restored.getColumns());
+        assertEquals(150, restored.getNbMines());
+        assertEquals(1, restored.getHitCounter());
+        assertEquals(game.getStatus(), restored.getStatus());
+        assertEquals(game.getBoard().getRevealedSafeCells(), restored.getBoard().getRevealedSafeCells());
+        for(int index = 0; index < game.getBoard().getSize(); index++) {
+            assertEquals(game.getBoard().isMine(index), restored.getBoard().isMine(index));
+            assertEquals(game.getBoard().isRevealed(index), restored.getBoard().isRevealed(index));
+            assertEquals(game.getBoard().countAdjacentMines(index), restored.getBoard().countAdjacentMines(index));
+        }
+    }
+
+    @Test
+    public void flagsShouldBeRestored() throws IOException {
+        Game game = new Game(8, 8, 10, 5L);
+        game.flagCell(3, 4);
+        game.flagCell(7, 7);
+
+        Path path = folder.newFile().toPath();
+        GameSnapshot.save(game, path);
+        Game restored = GameSnapshot.load(path);
+
+        assertEquals(2, restored.getBoard().getFlags());
+        assertTrue(restored.getBoard().isFlagged(3, 4));
+        assertTrue(restored.getBoard().isFlagged(7, 7));
+        assertFalse(restored.getBoard().isFlagged(0, 0));
+    }
+
+    @Test
+    public void lostGameShouldStayLost() throws IOException {
+        Game game = new Game(5, 5, 3, 1L);
+        int mine = 0;
+        while(!game.getBoard().isMine(mine)) {
+            mine++;
+        }
+        game.revealCell(mine / 5, mine % 5);
+
+        Path path = folder.newFile().toPath();
+        GameSnapshot.save(game, path);
+        Game restored = GameSnapshot.load(path);
+        assertEquals(GameStatus.LOST, restored.getStatus());
+        assertEquals(1, restored.getBoard().getRevealedMines());
+    }
+
+    @Test(expected = InvalidSnapshotException.class)
+    public void loadingAnotherFileShouldFail() throws IOException {
+        Path path = folder.newFile().toPath();
+        Files.write(path, new byte[64]);
+        GameSnapshot.load(path);
+    }
+
+    @Test
+    public void corruptedHeaderShouldFailWithAnInvalidSnapshot() throws IOException {
+        Path path = folder.newFile().toPath();
+        GameSnapshot.save(new Game(8, 8, 10, 5L), path);
+        byte[] valid = Files.readAllBytes(path);
+        // Status, rows, columns, and rows and columns whose product overflows
+        int[][] corruptions = {{24, 7}, {8, 0}, {12, -3}, {8, 0x10000, 12, 0x10000}};
+        for(int[] corruption : corruptions) {
+            ByteBuffer bytes = ByteBuffer.wrap(valid.clone()).order(ByteOrder.LITTLE_ENDIAN);
+            for(int i = 0; i < corruption.length; i += 2) {
+                if(corruption[i] == 24) {
+                    bytes.put(corruption[i], (byte) corruption[i + 1]);
+                }
+                else {
+                    bytes.putInt(corruption[i], corruption[i + 1]);
+                }
+            }
+            Files.write(path, bytes.array());
+            try {
+                GameSnapshot.load(path);
+                fail("Corruption at offset " + corruption[0] + " was not detected");
+            }
+            catch (InvalidSnapshotException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void bitsPastTheLastCellShouldFailWithAnInvalidSnapshot() throws IOException {
+        Path path = folder.newFile().toPath();
+        // 25 cells, a single word per plane
+        GameSnapshot.save(new Game(5, 5, 3, 5L), path);
+        byte[] valid = Files.readAllBytes(path);
+        for(int plane = 0; plane < 3; plane++) {
+            ByteBuffer bytes = ByteBuffer.wrap(valid.clone()).order(ByteOrder.LITTLE_ENDIAN);
+            int offset = GameSnapshot.HEADER_SIZE + plane * Long.BYTES;
+            bytes.putLong(offset, bytes.getLong(offset) | 1L << 40);
+            if(plane == 0) {
+                // A mine count matching the extra bit
+                bytes.putInt(16, 4);
+            }
+            Files.write(path, bytes.array());
+            try {
+                GameSnapshot.load(path);
+                fail("Bit past the last cell of plane " + plane + " was not detected");
+            }
+            catch (InvalidSnapshotException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void savingShouldReplaceTheFileWithoutLeavingTemporaryFiles() throws IOException {
+        Path path = folder.newFile().toPath();
+        GameSnapshot.save(new Game(8, 8, 10, 5L), path);
+        Game game = new Game(16, 30, 99, 6L);
+        game.flagCell(2, 3);
+        GameSnapshot.save(game, path);
+
+        Game restored = GameSnapshot.load(path);
+        assertEquals(16, restored.getRows());
+        assertTrue(restored.getBoard().isFlagged(2, 3));
+        try(Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            assertEquals(1, files.count());
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package fr.leward.minesweeper.persistence;
+
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.exception.InvalidJournalException;
+import fr.leward.minesweeper.game.Game;
+import fr.leward.minesweeper.game.GenerationMode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.Assert.*;
+
+public class MoveJournalTest {
+
+    private static final long SEED = 42L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replayedGameShouldMatchPlayedGame() throws IOException {
+        Path path = folder.newFile().toPath();
+        Game game = new Game(16, 30, 99, SEED);
+        try(MoveJournal journal = MoveJournal.create(path, game, 4, FsyncPolicy.NEVER)) {
+            playSafeCells(game, 10);
+        }
+
+        assertEquals(MoveJournal.HEADER_SIZE + 10 * MoveJournal.RECORD_SIZE, Files.size(path));
+        assertSameGame(game, JournalReplayer.replay(path));
+    }
+
+    @Test
+    public void tornRecordShouldBeIgnored() throws IOException {
+        Path path = folder.newFile().toPath();
+        Game game = new Game(16, 30, 99, SEED);
+        try(MoveJournal journal = MoveJournal.create(path, game, 1, FsyncPolicy.EVERY_MOVE)) {
+            playSafeCells(game, 5);
+        }
+        try(FileChannel channel = FileChannel.open(path, APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[MoveJournal.RECORD_SIZE / 2]));
+        }
+
+        Game recovered = JournalReplayer.replay(path);
+        assertSameGame(game, recovered);
+
+        try(MoveJournal journal = MoveJournal.resume(path, recovered, 1, FsyncPolicy.EVERY_MOVE)) {
+            playSafeCells(recovered, 1);
+        }
+        assertSameGame(recovered, JournalReplayer.replay(path));
+    }
+
+    @Test
+    public void snapshotShouldOnlyReplayLaterMoves() throws IOException {
+        Path journalPath = folder.newFile().toPath();
+        Path snapshotPath = folder.newFile().toPath();
+        Game game = new Game(16, 30, 99, SEED);
+        try(MoveJournal journal = MoveJournal.create(journalPath, game, 8, FsyncPolicy.BATCH)) {
+            playSafeCells(game, 3);
+            GameSnapshot.save(game, snapshotPath);
+            playSafeCells(game, 3);
+        }
+
+        assertSameGame(game, JournalReplayer.replay(journalPath, snapshotPath));
+    }
+
+    @Test
+    public void flagsAndChordsShouldBeReplayed() throws IOException {
+        Path path = folder.newFile().toPath();
+        Game game = new Game(16, 30, 99, SEED);
+        try(MoveJournal journal = MoveJournal.create(path, game, 4, FsyncPolicy.NEVER)) {
+            playSafeCells(game, 1);
+            Board board = game.getBoard();
+            // Flag the mines around the first revealed number and chord on it
+            for(int index = 0; index < board.getSize(); index++) {
+                if(board.isRevealed(index) && board.countAdjacentMines(index) > 0) {
+                    int row = index / board.getHeight();
+                    int column = index % board.getHeight();
+                    for(int r = Math.max(0, row - 1); r <= Math.min(board.getWidth() - 1, row + 1); r++) {
+                        for(int c = Math.max(0, column - 1); c <= Math.min(board.getHeight() - 1, column + 1); c++) {
+                            if(board.isMine(r, c)) {
+                                game.flagCell(r, c);
+                            }
+                        }
+                    }
+                    game.chordCell(row, column);
+                    break;
+                }
+            }
+            game.flagCell(15, 29);
+            game.unflagCell(15, 29);
+        }
+
+        Game replayed = JournalReplayer.replay(path);
+        assertSameGame(game, replayed);
+        assertEquals(game.getBoard().getFlags(), replayed.getBoard().getFlags());
+    }
+
+    @Test
+    public void journalShouldReplayInEveryGenerationMode() throws IOException {
+        for(GenerationMode mode : GenerationMode.values()) {
+            for(long seed = 0; seed < 5; seed++) {
+                Path path = folder.newFile().toPath();
+                Game game = new Game(9, 9, 10, seed, mode, 10_000);
+                try(MoveJournal journal = MoveJournal.create(path, game, 4, FsyncPolicy.NEVER)) {
+                    game.flagCell(8, 8);
+                    playSafeCells(game, 5);
+                }
+
+                Game replayed = JournalReplayer.replay(path);
+                assertEquals(mode, replayed.getGenerationMode());
+                assertSameGame(game, replayed);
+            }
+        }
+    }
+
+    @Test
+    public void snapshotTakenBeforeTheFirstRevealShouldKeepTheGenerationMode() throws IOException {
+        for(long seed = 0; seed < 10; seed++) {
+            Path journalPath = folder.newFile().toPath();
+            Path snapshotPath = folder.newFile().toPath();
+            Game game = new Game(9, 9, 10, seed, GenerationMode.FIRST_CLICK_SAFE);
+            try(MoveJournal journal = MoveJournal.create(journalPath, game, 4, FsyncPolicy.NEVER)) {
+                game.flagCell(0, 0);
+                GameSnapshot.save(game, snapshotPath);
+                playSafeCells(game, 3);
+            }
+
+            assertSameGame(game, JournalReplayer.replay(journalPath, snapshotPath));
+        }
+    }
+
+    @Test
+    public void noGuessLayoutShouldNotDependOnTheTimeLeftToReplay() throws IOException {
+        for(long seed = 0; seed < 5; seed++) {
+            // A layout found with a generous budget replayed without any, and the fallback of an exhausted budget replayed with time to spare
+            for(int[] budgets : new int[][] {{10_000, 0}, {0, 10_000}}) {
+                Path path = folder.newFile().toPath();
+                Game game = new Game(16, 30, 99, seed, GenerationMode.NO_GUESS, budgets[0]);
+                try(MoveJournal journal = MoveJournal.create(path, game, 4, FsyncPolicy.NEVER)) {
+                    game.revealCell(8, 15);
+                    playSafeCells(game, 5);
+                }
+                assertEquals(budgets[0] == 0, game.getNoGuessCandidate() == Game.NO_GUESS_FALLBACK);
+                try(FileChannel channel = FileChannel.open(path, WRITE)) {
+                    ByteBuffer budget = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, budgets[1]);
+                    channel.write(budget, 20);
+                }
+
+                Game replayed = JournalReplayer.replay(path);
+                assertEquals(game.getNoGuessCandidate(), replayed.getNoGuessCandidate());
+                assertSameGame(game, replayed);
+            }
+        }
+    }
+
+    @Test(expected = InvalidJournalException.class)
+    public void journalOfAnotherLayoutShouldBeRejected() throws IOException {
+        Path path = folder.newFile().toPath();
+        Game game = new Game(16, 30, 99, SEED);
+        try(MoveJournal journal = MoveJournal.create(path, game, 8, FsyncPolicy.NEVER)) {
+            playSafeCells(game, 10);
+        }
+        try(FileChannel channel = FileChannel.open(path, WRITE)) {
+            ByteBuffer seed = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, SEED + 1);
+            channel.write(seed, 24);
+        }
+        JournalReplayer.replay(path);
+    }
+
+    @Test(expected = InvalidJournalException.class)
+    public void fileWithoutHeaderShouldBeRejected() throws IOException {
+        Path path = folder.newFile().toPath();
+        Files.write(path, new byte[MoveJournal.HEADER_SIZE]);
+        JournalReplayer.replay(path);
+    }
+
+    /**
+     * Reveal the first safe cells of the board that are still hidden and not flagged, in index order
+     */
+    private static void playSafeCells(Game game, int moves) {
+        int index = 0;
+        for(int played = 0; played < moves && !game.isGameFinished(); played++) {
+            while(game.getBoard().isMine(index) || game.getBoard().isRevealed(index) || game.getBoard().isFlagged(index)) {
+                index++;
+            }
+            game.revealCell(index / game.getColumns(), index % game.getColumns());
+        }
+    }
+
+    private static void assertSameGame(Game expected, Game actual) {
+        assertEquals(expected.getHitCounter(), actual.getHitCounter());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        for(int index = 0; index < expected.getBoard().getSize(); index++) {
+            assertEquals(expected.getBoard().isMine(index), actual.getBoard().isMine(index));
+            assertEquals(expected.getBoard().isRevealed(index), actual.getBoard().isRevealed(index));
+        }
+    }
+}
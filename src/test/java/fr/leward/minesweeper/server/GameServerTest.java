@@ -0,0 +1,187 @@
+package fr.leward.minesweeper.server;
+
+import fr.leward.minesweeper.cli.FrameWriter;
+import fr.leward.minesweeper.cli.InputReader;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class GameServerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private GameServer server;
+
+    @After
+    public void closeServer() throws IOException {
+        if(server != null) {
+            server.close();
+        }
+    }
+
+    private GameServer startServer(long idleTimeoutMillis) throws IOException {
+        server = new GameServer(0, folder.getRoot().toPath(), idleTimeoutMillis, TimeUnit.MILLISECONDS).start();
+        return server;
+    }
+
+    /**
+     * Send the requests in a single write, then read as many responses
+     */
+    private static String[] pipeline(Socket socket, InputReader in, String... requests) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for(String request : requests) {
+            sb.append(request).append('\n');
+        }
+        OutputStream out = socket.getOutputStream();
+        out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        String[] responses = new String[requests.length];
+        for(int i = 0; i < responses.length; i++) {
+            responses[i] = in.readLine();
+        }
+        return responses;
+    }
+
+    @Test
+    public void pipelinedRequestsShouldBeAnsweredInOrder() throws IOException {
+        startServer(0);
+        try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+            InputReader in = new InputReader(socket.getInputStream())) {
+            String[] responses = pipeline(socket, in,
+                    "NEW 3 4 1 7",
+                    "STATUS 1",
+                    "FLAG 1 0 0",
+                    "FLAG 1 0 0",
+                    "REVEAL 1 9 9",
+                    "STATUS 1",
+                    "REVEAL 1",
+                    "REVEAL 2 0 0",
+                    "NEW 0 4 1",
+                    "JUMP",
+                    "CLOSE 1",
+                    "STATUS 1",
+                    "QUIT");
+
+            assertArrayEquals(new String[] {
+                    "OK 1",
+                    "OK IN_PROGRESS 0 0 11 0",
+                    "OK APPLIED 0 IN_PROGRESS",
+                    "OK NO_EFFECT 0 IN_PROGRESS",
+                    "OK OUT_OF_BOARD 0 IN_PROGRESS",
+                    "OK IN_PROGRESS 1 0 11 1",
+                    "ERR INVALID_ARGUMENTS",
+                    "ERR UNKNOWN_GAME",
+                    "ERR INVALID_ARGUMENTS",
+                    "ERR INVALID_COMMAND",
+                    "OK",
+                    "ERR UNKNOWN_GAME",
+                    "OK"}, responses);
+            assertNull(in.readLine());
+        }
+        assertEquals(0, server.getGameCount());
+    }
+
+    @Test
+    public void boardFullOfMinesShouldBeRejected() throws IOException {
+        startServer(0);
+        try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+            InputReader in = new InputReader(socket.getInputStream())) {
+            String[] responses = pipeline(socket, in, "NEW 2 2 3 1", "NEW 2 2 4", "STATUS 1", "QUIT");
+
+            assertArrayEquals(new String[] {"OK 1", "ERR INVALID_ARGUMENTS", "OK IN_PROGRESS 0 0 1 0", "OK"}, responses);
+            assertNull(in.readLine());
+        }
+    }
+
+    @Test
+    public void oversizedBoardShouldBeRejected() throws IOException {
+        startServer(0);
+        try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+            InputReader in = new InputReader(socket.getInputStream())) {
+            // 2^62 + 1 rows times 4 columns overflows to 4 cells
+            String[] responses = pipeline(socket, in, "NEW 4611686018427387905 4 1", "NEW 4 4611686018427387905 1", "NEW 4097 4097 1", "QUIT");
+
+            assertArrayEquals(new String[] {"ERR INVALID_ARGUMENTS", "ERR INVALID_ARGUMENTS", "ERR INVALID_ARGUMENTS", "OK"}, responses);
+            assertEquals(0, server.getGameCount());
+        }
+    }
+
+    @Test
+    public void failingRequestShouldBeAnsweredWithAnError() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        FrameWriter out = new FrameWriter(bytes);
+        // Without a registry, any request on a game fails
+        Connection connection = new Connection(null, null, null);
+
+        assertTrue(connection.handle("STATUS 1", out));
+        assertFalse(connection.handle("QUIT", out));
+        out.flush();
+        assertEquals("ERR INTERNAL\nOK\n", new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void idleGameShouldBeRestoredFromItsSnapshot() throws IOException {
+        startServer(0);
+        try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+            InputReader in = new InputReader(socket.getInputStream())) {
+            pipeline(socket, in, "NEW 9 9 10 42", "FLAG 1 4 4", "FLAG 1 0 0");
+
+            assertEquals(1, server.evictIdleGames());
+            assertEquals(1, server.getGameCount());
+            assertEquals(0, server.getLoadedGameCount());
+            Path snapshot = folder.getRoot().toPath().resolve("1.snapshot");
+            assertTrue(Files.exists(snapshot));
+
+            assertArrayEquals(new String[] {"OK IN_PROGRESS 2 0 71 2", "OK APPLIED 0 IN_PROGRESS"},
+                    pipeline(socket, in, "STATUS 1", "UNFLAG 1 0 0"));
+            assertEquals(1, server.getLoadedGameCount());
+            assertFalse(Files.exists(snapshot));
+        }
+    }
+
+    @Test
+    public void idleGamesShouldBeEvictedPeriodically() throws IOException, InterruptedException {
+        startServer(20);
+        try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+            InputReader in = new InputReader(socket.getInputStream())) {
+            pipeline(socket, in, "NEW 9 9 10 42", "NEW 9 9 10 43");
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            // Counted once the game is unloaded
+            while(server.getEvictions() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, server.getEvictions());
+            assertEquals(0, server.getLoadedGameCount());
+            assertEquals("OK IN_PROGRESS 0 0 71 0", pipeline(socket, in, "STATUS 2")[0]);
+        }
+    }
+
+    @Test
+    public void serverShouldSustainManyPipelinedConnections() throws IOException, InterruptedException {
+        startServer(0);
+
+        LoadGenerator.Report report = new LoadGenerator(server.getPort()).run(32, 4, 9, 9, 10, 8, 1L);
+
+        assertEquals(128, report.getGames());
+        assertEquals(0, report.getErrors());
+        assertTrue(report.getLosses() > 0);
+        assertTrue(report.getRequests() >= 128 * 10);
+        assertEquals(0, server.getGameCount());
+    }
+
+}
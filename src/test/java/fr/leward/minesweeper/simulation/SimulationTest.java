@@ -0,0 +1,53 @@
+package fr.leward.minesweeper.simulation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SimulationTest {
+
+    @Test
+    public void resultsShouldNotDependOnThreadCount() throws InterruptedException {
+        Simulation simulation = new Simulation(9, 9, 10, RandomMovePolicy::new);
+        SimulationStats single = simulation.run(1000, 1, 7L);
+        SimulationStats parallel = simulation.run(1000, 4, 7L);
+
+        assertEquals(1000, single.getGames());
+        assertEquals(1000, parallel.getGames());
+        assertEquals(single.getWins(), parallel.getWins());
+        assertEquals(single.getMoves(), parallel.getMoves());
+        assertEquals(single.getRevealedCells(), parallel.getRevealedCells());
+        assertEquals(1000, parallel.getMovesPerGame().getTotalCount());
+    }
+
+    @Test
+    public void solverShouldWinMoreThanRandomPlayer() throws InterruptedException {
+        SimulationStats random = new Simulation(9, 9, 10, RandomMovePolicy::new).run(500, 2, 3L);
+        SimulationStats solver = new Simulation(9, 9, 10, SolverMovePolicy::new).run(500, 2, 3L);
+
+        assertTrue(solver.getWinRate() > 0.5);
+        assertTrue(solver.getWinRate() > random.getWinRate());
+        // A game is at least one move revealing at least one cell
+        assertTrue(solver.getMovesPerGame().getValueAtPercentile(0) >= 1);
+        assertTrue(solver.getRevealedCellsPerGame().getValueAtPercentile(50) >= solver.getMovesPerGame().getValueAtPercentile(50));
+    }
+
+    @Test
+    public void histogramShouldComputePercentiles() {
+        Histogram histogram = new Histogram(10);
+        long[] recorder = histogram.newRecorder();
+        for(int value = 1; value <= 100; value++) {
+            Histogram.record(recorder, value % 10);
+        }
+        Histogram.record(recorder, 1000);
+        histogram.add(recorder);
+
+        assertEquals(101, histogram.getTotalCount());
+        assertEquals(0, histogram.getValueAtPercentile(5));
+        assertEquals(5, histogram.getValueAtPercentile(50));
+        assertEquals(9, histogram.getValueAtPercentile(99));
+        // Values above the highest trackable value are clamped
+        assertEquals(10, histogram.getValueAtPercentile(100));
+        assertEquals(0, recorder[1]);
+    }
+}
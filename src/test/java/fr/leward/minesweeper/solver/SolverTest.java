@@ -0,0 +1,219 @@
+package fr.leward.minesweeper.solver;
+
+import fr.leward.minesweeper.components.Board;
+import fr.leward.minesweeper.game.Game;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class SolverTest {
+
+    @Test
+    public void singleNumberRuleShouldFindMinesAndSafeCells() {
+        // 1x3 board: . 1 X  -> revealing the left cell shows a 0, the middle shows a 1
+        Game game = new Game(new Board(1, 3, mines(2)));
+        Solver solver = Solver.attach(game);
+        game.revealCell(0, 0);
+
+        assertEquals(-1, solver.nextSafeCell());
+        assertTrue(solver.isKnownMine(2));
+        assertTrue(game.getBoard().isRevealed(1));
+    }
+
+    @Test
+    public void subsetRuleShouldFindSafeCells() {
+        // 3x4 board with mines at (0,1) and (0,3): the bottom rows get revealed and the top row reads 1 1 2 1.
+        // No number can be solved on its own, but the unknowns of the first 1 are included in those of the second one.
+        Game game = new Game(new Board(3, 4, mines(1, 3)));
+        Solver solver = Solver.attach(game);
+        game.revealCell(2, 0);
+
+        solver.propagate();
+        assertTrue(solver.isKnownSafe(0));
+        assertTrue(solver.isKnownSafe(2));
+        assertTrue(solver.isKnownMine(1));
+        assertTrue(solver.isKnownMine(3));
+    }
+
+    @Test
+    public void probabilitiesShouldFollowTheFrontier() {
+        // 2x2 board with one mine, nothing revealed: every cell has a 1/4 chance
+        Game game = new Game(new Board(2, 2, mines(3)));
+        Solver solver = Solver.attach(game);
+        double[] probabilities = solver.computeProbabilities();
+        for(double probability : probabilities) {
+            assertEquals(0.25, probability, 1e-9);
+        }
+
+        // A revealed 1 in the corner leaves the mine among its three neighbours
+        game.revealCell(0, 0);
+        probabilities = solver.computeProbabilities();
+        assertTrue(Double.isNaN(probabilities[0]));
+        assertEquals(1.0 / 3, probabilities[1], 1e-9);
+        assertEquals(1.0 / 3, probabilities[3], 1e-9);
+    }
+
+    @Test
+    public void componentCountsShouldMatchABruteForceEnumeration() {
+        Random random = new Random(4);
+        for(int round = 0; round < 200; round++) {
+            // Random constraints over a few cells, with the mines of a random assignment so that it has solutions
+            int nbCells = 1 + random.nextInt(14);
+            boolean[] assignment = new boolean[nbCells];
+            for(int cell = 0; cell < nbCells; cell++) {
+                assignment[cell] = random.nextInt(3) == 0;
+            }
+            List<int[]> constraintCells = new ArrayList<>();
+            int nbConstraints = 1 + random.nextInt(nbCells);
+            int[] constraintMines = new int[nbConstraints];
+            for(int c = 0; c < nbConstraints; c++) {
+                int start = random.nextInt(nbCells);
+                int[] cells = IntStream.range(start, Math.min(nbCells, start + 1 + random.nextInt(6))).toArray();
+                constraintCells.add(cells);
+                for(int cell : cells) {
+                    constraintMines[c] += assignment[cell] ? 1 : 0;
+                }
+            }
+            int floatingCells = random.nextInt(20);
+            int remainingMines = random.nextInt(nbCells + floatingCells + 1);
+
+            ProbabilityEngine.Result result = new ProbabilityEngine().compute(constraintCells, constraintMines, floatingCells, remainingMines);
+
+            // Weight of each assignment: the number of ways to place the other mines on the floating cells
+            double[] cellWeights = new double[nbCells];
+            double floatingWeight = 0;
+            double total = 0;
+            for(int mask = 0; mask < 1 << nbCells; mask++) {
+                boolean valid = true;
+                for(int c = 0; c < nbConstraints && valid; c++) {
+                    int mines = 0;
+                    for(int cell : constraintCells.get(c)) {
+                        mines += (mask >> cell) & 1;
+                    }
+                    valid = mines == constraintMines[c];
+                }
+                int frontierMines = 0;
+                for(int cell : result.cells) {
+                    frontierMines += (mask >> cell) & 1;
+                }
+                int floatingMines = remainingMines - frontierMines;
+                if(!valid || floatingMines < 0 || floatingMines > floatingCells || !onlyFrontierMines(mask, result.cells)) {
+                    continue;
+                }
+                double weight = binomial(floatingCells, floatingMines);
+                total += weight;
+                floatingWeight += weight * floatingMines;
+                for(int cell = 0; cell < nbCells; cell++) {
+                    if(((mask >> cell) & 1) != 0) {
+                        cellWeights[cell] += weight;
+                    }
+                }
+            }
+            if(total == 0) {
+                continue;
+            }
+            for(int i = 0; i < result.cells.length; i++) {
+                assertEquals(cellWeights[result.cells[i]] / total, result.probabilities[i], 1e-9);
+            }
+            if(floatingCells > 0) {
+                assertEquals(floatingWeight / total / floatingCells, result.floatingProbability, 1e-9);
+            }
+        }
+    }
+
+    @Test(timeout = 2000)
+    public void largeComponentShouldBeCountedQuickly() {
+        // A row of revealed 2s between two rows of hidden cells: the frontier forms a single strip of 48 cells,
+        // with too many solutions to visit them one by one
+        int length = ProbabilityEngine.MAX_COMPONENT_SIZE / 2;
+        List<int[]> constraintCells = new ArrayList<>();
+        for(int column = 1; column < length - 1; column++) {
+            constraintCells.add(new int[] {column - 1, column, column + 1, length + column - 1, length + column, length + column + 1});
+        }
+        int[] constraintMines = new int[constraintCells.size()];
+        Arrays.fill(constraintMines, 2);
+
+        long start = System.nanoTime();
+        ProbabilityEngine.Result result = new ProbabilityEngine().compute(constraintCells, constraintMines, 200, 40);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(2 * length, result.cells.length);
+        for(int i = 0; i < result.cells.length; i++) {
+            // The two rows are symmetrical
+            int cell = result.cells[i];
+            int mirror = cell < length ? cell + length : cell - length;
+            for(int j = 0; j < result.cells.length; j++) {
+                if(result.cells[j] == mirror) {
+                    assertEquals(result.probabilities[j], result.probabilities[i], 1e-9);
+                }
+            }
+        }
+        assertTrue("Took " + elapsedMillis + " ms", elapsedMillis < 200);
+    }
+
+    private static boolean onlyFrontierMines(int mask, int[] frontier) {
+        int frontierMask = 0;
+        for(int cell : frontier) {
+            frontierMask |= 1 << cell;
+        }
+        return (mask & ~frontierMask) == 0;
+    }
+
+    private static double binomial(int n, int k) {
+        double result = 1;
+        for(int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    @Test
+    public void globalMineCountShouldWeightTheFrontier() {
+        // 3x3 board with a single mine next to the revealed corner: the cells away from the corner cannot hold it
+        Game game = new Game(new Board(3, 3, mines(4)));
+        Solver solver = Solver.attach(game);
+        game.revealCell(0, 0);
+
+        double[] probabilities = solver.computeProbabilities();
+        assertEquals(1.0 / 3, probabilities[1], 1e-9);
+        assertEquals(1.0 / 3, probabilities[4], 1e-9);
+        assertEquals(0, probabilities[2], 1e-9);
+        assertEquals(0, probabilities[8], 1e-9);
+    }
+
+    @Test
+    public void solverShouldClearAnEasyExpertBoard() {
+        // Low density boards are nearly always solvable from a first click in an empty area
+        Game game = new Game(new Board(16, 30, mines(0, 29, 450, 479, 200, 215)));
+        assertTrue(Solver.solvesWithoutGuessing(game, 8, 8));
+    }
+
+    @Test
+    public void suggestedMovesShouldNeverBeKnownMines() {
+        Game game = new Game(16, 30, 99, 1234L);
+        Solver solver = Solver.attach(game);
+        game.revealCell(8, 15);
+        while(!game.isGameOver() && !game.isGameFinished()) {
+            int move = solver.suggestMove();
+            assertFalse(solver.isKnownMine(move));
+            assertFalse(game.getBoard().isRevealed(move));
+            game.revealCell(move / 30, move % 30);
+        }
+    }
+
+    private static BitSet mines(int... indexes) {
+        BitSet mines = new BitSet();
+        for(int index : indexes) {
+            mines.set(index);
+        }
+        return mines;
+    }
+
+}